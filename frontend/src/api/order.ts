@@ -41,13 +41,14 @@ export interface Order {
 }
 
 export interface OrderQuery {
-  viewType?: 'buyer' | 'seller'
+  viewType?: 'buyer' | 'seller' | 'all'
   status?: number
   orderNo?: string
   startDate?: Date
   endDate?: Date
   pageNum?: number
   pageSize?: number
+  after?: string  // 游标分页：上一页返回的 nextCursor，空串为第一页；viewType 为 all 时只支持游标分页
 }
 
 export interface PageResult<T> {
@@ -55,6 +56,8 @@ export interface PageResult<T> {
   total: number
   pageNum: number
   pageSize: number
+  hasMore?: boolean
+  nextCursor?: string | null
 }
 
 export interface ReviewRequest {
@@ -14,6 +14,7 @@ export interface Product {
   price: number
   originalPrice?: number
   images?: string[]
+  coverImage?: string  // 列表卡片只返回封面图
   status?: number
   condition?: string
   transactionType?: number
@@ -142,3 +143,11 @@ export function getFavoriteList(pageNum = 1, pageSize = 10) {
     params: { pageNum, pageSize }
   })
 }
+
+export function getFavoriteFlags(ids: Array<number | string>) {
+  return request<Record<string, boolean>>({
+    method: 'GET',
+    url: '/api/product/favorite/flags',
+    params: { ids: ids.join(',') }
+  })
+}
@@ -0,0 +1,138 @@
+package com.modestcyber.benchmark;
+
+import com.modestcyber.converter.OrderConverter;
+import com.modestcyber.converter.OrderConverterImpl;
+import com.modestcyber.converter.ProductConverter;
+import com.modestcyber.converter.ProductConverterImpl;
+import com.modestcyber.converter.UserConverter;
+import com.modestcyber.converter.UserConverterImpl;
+import com.modestcyber.dto.response.OrderResponse;
+import com.modestcyber.dto.response.ProductResponse;
+import com.modestcyber.dto.response.UserInfoResponse;
+import com.modestcyber.pojo.Order;
+import com.modestcyber.pojo.Product;
+import com.modestcyber.pojo.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DTO 转换：MapStruct 生成的转换器与反射式 BeanUtils.copyProperties 对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConverterBenchmark {
+
+    private final OrderConverter orderConverter = new OrderConverterImpl();
+    private final UserConverter userConverter = new UserConverterImpl();
+    private final ProductConverter productConverter = new ProductConverterImpl();
+
+    private final Order order = order();
+    private final User user = user();
+    private final Product product = product();
+
+    @Benchmark
+    public OrderResponse orderBeanUtils() {
+        OrderResponse response = new OrderResponse();
+        BeanUtils.copyProperties(order, response);
+        return response;
+    }
+
+    @Benchmark
+    public OrderResponse orderMapStruct() {
+        return orderConverter.toResponse(order);
+    }
+
+    @Benchmark
+    public UserInfoResponse userBeanUtils() {
+        UserInfoResponse response = new UserInfoResponse();
+        BeanUtils.copyProperties(user, response);
+        return response;
+    }
+
+    @Benchmark
+    public UserInfoResponse userMapStruct() {
+        return userConverter.toInfoResponse(user);
+    }
+
+    @Benchmark
+    public ProductResponse productBeanUtils() {
+        ProductResponse response = new ProductResponse();
+        BeanUtils.copyProperties(product, response);
+        return response;
+    }
+
+    @Benchmark
+    public ProductResponse productMapStruct() {
+        return productConverter.toResponse(product);
+    }
+
+    private static Order order() {
+        Order order = new Order();
+        order.setId(1L);
+        order.setOrderNo("ORD20260101000000000001");
+        order.setBuyerId(2L);
+        order.setSellerId(3L);
+        order.setProductId(4L);
+        order.setQuantity(1);
+        order.setTotalPrice(new BigDecimal("99.90"));
+        order.setTransactionType(1);
+        order.setStatus(1);
+        order.setRemark("请尽快发货");
+        order.setAddress("学生公寓 3 号楼");
+        order.setCreateTime(LocalDateTime.now());
+        order.setUpdateTime(LocalDateTime.now());
+        return order;
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("student");
+        user.setPassword("$2a$10$hash");
+        user.setRealName("张三");
+        user.setEmail("student@example.com");
+        user.setPhone("13800000000");
+        user.setStudentId("2026000001");
+        user.setDepartment("计算机学院");
+        user.setRole("user");
+        user.setStatus(1);
+        user.setCreateTime(LocalDateTime.now());
+        user.setUpdateTime(LocalDateTime.now());
+        return user;
+    }
+
+    private static Product product() {
+        Product product = new Product();
+        product.setId(1L);
+        product.setUserId(1L);
+        product.setCategoryId(2L);
+        product.setTitle("二手自行车");
+        product.setDescription("骑了一年，车况良好");
+        product.setPrice(new BigDecimal("200.00"));
+        product.setOriginalPrice(new BigDecimal("600.00"));
+        product.setStatus(1);
+        product.setCondition("八成新");
+        product.setTransactionType(0);
+        product.setViewCount(10);
+        product.setFavoriteCount(2);
+        product.setCreateTime(LocalDateTime.now());
+        product.setUpdateTime(LocalDateTime.now());
+        return product;
+    }
+}
@@ -0,0 +1,30 @@
+package com.modestcyber.common;
+
+/**
+ * 分页总数的统计方式
+ */
+public enum CountMode {
+    /**
+     * 精确总数：与当页数据在同一条语句中用 COUNT(*) OVER() 取得
+     */
+    EXACT,
+    /**
+     * 缓存总数：同一筛选条件短时间内复用上次统计结果，totalExact=false
+     */
+    CACHED,
+    /**
+     * 不统计总数：多取一行，只返回 hasMore
+     */
+    NONE;
+
+    public static CountMode of(String value) {
+        if (value != null) {
+            for (CountMode mode : values()) {
+                if (mode.name().equalsIgnoreCase(value)) {
+                    return mode;
+                }
+            }
+        }
+        return EXACT;
+    }
+}
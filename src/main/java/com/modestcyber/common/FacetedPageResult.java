@@ -0,0 +1,23 @@
+package com.modestcyber.common;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * 附带分面统计的分页响应结果
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public final class FacetedPageResult<T, F> extends PageResult<T> {
+    private F facets;
+
+    public FacetedPageResult(PageResult<T> page, F facets) {
+        super(page.getList(), page.getPageNum(), page.getPageSize(), page.getTotal());
+        setTotalExact(page.getTotalExact());
+        setHasMore(page.getHasMore());
+        setNextCursor(page.getNextCursor());
+        this.facets = facets;
+    }
+}
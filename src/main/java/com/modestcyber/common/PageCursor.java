@@ -0,0 +1,47 @@
+package com.modestcyber.common;
+
+import com.modestcyber.exception.BusinessException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 游标分页的位置标记
+ * 记录上一页最后一行的排序列、排序值和ID，对前端以不透明字符串传递
+ */
+@Data
+@AllArgsConstructor
+public class PageCursor {
+    private String sortBy;
+    private String value;
+    private Long id;
+
+    public String encode() {
+        String raw = sortBy + "|" + value + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，排序列与本次请求不一致时视为无效
+     */
+    public static PageCursor decode(String token, String expectedSortBy) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int first = raw.indexOf('|');
+            int last = raw.lastIndexOf('|');
+            if (first < 0 || first == last) {
+                throw new IllegalArgumentException(raw);
+            }
+            PageCursor cursor = new PageCursor(raw.substring(0, first), raw.substring(first + 1, last),
+                    Long.valueOf(raw.substring(last + 1)));
+            if (!cursor.getSortBy().equals(expectedSortBy)) {
+                throw new IllegalArgumentException(raw);
+            }
+            return cursor;
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("分页游标无效");
+        }
+    }
+}
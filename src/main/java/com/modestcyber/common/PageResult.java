@@ -1,6 +1,5 @@
 package com.modestcyber.common;
 
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -11,10 +10,59 @@ import java.util.List;
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class PageResult<T> {
     private List<T> list;
     private Integer pageNum;
     private Integer pageSize;
     private Long total;
+    private Boolean totalExact;  // total 是否为精确值（缓存的总数为false）
+    private Boolean hasMore;     // 是否还有下一页
+    private String nextCursor;  // 游标分页：下一页游标，没有更多数据时为null
+
+    public PageResult(List<T> list, Integer pageNum, Integer pageSize, Long total) {
+        this.list = list;
+        this.pageNum = pageNum;
+        this.pageSize = pageSize;
+        this.total = total;
+    }
+
+    /**
+     * 保留分页信息，替换当前页数据
+     */
+    public <R> PageResult<R> withList(List<R> list) {
+        PageResult<R> result = new PageResult<>(list, pageNum, pageSize, total);
+        result.setTotalExact(totalExact);
+        result.setHasMore(hasMore);
+        result.setNextCursor(nextCursor);
+        return result;
+    }
+
+    /**
+     * 带总数的分页结果
+     */
+    public static <T> PageResult<T> of(List<T> list, int pageNum, int pageSize, long total, boolean totalExact) {
+        PageResult<T> result = new PageResult<>(list, pageNum, pageSize, total);
+        result.setTotalExact(totalExact);
+        result.setHasMore((long) (pageNum - 1) * pageSize + list.size() < total);
+        return result;
+    }
+
+    /**
+     * 不统计总数的分页结果
+     */
+    public static <T> PageResult<T> ofHasMore(List<T> list, int pageNum, int pageSize, boolean hasMore) {
+        PageResult<T> result = new PageResult<>(list, pageNum, pageSize, null);
+        result.setHasMore(hasMore);
+        return result;
+    }
+
+    /**
+     * 游标分页结果（不统计总数）
+     */
+    public static <T> PageResult<T> ofCursor(List<T> list, Integer pageSize, String nextCursor) {
+        PageResult<T> result = new PageResult<>(list, null, pageSize, null);
+        result.setHasMore(nextCursor != null);
+        result.setNextCursor(nextCursor);
+        return result;
+    }
 }
@@ -0,0 +1,9 @@
+package com.modestcyber.common;
+
+/**
+ * 携带窗口函数总数的查询结果行
+ * 列表查询附带 COUNT(*) OVER() AS total_count 时，每行都带有本次筛选的总行数
+ */
+public interface WindowCounted {
+    Long getTotalCount();
+}
@@ -0,0 +1,50 @@
+package com.modestcyber.config;
+
+import com.modestcyber.util.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * ID生成器配置类
+ * 多节点部署时每个节点必须配置不同的 id-generator.node-id；未配置时按主机名散列取一个，仅适合单机或测试。
+ * 散列可能在不同主机上撞到同一节点号，撞上后两个节点会生成相同的订单号，
+ * 因此 id-generator.instances 大于 1 而未配置节点号时直接启动失败
+ */
+@Slf4j
+@Configuration
+public class IdGeneratorConfig {
+
+    @Value("${id-generator.node-id:-1}")
+    private long nodeId;
+
+    @Value("${id-generator.instances:1}")
+    private int instances;
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator() {
+        if (nodeId < 0 && instances > 1) {
+            throw new IllegalStateException("部署了 " + instances + " 个实例但未配置 id-generator.node-id（NODE_ID），"
+                    + "按主机名散列的节点号可能重复，请为每个实例配置不同的 0-" + SnowflakeIdGenerator.MAX_NODE_ID);
+        }
+        long node = nodeId >= 0 ? nodeId : hostNodeId();
+        log.info("ID生成器节点号: {}", node);
+        return new SnowflakeIdGenerator(node);
+    }
+
+    private long hostNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "localhost";
+        }
+        long node = (host.hashCode() & 0x7fffffff) % (SnowflakeIdGenerator.MAX_NODE_ID + 1);
+        log.warn("未配置 id-generator.node-id，按主机名 {} 取节点号 {}，多节点部署请显式配置", host, node);
+        return node;
+    }
+}
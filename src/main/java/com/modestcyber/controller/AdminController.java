@@ -1,6 +1,7 @@
 package com.modestcyber.controller;
 
 import com.modestcyber.annotation.RequireAdmin;
+import com.modestcyber.common.CountMode;
 import com.modestcyber.common.PageResult;
 import com.modestcyber.common.Result;
 import com.modestcyber.dto.request.CategoryRequest;
@@ -11,10 +12,14 @@ import com.modestcyber.dto.response.ProductResponse;
 import com.modestcyber.dto.response.StatisticsOverviewResponse;
 import com.modestcyber.pojo.Category;
 import com.modestcyber.pojo.User;
+import com.modestcyber.service.AdminExportService;
 import com.modestcyber.service.AdminService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -30,6 +35,9 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private AdminExportService adminExportService;
+
     /**
      * 获取用户列表
      */
@@ -40,11 +48,26 @@ public class AdminController {
             @RequestParam(required = false) String department,
             @RequestParam(required = false) Integer status,
             @RequestParam(required = false, defaultValue = "1") Integer page,
-            @RequestParam(required = false, defaultValue = "10") Integer size) {
-        PageResult<User> result = adminService.getUserList(keyword, department, status, page, size);
+            @RequestParam(required = false, defaultValue = "10") Integer size,
+            @RequestParam(required = false) String countMode) {
+        PageResult<User> result = adminService.getUserList(keyword, department, status, page, size, CountMode.of(countMode));
         return Result.success(result);
     }
 
+    /**
+     * 导出用户列表（流式 JSON，不传 page/size 时导出全部）
+     */
+    @RequireAdmin
+    @GetMapping("/users/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        return streaming(out -> adminExportService.exportUsers(keyword, department, status, page, size, out));
+    }
+
     /**
      * 获取用户详情
      */
@@ -94,6 +117,20 @@ public class AdminController {
         return Result.success(result);
     }
 
+    /**
+     * 导出商品列表（流式 JSON，不传 page/size 时导出全部）
+     */
+    @RequireAdmin
+    @GetMapping("/products/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        return streaming(out -> adminExportService.exportProducts(keyword, categoryId, status, page, size, out));
+    }
+
     /**
      * 商品审核
      */
@@ -137,6 +174,18 @@ public class AdminController {
         return Result.success(result);
     }
 
+    /**
+     * 导出订单列表（流式 JSON，不传 page/size 时导出全部）
+     */
+    @RequireAdmin
+    @GetMapping("/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        return streaming(out -> adminExportService.exportOrders(status, page, size, out));
+    }
+
     /**
      * 获取订单详情
      */
@@ -147,6 +196,15 @@ public class AdminController {
         return Result.success(order);
     }
 
+    /**
+     * 订单状态流水（含重放校验结果）
+     */
+    @RequireAdmin
+    @GetMapping("/orders/{id}/events")
+    public Result<Map<String, Object>> getOrderEvents(@PathVariable Long id) {
+        return Result.success(adminService.getOrderEvents(id));
+    }
+
     /**
      * 获取仪表盘统计数据
      */
@@ -289,4 +347,58 @@ public class AdminController {
         List<Map<String, Object>> products = adminService.getHotProducts(startDate, endDate);
         return Result.success(products);
     }
+
+    @RequireAdmin
+    @GetMapping("/stats/hot-categories")
+    public Result<List<Map<String, Object>>> getHotCategories() {
+        return Result.success(adminService.getHotCategories());
+    }
+
+    /**
+     * 商品列表结果缓存统计
+     */
+    @RequireAdmin
+    @GetMapping("/stats/cache")
+    public Result<Map<String, Object>> getCacheStats() {
+        return Result.success(adminService.getCacheStats());
+    }
+
+    /**
+     * SQL 形状统计（按累计耗时排序）
+     */
+    @RequireAdmin
+    @GetMapping("/sql/shapes")
+    public Result<List<Map<String, Object>>> getSqlShapes(
+            @RequestParam(required = false, defaultValue = "20") Integer top) {
+        return Result.success(adminService.getSqlShapes(top));
+    }
+
+    /**
+     * 重置 SQL 形状统计
+     */
+    @RequireAdmin
+    @DeleteMapping("/sql/shapes")
+    public Result<Void> resetSqlShapes() {
+        adminService.resetSqlShapes();
+        return Result.success();
+    }
+
+    /**
+     * 对耗时最高的查询形状执行 EXPLAIN 并给出索引建议
+     */
+    @RequireAdmin
+    @GetMapping("/sql/index-advice")
+    public Result<Map<String, Object>> getIndexAdvice(
+            @RequestParam(required = false, defaultValue = "10") Integer top) {
+        return Result.success(adminService.getIndexAdvice(top));
+    }
+
+    /**
+     * 流式响应：响应体在异步线程中边查边写
+     */
+    private ResponseEntity<StreamingResponseBody> streaming(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
 }
@@ -1,5 +1,6 @@
 package com.modestcyber.controller;
 
+import com.modestcyber.common.CountMode;
 import com.modestcyber.common.PageResult;
 import com.modestcyber.common.Result;
 import com.modestcyber.dto.request.CreateOrderRequest;
@@ -47,8 +48,10 @@ public class OrderController {
             @RequestParam(required = false, defaultValue = "buyer") String viewType,
             @RequestParam(required = false) Integer status,
             @RequestParam(required = false, defaultValue = "1") Integer pageNum,
-            @RequestParam(required = false, defaultValue = "10") Integer pageSize) {
-        PageResult<OrderResponse> result = orderService.listOrders(viewType, status, pageNum, pageSize);
+            @RequestParam(required = false, defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String countMode) {
+        PageResult<OrderResponse> result = orderService.listOrders(viewType, status, pageNum, pageSize, after, CountMode.of(countMode));
         return Result.success(result);
     }
 
@@ -1,12 +1,15 @@
 package com.modestcyber.controller;
 
+import com.modestcyber.common.CountMode;
 import com.modestcyber.common.PageResult;
 import com.modestcyber.common.Result;
 import com.modestcyber.dto.request.PublishProductRequest;
 import com.modestcyber.dto.request.UpdateProductRequest;
+import com.modestcyber.dto.response.ProductCardResponse;
 import com.modestcyber.dto.response.ProductResponse;
 import com.modestcyber.service.FavoriteService;
 import com.modestcyber.service.ProductService;
+import com.modestcyber.service.ProductSuggestService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 商品控制器
@@ -29,6 +33,9 @@ public class ProductController {
     @Autowired
     private FavoriteService favoriteService;
 
+    @Autowired
+    private ProductSuggestService productSuggestService;
+
     /**
      * 发布商品
      */
@@ -74,36 +81,74 @@ public class ProductController {
         return Result.success(response);
     }
 
+    /**
+     * 热门商品：按浏览、收藏、下单的时间衰减热度排序
+     */
+    @GetMapping("/hot")
+    public Result<List<ProductCardResponse>> listHotProducts(
+            @RequestParam(required = false, defaultValue = "10") Integer limit) {
+        return Result.success(productService.listHotProducts(limit));
+    }
+
+    /**
+     * 相似商品
+     */
+    @GetMapping("/{id}/similar")
+    public Result<List<ProductCardResponse>> listSimilarProducts(
+            @PathVariable Long id,
+            @RequestParam(required = false, defaultValue = "6") Integer limit) {
+        return Result.success(productService.listSimilarProducts(id, limit));
+    }
+
     /**
      * 商品列表
+     * 传 after 参数（首页为空串）切换为游标分页，下一页使用返回的 nextCursor
+     * countMode：exact（默认，同语句窗口计数）、cached（缓存总数）、none（只返回 hasMore）
+     * facets=true 时附带各筛选项的分面计数
      */
     @GetMapping("/list")
-    public Result<PageResult<ProductResponse>> listProducts(
+    public Result<PageResult<ProductCardResponse>> listProducts(
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) List<Long> categoryIds,
             @RequestParam(required = false) List<String> quality,
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) List<Integer> transactionTypes,
             @RequestParam(required = false) Integer status,
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) String sortBy,
             @RequestParam(required = false) String sortOrder,
             @RequestParam(required = false, defaultValue = "1") Integer pageNum,
-            @RequestParam(required = false, defaultValue = "10") Integer pageSize) {
-        PageResult<ProductResponse> result = productService.listProducts(
-                categoryId, categoryIds, quality, minPrice, maxPrice, status, keyword, sortBy, sortOrder, pageNum, pageSize);
+            @RequestParam(required = false, defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String countMode,
+            @RequestParam(required = false, defaultValue = "false") Boolean facets) {
+        PageResult<ProductCardResponse> result = productService.listProducts(
+                categoryId, categoryIds, quality, minPrice, maxPrice, transactionTypes, status, keyword, sortBy, sortOrder,
+                pageNum, pageSize, after, CountMode.of(countMode), facets);
         return Result.success(result);
     }
 
+    /**
+     * 搜索联想：按输入前缀返回热门商品标题与搜索词
+     */
+    @GetMapping("/suggest")
+    public Result<List<String>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(required = false, defaultValue = "10") Integer limit) {
+        return Result.success(productSuggestService.suggest(prefix, limit));
+    }
+
     /**
      * 我的商品
      */
     @GetMapping("/my")
-    public Result<PageResult<ProductResponse>> listMyProducts(
+    public Result<PageResult<ProductCardResponse>> listMyProducts(
             @RequestParam(required = false) Integer status,
             @RequestParam(required = false, defaultValue = "1") Integer pageNum,
-            @RequestParam(required = false, defaultValue = "10") Integer pageSize) {
-        PageResult<ProductResponse> result = productService.listMyProducts(status, pageNum, pageSize);
+            @RequestParam(required = false, defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String countMode) {
+        PageResult<ProductCardResponse> result = productService.listMyProducts(status, pageNum, pageSize, CountMode.of(countMode));
         return Result.success(result);
     }
 
@@ -125,14 +170,24 @@ public class ProductController {
         return Result.success();
     }
 
+    /**
+     * 批量查询收藏状态
+     */
+    @GetMapping("/favorite/flags")
+    public Result<Map<Long, Boolean>> getFavoriteFlags(@RequestParam List<Long> ids) {
+        return Result.success(favoriteService.getFavoriteFlags(ids));
+    }
+
     /**
      * 收藏列表
      */
     @GetMapping("/favorite")
-    public Result<PageResult<ProductResponse>> listFavorites(
+    public Result<PageResult<ProductCardResponse>> listFavorites(
             @RequestParam(required = false, defaultValue = "1") Integer pageNum,
-            @RequestParam(required = false, defaultValue = "10") Integer pageSize) {
-        PageResult<ProductResponse> result = favoriteService.listFavorites(pageNum, pageSize);
+            @RequestParam(required = false, defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String countMode) {
+        PageResult<ProductCardResponse> result = favoriteService.listFavorites(pageNum, pageSize, after, CountMode.of(countMode));
         return Result.success(result);
     }
 }
@@ -0,0 +1,13 @@
+package com.modestcyber.converter;
+
+import org.mapstruct.MapperConfig;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * DTO 转换器公共配置
+ * 转换代码由 MapStruct 在编译期生成，运行时不做反射；
+ * 目标类新增字段却没有映射或显式忽略时直接编译失败，避免各处转换逻辑悄悄走样
+ */
+@MapperConfig(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface ConverterConfig {
+}
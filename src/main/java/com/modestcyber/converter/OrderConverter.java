@@ -0,0 +1,22 @@
+package com.modestcyber.converter;
+
+import com.modestcyber.dto.response.OrderResponse;
+import com.modestcyber.pojo.Order;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * 订单转换器
+ * 买卖双方昵称、商品标题与图片、状态文本由调用方补充
+ */
+@Mapper(config = ConverterConfig.class)
+public interface OrderConverter {
+
+    @Mapping(target = "buyerName", ignore = true)
+    @Mapping(target = "sellerName", ignore = true)
+    @Mapping(target = "productTitle", ignore = true)
+    @Mapping(target = "productImage", ignore = true)
+    @Mapping(target = "statusText", ignore = true)
+    @Mapping(target = "transactionTypeText", ignore = true)
+    OrderResponse toResponse(Order order);
+}
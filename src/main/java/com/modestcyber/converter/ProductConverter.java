@@ -0,0 +1,70 @@
+package com.modestcyber.converter;
+
+import com.modestcyber.dto.request.PublishProductRequest;
+import com.modestcyber.dto.request.UpdateProductRequest;
+import com.modestcyber.dto.response.ProductCardResponse;
+import com.modestcyber.dto.response.ProductResponse;
+import com.modestcyber.pojo.Product;
+import org.mapstruct.BeanMapping;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+
+/**
+ * 商品转换器
+ * 卖家、分类名称、收藏状态、图片列表由 ProductResponseAssembler 补充
+ */
+@Mapper(config = ConverterConfig.class, imports = ProductLabels.class)
+public interface ProductConverter {
+
+    String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    @Mapping(target = "name", source = "title")  // 前端使用name
+    @Mapping(target = "quality", source = "condition")  // 前端使用quality
+    @Mapping(target = "statusText", expression = "java(ProductLabels.statusText(product.getStatus()))")
+    @Mapping(target = "transactionTypeText",
+            expression = "java(ProductLabels.transactionTypeText(product.getTransactionType()))")
+    @Mapping(target = "tradeMethod",
+            expression = "java(ProductLabels.tradeMethod(product.getTransactionType()))")
+    @Mapping(target = "createdAt", source = "createTime", dateFormat = DATE_TIME_PATTERN)
+    @Mapping(target = "images", ignore = true)
+    @Mapping(target = "username", ignore = true)
+    @Mapping(target = "userDepartment", ignore = true)
+    @Mapping(target = "categoryName", ignore = true)
+    @Mapping(target = "isFavorite", ignore = true)
+    ProductResponse toResponse(Product product);
+
+    @Mapping(target = "statusText", expression = "java(ProductLabels.statusText(product.getStatus()))")
+    @Mapping(target = "createdAt", source = "createTime", dateFormat = DATE_TIME_PATTERN)
+    @Mapping(target = "categoryName", ignore = true)
+    @Mapping(target = "isFavorite", ignore = true)
+    ProductCardResponse toCard(Product product);
+
+    /**
+     * 复制商品详情（详情缓存读出时使用，图片列表同时复制）
+     */
+    ProductResponse copy(ProductResponse response);
+
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "title", source = "title")
+    @Mapping(target = "description", source = "description")
+    @Mapping(target = "categoryId", source = "categoryId")
+    @Mapping(target = "price", source = "price")
+    @Mapping(target = "originalPrice", source = "originalPrice")
+    @Mapping(target = "condition", source = "condition")
+    @Mapping(target = "transactionType", source = "transactionType")
+    Product fromRequest(PublishProductRequest request);
+
+    /**
+     * 用修改请求覆盖商品的可编辑字段（图片单独转 JSON）
+     */
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "title", source = "title")
+    @Mapping(target = "description", source = "description")
+    @Mapping(target = "categoryId", source = "categoryId")
+    @Mapping(target = "price", source = "price")
+    @Mapping(target = "originalPrice", source = "originalPrice")
+    @Mapping(target = "condition", source = "condition")
+    @Mapping(target = "transactionType", source = "transactionType")
+    void updateFromRequest(UpdateProductRequest request, @MappingTarget Product product);
+}
@@ -0,0 +1,49 @@
+package com.modestcyber.converter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 商品状态、交易方式的显示名称（转换器表达式与分面统计共用）
+ */
+public final class ProductLabels {
+
+    private static final Map<Integer, String> STATUS_MAP = new HashMap<>();
+    private static final Map<Integer, String> TRANSACTION_TYPE_MAP = new HashMap<>();
+
+    static {
+        STATUS_MAP.put(0, "待审核");
+        STATUS_MAP.put(1, "在售");
+        STATUS_MAP.put(2, "已下架");
+        STATUS_MAP.put(3, "已售出");
+        STATUS_MAP.put(4, "审核拒绝");
+
+        TRANSACTION_TYPE_MAP.put(0, "面交");
+        TRANSACTION_TYPE_MAP.put(1, "邮寄");
+        TRANSACTION_TYPE_MAP.put(2, "均可");
+    }
+
+    private ProductLabels() {
+    }
+
+    /**
+     * 商品状态显示名称
+     */
+    public static String statusText(Integer status) {
+        return STATUS_MAP.get(status);
+    }
+
+    /**
+     * 交易方式显示名称
+     */
+    public static String transactionTypeText(Integer transactionType) {
+        return TRANSACTION_TYPE_MAP.get(transactionType);
+    }
+
+    /**
+     * 交易方式文本（前端使用tradeMethod，未知方式为空串）
+     */
+    public static String tradeMethod(Integer transactionType) {
+        return TRANSACTION_TYPE_MAP.getOrDefault(transactionType, "");
+    }
+}
@@ -0,0 +1,18 @@
+package com.modestcyber.converter;
+
+import com.modestcyber.dto.response.ReviewResponse;
+import com.modestcyber.pojo.Review;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * 评价转换器
+ * 评价者、被评价者昵称由调用方补充
+ */
+@Mapper(config = ConverterConfig.class)
+public interface ReviewConverter {
+
+    @Mapping(target = "reviewerName", ignore = true)
+    @Mapping(target = "reviewedName", ignore = true)
+    ReviewResponse toResponse(Review review);
+}
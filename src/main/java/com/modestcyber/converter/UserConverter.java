@@ -0,0 +1,29 @@
+package com.modestcyber.converter;
+
+import com.modestcyber.dto.request.RegisterRequest;
+import com.modestcyber.dto.response.UserInfoResponse;
+import com.modestcyber.pojo.User;
+import org.mapstruct.BeanMapping;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * 用户转换器（响应中不含密码）
+ */
+@Mapper(config = ConverterConfig.class)
+public interface UserConverter {
+
+    UserInfoResponse toInfoResponse(User user);
+
+    /**
+     * 注册请求转用户（密码加密、角色、状态由调用方设置）
+     */
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "username", source = "username")
+    @Mapping(target = "realName", source = "realName")
+    @Mapping(target = "email", source = "email")
+    @Mapping(target = "phone", source = "phone")
+    @Mapping(target = "studentId", source = "studentId")
+    @Mapping(target = "department", source = "department")
+    User fromRequest(RegisterRequest request);
+}
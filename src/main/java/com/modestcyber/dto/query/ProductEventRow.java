@@ -0,0 +1,16 @@
+package com.modestcyber.dto.query;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 商品行为记录行（收藏、下单），用于启动时回放热度
+ */
+@Data
+public class ProductEventRow {
+    private Long id;
+    private Long productId;
+    private Long categoryId;
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,16 @@
+package com.modestcyber.dto.query;
+
+import lombok.Data;
+
+/**
+ * 分面统计结果行：一组 (分类, 成色, 交易方式, 价格区间, 是否满足价格条件) 组合及其商品数
+ */
+@Data
+public class ProductFacetRow {
+    private Long categoryId;
+    private String condition;
+    private Integer transactionType;
+    private Integer priceBucket;
+    private Boolean inPriceRange;
+    private Long productCount;
+}
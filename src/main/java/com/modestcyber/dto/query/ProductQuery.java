@@ -0,0 +1,99 @@
+package com.modestcyber.dto.query;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 商品列表查询条件
+ */
+@Data
+public class ProductQuery {
+    private Long categoryId;
+    private List<Long> categoryIds;
+    private List<Long> categoryScope;  // categoryId 展开后的自身及全部子孙分类（由分类快照给出）
+    private List<String> quality;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private List<Integer> transactionTypes;
+    private Integer status;
+    private String keyword;
+
+    private ProductSort sort = ProductSort.CREATE_TIME;
+    private boolean ascending;
+
+    // 偏移分页
+    private Integer offset;
+    private Integer limit;
+    private boolean withTotal;  // 附带 COUNT(*) OVER() 窗口计数
+    private boolean card;       // 只取列表卡片所需的列
+
+    // 游标分页：上一页最后一行的排序值与ID
+    private Object cursorValue;
+    private Long cursorId;
+
+    public void setSort(String sortBy, String sortOrder) {
+        if (sortBy == null || sortBy.isEmpty()) {
+            this.sort = ProductSort.CREATE_TIME;
+            this.ascending = false;
+        } else {
+            this.sort = ProductSort.fromColumn(sortBy);
+            this.ascending = !"desc".equalsIgnoreCase(sortOrder);
+        }
+    }
+
+    /**
+     * 分类是否满足 categoryId 条件（已展开时按子孙范围判断）
+     */
+    public boolean inCategoryScope(Long id) {
+        if (categoryScope != null && !categoryScope.isEmpty()) {
+            return categoryScope.contains(id);
+        }
+        return categoryId == null || categoryId.equals(id);
+    }
+
+    /**
+     * 是否满足分面条件（分类、成色、价格、交易方式），与 ProductSqlProvider 中的分面条件一致，
+     * 用于在检索命中集合上按索引里的属性过滤
+     */
+    public boolean matchesFacets(Long categoryId, String condition, BigDecimal price, Integer transactionType) {
+        return inCategoryScope(categoryId)
+                && (categoryIds == null || categoryIds.isEmpty() || categoryIds.contains(categoryId))
+                && (quality == null || quality.isEmpty() || quality.contains(condition))
+                && inPriceRange(price)
+                && (transactionTypes == null || transactionTypes.isEmpty() || transactionTypes.contains(transactionType));
+    }
+
+    /**
+     * 价格是否满足 minPrice / maxPrice 条件（与 SQL 一致：有价格条件时价格为空视为不满足）
+     */
+    public boolean inPriceRange(BigDecimal price) {
+        if (minPrice == null && maxPrice == null) {
+            return true;
+        }
+        return price != null
+                && (minPrice == null || price.compareTo(minPrice) >= 0)
+                && (maxPrice == null || price.compareTo(maxPrice) <= 0);
+    }
+
+    public boolean hasCursor() {
+        return cursorValue != null && cursorId != null;
+    }
+
+    /**
+     * 筛选条件的规范化键（不含排序和分页），用于按筛选条件缓存总数
+     */
+    public String filterKey() {
+        return "c=" + categoryId
+                + "|sc=" + (categoryScope != null ? new TreeSet<>(categoryScope) : null)
+                + "|cs=" + (categoryIds != null ? new TreeSet<>(categoryIds) : null)
+                + "|q=" + (quality != null ? new TreeSet<>(quality) : null)
+                + "|min=" + (minPrice != null ? minPrice.stripTrailingZeros().toPlainString() : null)
+                + "|max=" + (maxPrice != null ? maxPrice.stripTrailingZeros().toPlainString() : null)
+                + "|t=" + (transactionTypes != null ? new TreeSet<>(transactionTypes) : null)
+                + "|s=" + status
+                + "|k=" + (keyword != null ? keyword.trim().toLowerCase() : null);
+    }
+}
@@ -0,0 +1,69 @@
+package com.modestcyber.dto.query;
+
+import com.modestcyber.pojo.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * 商品列表允许的排序列
+ * 同时负责游标值的取出与解析，未知列一律回落到 create_time，避免拼接任意 ORDER BY
+ */
+public enum ProductSort {
+
+    CREATE_TIME("create_time", Product::getCreateTime, LocalDateTime::parse),
+    PRICE("price", Product::getPrice, BigDecimal::new),
+    VIEW_COUNT("view_count", Product::getViewCount, Integer::valueOf),
+    FAVORITE_COUNT("favorite_count", Product::getFavoriteCount, Integer::valueOf);
+
+    private final String column;
+    private final Function<Product, Object> getter;
+    private final Function<String, Object> parser;
+
+    ProductSort(String column, Function<Product, Object> getter, Function<String, Object> parser) {
+        this.column = column;
+        this.getter = getter;
+        this.parser = parser;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * 取出商品在该排序列上的值（写入游标）
+     */
+    public Object valueOf(Product product) {
+        return getter.apply(product);
+    }
+
+    /**
+     * 解析游标中的排序值
+     */
+    public Object parse(String value) {
+        return parser.apply(value);
+    }
+
+    /**
+     * 比较两个排序值，与 MySQL 一致 NULL 排在最前（检索结果在内存中排序时使用）
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public int compare(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        return ((Comparable) a).compareTo(b);
+    }
+
+    public static ProductSort fromColumn(String column) {
+        if (column != null) {
+            for (ProductSort sort : values()) {
+                if (sort.column.equalsIgnoreCase(column)) {
+                    return sort;
+                }
+            }
+        }
+        return CREATE_TIME;
+    }
+}
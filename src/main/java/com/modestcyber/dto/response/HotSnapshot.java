@@ -0,0 +1,31 @@
+package com.modestcyber.dto.response;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 热度榜快照
+ */
+@Data
+public class HotSnapshot {
+
+    private Long generatedAt;  // 生成时间（毫秒时间戳）
+    private List<Item> products = new ArrayList<>();
+    private List<Item> categories = new ArrayList<>();
+
+    /**
+     * 榜单条目：商品或分类
+     * 衰减榜只有热度分，日期区间榜同时带区间内的浏览、收藏、下单次数
+     */
+    @Data
+    public static class Item {
+        private Long id;
+        private Long categoryId;
+        private Double score;
+        private Long viewCount;
+        private Long favoriteCount;
+        private Long orderCount;
+    }
+}
@@ -0,0 +1,27 @@
+package com.modestcyber.dto.response;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 商品卡片响应DTO（列表页）
+ * 只含卡片展示的字段，不含描述和完整图片列表；详情见 ProductResponse
+ */
+@Data
+public class ProductCardResponse {
+    private Long id;
+    private Long categoryId;
+    private String categoryName;
+    private String title;
+    private BigDecimal price;
+    private BigDecimal originalPrice;
+    private String coverImage;  // 封面图（第一张图片）
+    private Integer status;
+    private String statusText;
+    private String condition;
+    private Integer viewCount;
+    private Integer favoriteCount;
+    private Boolean isFavorite;
+    private String createdAt;
+}
@@ -0,0 +1,40 @@
+package com.modestcyber.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 商品列表分面统计响应DTO
+ * 每个分面的计数都排除了该分面自身的筛选条件，便于多选
+ */
+@Data
+public class ProductFacetsResponse {
+    private List<FacetCount> categories = new ArrayList<>();        // 分类
+    private List<FacetCount> conditions = new ArrayList<>();        // 成色
+    private List<FacetCount> transactionTypes = new ArrayList<>();  // 交易方式
+    private List<PriceBucket> priceBuckets = new ArrayList<>();     // 价格区间
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetCount {
+        private Object value;   // 筛选参数取值
+        private String label;   // 显示名称
+        private Long count;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceBucket {
+        private BigDecimal minPrice;
+        private BigDecimal maxPrice;  // 为null表示无上界
+        private String label;
+        private Long count;
+    }
+}
@@ -0,0 +1,15 @@
+package com.modestcyber.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 分类变更事件
+ * 分类新增、修改、删除、启停时发布，事务提交后重建分类快照
+ */
+@Getter
+@AllArgsConstructor
+public class CategoryChangedEvent {
+
+    private final Long categoryId;
+}
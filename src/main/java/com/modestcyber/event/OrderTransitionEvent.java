@@ -0,0 +1,21 @@
+package com.modestcyber.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 订单状态变更事件
+ * 订单创建、发货、收货、取消时由 OrderStateMachine 发布，监听方在事务提交后异步消费
+ */
+@Getter
+@AllArgsConstructor
+public class OrderTransitionEvent {
+
+    private final Long orderId;
+    private final Long buyerId;
+    private final Long sellerId;
+    private final Long productId;
+    private final String action;
+    private final Integer fromStatus;
+    private final Integer toStatus;
+}
@@ -0,0 +1,23 @@
+package com.modestcyber.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 商品变更事件
+ * 商品发布、修改、状态变化、删除时发布，由内存索引、缓存等在事务提交后消费
+ */
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        STATUS_CHANGED,
+        DELETED
+    }
+
+    private final Long productId;
+    private final Type type;
+}
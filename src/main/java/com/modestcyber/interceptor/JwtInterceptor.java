@@ -1,6 +1,7 @@
 package com.modestcyber.interceptor;
 
 import com.modestcyber.context.UserContext;
+import com.modestcyber.service.DataLoader;
 import com.modestcyber.util.JwtUtil;
 import com.modestcyber.util.TraceIdUtil;
 import jakarta.servlet.http.HttpServletRequest;
@@ -69,6 +70,7 @@ public class JwtInterceptor implements HandlerInterceptor {
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
         // 清理上下文
         UserContext.clear();
+        DataLoader.clear();
         TraceIdUtil.clear();
     }
 
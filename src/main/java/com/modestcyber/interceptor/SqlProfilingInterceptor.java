@@ -0,0 +1,105 @@
+package com.modestcyber.interceptor;
+
+import com.modestcyber.service.QueryProfileService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL 形状统计插件
+ * 在语句执行层计时，按指纹汇总到 QueryProfileService；BoundSql 直接取自 StatementHandler，不会重复生成动态 SQL
+ */
+@Slf4j
+@Component
+@Intercepts({
+        @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class}),
+        @Signature(type = StatementHandler.class, method = "update", args = {Statement.class})
+})
+public class SqlProfilingInterceptor implements Interceptor {
+
+    @Autowired
+    private QueryProfileService queryProfileService;
+
+    @Value("${sql-profile.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (!enabled) {
+            return invocation.proceed();
+        }
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            long nanos = System.nanoTime() - start;
+            try {
+                record((StatementHandler) invocation.getTarget(), nanos);
+            } catch (RuntimeException e) {
+                log.debug("记录 SQL 统计失败", e);
+            }
+        }
+    }
+
+    private void record(StatementHandler handler, long nanos) {
+        BoundSql boundSql = handler.getBoundSql();
+        MetaObject meta = SystemMetaObject.forObject(handler);
+        MappedStatement ms = meta.hasGetter("delegate.mappedStatement")
+                ? (MappedStatement) meta.getValue("delegate.mappedStatement")
+                : null;
+        String statementId = ms != null ? ms.getId() : null;
+        boolean select = ms == null || ms.getSqlCommandType() == SqlCommandType.SELECT;
+        Object parameterObject = handler.getParameterHandler().getParameterObject();
+
+        queryProfileService.record(statementId, boundSql.getSql(), select, nanos,
+                () -> ms != null ? resolveParams(ms.getConfiguration(), boundSql, parameterObject) : new ArrayList<>());
+    }
+
+    /**
+     * 按 DefaultParameterHandler 的规则取出各占位符的参数值
+     */
+    private List<Object> resolveParams(Configuration configuration, BoundSql boundSql, Object parameterObject) {
+        List<Object> values = new ArrayList<>();
+        MetaObject metaObject = null;
+        for (ParameterMapping mapping : boundSql.getParameterMappings()) {
+            if (mapping.getMode() == ParameterMode.OUT) {
+                continue;
+            }
+            String property = mapping.getProperty();
+            Object value;
+            if (boundSql.hasAdditionalParameter(property)) {
+                value = boundSql.getAdditionalParameter(property);
+            } else if (parameterObject == null) {
+                value = null;
+            } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+                value = parameterObject;
+            } else {
+                if (metaObject == null) {
+                    metaObject = configuration.newMetaObject(parameterObject);
+                }
+                value = metaObject.getValue(property);
+            }
+            values.add(value);
+        }
+        return values;
+    }
+}
@@ -4,6 +4,7 @@ import com.modestcyber.pojo.Category;
 import org.apache.ibatis.annotations.*;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -15,6 +16,12 @@ public interface CategoryMapper {
     @Select("SELECT * FROM category WHERE id = #{id}")
     Category findById(Long id);
 
+    @Select("<script>" +
+            "SELECT * FROM category WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<Category> findByIds(@Param("ids") Collection<Long> ids);
+
     @Select("SELECT * FROM category ORDER BY parent_id, sort_order")
     List<Category> findAll();
 
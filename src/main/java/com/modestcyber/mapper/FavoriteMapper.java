@@ -1,9 +1,11 @@
 package com.modestcyber.mapper;
 
+import com.modestcyber.dto.query.ProductEventRow;
 import com.modestcyber.pojo.Favorite;
 import com.modestcyber.pojo.Product;
 import org.apache.ibatis.annotations.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -13,34 +15,55 @@ import java.util.List;
 public interface FavoriteMapper {
 
     /**
-     * 添加收藏
+     * 添加收藏；已收藏时忽略（依赖 uk_user_product），返回实际插入的行数
      */
-    @Insert("INSERT INTO favorite (user_id, product_id, create_time) VALUES (#{userId}, #{productId}, #{createTime})")
+    @Insert("INSERT IGNORE INTO favorite (user_id, product_id, create_time) VALUES (#{userId}, #{productId}, #{createTime})")
     @Options(useGeneratedKeys = true, keyProperty = "id")
     int insert(Favorite favorite);
 
     /**
-     * 删除收藏
+     * 删除收藏，返回实际删除的行数
      */
     @Delete("DELETE FROM favorite WHERE user_id = #{userId} AND product_id = #{productId}")
     int delete(@Param("userId") Long userId, @Param("productId") Long productId);
 
     /**
-     * 查询是否已收藏
+     * 查询用户收藏的全部商品ID
      */
-    @Select("SELECT COUNT(*) FROM favorite WHERE user_id = #{userId} AND product_id = #{productId}")
-    int existsByUserIdAndProductId(@Param("userId") Long userId, @Param("productId") Long productId);
+    @Select("SELECT product_id FROM favorite WHERE user_id = #{userId}")
+    List<Long> findProductIdsByUserId(Long userId);
 
     /**
      * 查询收藏列表
      */
-    @Select("SELECT p.* FROM product p INNER JOIN favorite f ON p.id = f.product_id " +
-            "WHERE f.user_id = #{userId} ORDER BY f.create_time DESC LIMIT #{offset}, #{limit}")
-    List<Product> listFavoriteProducts(@Param("userId") Long userId, @Param("offset") Integer offset, @Param("limit") Integer limit);
+    @Select("<script>" +
+            "SELECT " + ProductSqlProvider.CARD_COLUMNS_P + ", f.create_time AS favorite_time<if test='withTotal'>, COUNT(*) OVER() AS total_count</if> " +
+            "FROM product p INNER JOIN favorite f ON p.id = f.product_id " +
+            "WHERE f.user_id = #{userId}" +
+            "<if test='cursorTime != null and cursorId != null'>" +
+            " AND (f.create_time &lt; #{cursorTime} OR (f.create_time = #{cursorTime} AND f.product_id &lt; #{cursorId}))" +
+            "</if>" +
+            " ORDER BY f.create_time DESC, f.product_id DESC LIMIT #{offset}, #{limit}" +
+            "</script>")
+    List<Product> listFavoriteProducts(@Param("userId") Long userId,
+                                       @Param("cursorTime") java.time.LocalDateTime cursorTime,
+                                       @Param("cursorId") Long cursorId,
+                                       @Param("offset") Integer offset,
+                                       @Param("limit") Integer limit,
+                                       @Param("withTotal") boolean withTotal);
 
     /**
      * 查询收藏总数
      */
     @Select("SELECT COUNT(*) FROM favorite WHERE user_id = #{userId}")
     Long countFavorites(Long userId);
+
+    /**
+     * 按ID顺序分批读取某时间之后的收藏记录（回放热度）
+     */
+    @Select("SELECT f.id, f.product_id, p.category_id, f.create_time FROM favorite f " +
+            "JOIN product p ON p.id = f.product_id " +
+            "WHERE f.id > #{afterId} AND f.create_time >= #{since} ORDER BY f.id LIMIT #{limit}")
+    List<ProductEventRow> listCreatedSince(@Param("afterId") Long afterId, @Param("since") LocalDateTime since,
+                                           @Param("limit") Integer limit);
 }
@@ -0,0 +1,30 @@
+package com.modestcyber.mapper;
+
+import com.modestcyber.pojo.OrderEvent;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+/**
+ * 订单状态流水Mapper
+ */
+@Mapper
+public interface OrderEventMapper {
+
+    /**
+     * 批量追加流水（一条多值 INSERT）
+     */
+    @Insert("<script>" +
+            "INSERT INTO order_event (order_id, action, from_status, to_status, operator_id, create_time) VALUES " +
+            "<foreach collection='events' item='e' separator=','>" +
+            "(#{e.orderId}, #{e.action}, #{e.fromStatus}, #{e.toStatus}, #{e.operatorId}, #{e.createTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("events") List<OrderEvent> events);
+
+    /**
+     * 订单的全部流水，按发生顺序
+     */
+    @Select("SELECT * FROM order_event WHERE order_id = #{orderId} ORDER BY id")
+    List<OrderEvent> findByOrderId(Long orderId);
+}
@@ -1,8 +1,12 @@
 package com.modestcyber.mapper;
 
+import com.modestcyber.dto.query.ProductEventRow;
 import com.modestcyber.pojo.Order;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 
 /**
@@ -34,19 +38,13 @@ public interface OrderMapper {
     Order findByOrderNo(String orderNo);
 
     /**
-     * 更新订单状态
+     * 状态迁移：仅当订单当前状态为 expected 时更新（返回 0 表示状态已被他人改变），completeTime 为空时保留原值
      */
-    @Update("UPDATE `order` SET status = #{status}, update_time = #{updateTime} WHERE id = #{id}")
-    int updateStatus(@Param("id") Long id, @Param("status") Integer status, 
-                     @Param("updateTime") java.time.LocalDateTime updateTime);
-
-    /**
-     * 完成订单
-     */
-    @Update("UPDATE `order` SET status = #{status}, complete_time = #{completeTime}, update_time = #{updateTime} WHERE id = #{id}")
-    int completeOrder(@Param("id") Long id, @Param("status") Integer status,
-                      @Param("completeTime") java.time.LocalDateTime completeTime,
-                      @Param("updateTime") java.time.LocalDateTime updateTime);
+    @Update("UPDATE `order` SET status = #{status}, update_time = #{updateTime}, " +
+            "complete_time = IFNULL(#{completeTime}, complete_time) WHERE id = #{id} AND status = #{expected}")
+    int compareAndSetStatus(@Param("id") Long id, @Param("expected") Integer expected, @Param("status") Integer status,
+                            @Param("updateTime") java.time.LocalDateTime updateTime,
+                            @Param("completeTime") java.time.LocalDateTime completeTime);
 
     /**
      * 删除订单
@@ -60,8 +58,11 @@ public interface OrderMapper {
     @SelectProvider(type = OrderSqlProvider.class, method = "listBuyerOrders")
     List<Order> listBuyerOrders(@Param("buyerId") Long buyerId,
                                 @Param("status") Integer status,
+                                @Param("cursorTime") java.time.LocalDateTime cursorTime,
+                                @Param("cursorId") Long cursorId,
                                 @Param("offset") Integer offset,
-                                @Param("limit") Integer limit);
+                                @Param("limit") Integer limit,
+                                @Param("withTotal") boolean withTotal);
 
     /**
      * 查询买家订单总数
@@ -69,14 +70,31 @@ public interface OrderMapper {
     @SelectProvider(type = OrderSqlProvider.class, method = "countBuyerOrders")
     Long countBuyerOrders(@Param("buyerId") Long buyerId, @Param("status") Integer status);
 
+    /**
+     * 查询全部订单列表（管理端）
+     */
+    @SelectProvider(type = OrderSqlProvider.class, method = "listAllOrders")
+    List<Order> listAllOrders(@Param("status") Integer status,
+                              @Param("offset") Integer offset,
+                              @Param("limit") Integer limit);
+
+    /**
+     * 查询全部订单总数（管理端）
+     */
+    @SelectProvider(type = OrderSqlProvider.class, method = "countAllOrders")
+    Long countAllOrders(@Param("status") Integer status);
+
     /**
      * 查询卖家订单列表
      */
     @SelectProvider(type = OrderSqlProvider.class, method = "listSellerOrders")
     List<Order> listSellerOrders(@Param("sellerId") Long sellerId,
                                  @Param("status") Integer status,
+                                 @Param("cursorTime") java.time.LocalDateTime cursorTime,
+                                 @Param("cursorId") Long cursorId,
                                  @Param("offset") Integer offset,
-                                 @Param("limit") Integer limit);
+                                 @Param("limit") Integer limit,
+                                 @Param("withTotal") boolean withTotal);
 
     /**
      * 查询卖家订单总数
@@ -119,4 +137,49 @@ public interface OrderMapper {
      */
     @Select("SELECT COUNT(*) FROM `order` WHERE status = 3 AND create_time BETWEEN #{start} AND #{end}")
     Long countSuccessByTime(@Param("start") java.time.LocalDateTime start, @Param("end") java.time.LocalDateTime end);
+
+    /**
+     * 流式导出订单：连接买卖双方和商品，一条语句带出展示字段（limit 为空时导出全部）
+     */
+    @Select("<script>" +
+            "SELECT o.id AS id, o.order_no AS orderNo, o.product_id AS productId, p.title AS productTitle, " +
+            "o.buyer_id AS buyerId, b.username AS buyerName, o.seller_id AS sellerId, s.username AS sellerName, " +
+            "o.quantity AS quantity, o.total_price AS totalPrice, o.transaction_type AS transactionType, " +
+            "o.status AS status, o.create_time AS createTime, o.update_time AS updateTime " +
+            "FROM `order` o " +
+            "LEFT JOIN product p ON p.id = o.product_id " +
+            "LEFT JOIN user b ON b.id = o.buyer_id " +
+            "LEFT JOIN user s ON s.id = o.seller_id " +
+            "<where><if test='status != null'>o.status = #{status}</if></where>" +
+            " ORDER BY o.create_time DESC, o.id DESC" +
+            "<if test='limit != null'> LIMIT #{offset}, #{limit}</if>" +
+            "</script>")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<LinkedHashMap<String, Object>> exportOrders(@Param("status") Integer status,
+                                                       @Param("offset") Integer offset,
+                                                       @Param("limit") Integer limit);
+
+    /**
+     * 按ID顺序分批读取某时间之后创建的订单（回放热度）
+     */
+    @Select("SELECT o.id, o.product_id, p.category_id, o.create_time FROM `order` o " +
+            "JOIN product p ON p.id = o.product_id " +
+            "WHERE o.id > #{afterId} AND o.create_time >= #{since} ORDER BY o.id LIMIT #{limit}")
+    List<ProductEventRow> listCreatedSince(@Param("afterId") Long afterId, @Param("since") java.time.LocalDateTime since,
+                                           @Param("limit") Integer limit);
+
+    /**
+     * 按ID顺序分批读取待发货/待收货订单（加载超时时间轮，只取 id、status、update_time）
+     */
+    @Select("SELECT id, status, update_time FROM `order` WHERE id > #{afterId} AND status IN (1, 2) ORDER BY id LIMIT #{limit}")
+    List<Order> listPendingDeadlines(@Param("afterId") Long afterId, @Param("limit") Integer limit);
+
+    /**
+     * 根据ID批量查询订单
+     */
+    @Select("<script>" +
+            "SELECT * FROM `order` WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<Order> findByIds(@Param("ids") java.util.Collection<Long> ids);
 }
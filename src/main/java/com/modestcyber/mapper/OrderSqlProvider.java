@@ -2,26 +2,39 @@ package com.modestcyber.mapper;
 
 import org.apache.ibatis.jdbc.SQL;
 
+import java.time.LocalDateTime;
+
 /**
  * 订单SQL构建器
  */
 public class OrderSqlProvider {
 
-    public String listBuyerOrders(Long buyerId, Integer status, Integer offset, Integer limit) {
+    public String listBuyerOrders(Long buyerId, Integer status, LocalDateTime cursorTime, Long cursorId,
+                                  Integer offset, Integer limit, boolean withTotal) {
         return new SQL() {{
             SELECT("*");
+            if (withTotal) {
+                SELECT("COUNT(*) OVER() AS total_count");
+            }
             FROM("`order`");
             WHERE("buyer_id = #{buyerId}");
             
             if (status != null) {
                 WHERE("status = #{status}");
             }
+
+            // 游标分页：(create_time, id) 之后的下一页
+            if (cursorTime != null && cursorId != null) {
+                WHERE("(create_time < #{cursorTime} OR (create_time = #{cursorTime} AND id < #{cursorId}))");
+            }
             
-            ORDER_BY("create_time DESC");
+            ORDER_BY("create_time DESC", "id DESC");
             
-            if (offset != null && limit != null) {
+            if (limit != null) {
                 LIMIT(limit);
-                OFFSET(offset);
+                if (offset != null) {
+                    OFFSET(offset);
+                }
             }
         }}.toString();
     }
@@ -38,21 +51,58 @@ public class OrderSqlProvider {
         }}.toString();
     }
 
-    public String listSellerOrders(Long sellerId, Integer status, Integer offset, Integer limit) {
+    public String listAllOrders(Integer status, Integer offset, Integer limit) {
+        return new SQL() {{
+            SELECT("*");
+            FROM("`order`");
+
+            if (status != null) {
+                WHERE("status = #{status}");
+            }
+
+            ORDER_BY("create_time DESC", "id DESC");
+            LIMIT(limit);
+            OFFSET(offset);
+        }}.toString();
+    }
+
+    public String countAllOrders(Integer status) {
+        return new SQL() {{
+            SELECT("COUNT(*)");
+            FROM("`order`");
+
+            if (status != null) {
+                WHERE("status = #{status}");
+            }
+        }}.toString();
+    }
+
+    public String listSellerOrders(Long sellerId, Integer status, LocalDateTime cursorTime, Long cursorId,
+                                  Integer offset, Integer limit, boolean withTotal) {
         return new SQL() {{
             SELECT("*");
+            if (withTotal) {
+                SELECT("COUNT(*) OVER() AS total_count");
+            }
             FROM("`order`");
             WHERE("seller_id = #{sellerId}");
             
             if (status != null) {
                 WHERE("status = #{status}");
             }
+
+            // 游标分页：(create_time, id) 之后的下一页
+            if (cursorTime != null && cursorId != null) {
+                WHERE("(create_time < #{cursorTime} OR (create_time = #{cursorTime} AND id < #{cursorId}))");
+            }
             
-            ORDER_BY("create_time DESC");
+            ORDER_BY("create_time DESC", "id DESC");
             
-            if (offset != null && limit != null) {
+            if (limit != null) {
                 LIMIT(limit);
-                OFFSET(offset);
+                if (offset != null) {
+                    OFFSET(offset);
+                }
             }
         }}.toString();
     }
@@ -1,9 +1,16 @@
 package com.modestcyber.mapper;
 
+import com.modestcyber.dto.query.ProductFacetRow;
+import com.modestcyber.dto.query.ProductQuery;
 import com.modestcyber.pojo.Product;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 商品Mapper
@@ -27,6 +34,40 @@ public interface ProductMapper {
     @Select("SELECT * FROM product WHERE id = #{id}")
     Product findById(Long id);
 
+    /**
+     * 根据ID批量查询商品
+     */
+    @Select("<script>" +
+            "SELECT * FROM product WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<Product> findByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 流式导出商品（逐行读取，不在内存中攒整个结果集）
+     */
+    @SelectProvider(type = ProductSqlProvider.class, method = "exportProducts")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<LinkedHashMap<String, Object>> exportProducts(ProductQuery query);
+
+    /**
+     * 根据ID批量查询商品卡片列
+     */
+    @Select("<script>" +
+            "SELECT " + ProductSqlProvider.CARD_COLUMNS + " FROM product WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<Product> findCardsByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 根据ID批量查询浏览量、收藏量（检索结果按计数排序时分批回表）
+     */
+    @Select("<script>" +
+            "SELECT id, view_count, favorite_count FROM product WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<Product> findCountsByIds(@Param("ids") Collection<Long> ids);
+
     /**
      * 更新商品
      */
@@ -42,6 +83,13 @@ public interface ProductMapper {
     int updateStatus(@Param("id") Long id, @Param("status") Integer status, 
                      @Param("updateTime") java.time.LocalDateTime updateTime);
 
+    /**
+     * 仅当商品当前状态为 expected 时更新状态（条件更新，返回 0 表示状态已被他人改变）
+     */
+    @Update("UPDATE product SET status = #{status}, update_time = #{updateTime} WHERE id = #{id} AND status = #{expected}")
+    int compareAndSetStatus(@Param("id") Long id, @Param("expected") Integer expected, @Param("status") Integer status,
+                            @Param("updateTime") java.time.LocalDateTime updateTime);
+
     /**
      * 删除商品
      */
@@ -49,56 +97,91 @@ public interface ProductMapper {
     int deleteById(Long id);
 
     /**
-     * 增加浏览量
+     * 批量累加浏览量（商品ID -> 增量）
      */
-    @Update("UPDATE product SET view_count = view_count + 1 WHERE id = #{id}")
-    int incrementViewCount(Long id);
+    @Update("<script>" +
+            "UPDATE product SET view_count = view_count + CASE id " +
+            "<foreach collection='deltas' index='id' item='delta'>WHEN #{id} THEN #{delta} </foreach>" +
+            "ELSE 0 END WHERE id IN " +
+            "<foreach collection='deltas' index='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int addViewCounts(@Param("deltas") Map<Long, Long> deltas);
 
     /**
-     * 增加收藏量
+     * 批量累加收藏量（商品ID -> 增量，可为负），结果不小于 0
      */
-    @Update("UPDATE product SET favorite_count = favorite_count + 1 WHERE id = #{id}")
-    int incrementFavoriteCount(Long id);
+    @Update("<script>" +
+            "UPDATE product SET favorite_count = GREATEST(favorite_count + CASE id " +
+            "<foreach collection='deltas' index='id' item='delta'>WHEN #{id} THEN #{delta} </foreach>" +
+            "ELSE 0 END, 0) WHERE id IN " +
+            "<foreach collection='deltas' index='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int addFavoriteCounts(@Param("deltas") Map<Long, Long> deltas);
 
     /**
-     * 减少收藏量
+     * 一段ID范围内收藏量与收藏表不一致的商品ID
      */
-    @Update("UPDATE product SET favorite_count = favorite_count - 1 WHERE id = #{id} AND favorite_count > 0")
-    int decrementFavoriteCount(Long id);
+    @Select("SELECT p.id FROM product p " +
+            "LEFT JOIN (SELECT product_id, COUNT(*) AS cnt FROM favorite " +
+            "WHERE product_id BETWEEN #{fromId} AND #{toId} GROUP BY product_id) f ON f.product_id = p.id " +
+            "WHERE p.id BETWEEN #{fromId} AND #{toId} AND p.favorite_count <> COALESCE(f.cnt, 0)")
+    List<Long> findFavoriteCountDrift(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * 按收藏表重算一段ID范围内商品的收藏量，只改有偏差的行
+     */
+    @Update("UPDATE product p " +
+            "LEFT JOIN (SELECT product_id, COUNT(*) AS cnt FROM favorite " +
+            "WHERE product_id BETWEEN #{fromId} AND #{toId} GROUP BY product_id) f ON f.product_id = p.id " +
+            "SET p.favorite_count = COALESCE(f.cnt, 0) " +
+            "WHERE p.id BETWEEN #{fromId} AND #{toId} AND p.favorite_count <> COALESCE(f.cnt, 0)")
+    int reconcileFavoriteCounts(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * 最大商品ID
+     */
+    @Select("SELECT COALESCE(MAX(id), 0) FROM product")
+    long findMaxId();
 
     /**
      * 查询商品列表（带分页和筛选）
      */
     @SelectProvider(type = ProductSqlProvider.class, method = "listProducts")
-    List<Product> listProducts(@Param("categoryId") Long categoryId,
-                               @Param("categoryIds") List<Long> categoryIds,
-                               @Param("quality") List<String> quality,
-                               @Param("minPrice") java.math.BigDecimal minPrice,
-                               @Param("maxPrice") java.math.BigDecimal maxPrice,
-                               @Param("status") Integer status,
-                               @Param("keyword") String keyword,
-                               @Param("sortBy") String sortBy,
-                               @Param("sortOrder") String sortOrder,
-                               @Param("offset") Integer offset,
-                               @Param("limit") Integer limit);
+    List<Product> listProducts(ProductQuery query);
+
+    /**
+     * 分面统计（按基础条件过滤后的组合计数）
+     */
+    @SelectProvider(type = ProductSqlProvider.class, method = "countFacets")
+    List<ProductFacetRow> countFacets(ProductQuery query);
+
+    /**
+     * 按ID顺序分批读取商品文本与筛选属性（重建搜索索引与相似商品索引）
+     */
+    @Select("SELECT id, category_id, title, description, price, `condition`, transaction_type, status, create_time " +
+            "FROM product WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<Product> listForSearchIndex(@Param("afterId") Long afterId, @Param("limit") Integer limit);
+
+    /**
+     * 按ID顺序分批读取指定状态商品的标题与热度（构建搜索联想）
+     */
+    @Select("SELECT id, title, status, view_count, favorite_count FROM product " +
+            "WHERE status = #{status} AND id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<Product> listForSuggest(@Param("afterId") Long afterId, @Param("status") Integer status,
+                                 @Param("limit") Integer limit);
 
     /**
      * 查询商品总数
      */
     @SelectProvider(type = ProductSqlProvider.class, method = "countProducts")
-    Long countProducts(@Param("categoryId") Long categoryId,
-                       @Param("categoryIds") List<Long> categoryIds,
-                       @Param("quality") List<String> quality,
-                       @Param("minPrice") java.math.BigDecimal minPrice,
-                       @Param("maxPrice") java.math.BigDecimal maxPrice,
-                       @Param("status") Integer status,
-                       @Param("keyword") String keyword);
+    Long countProducts(ProductQuery query);
 
     /**
      * 查询我的商品
      */
     @SelectProvider(type = ProductSqlProvider.class, method = "listMyProducts")
-    List<Product> listMyProducts(@Param("userId") Long userId, @Param("status") Integer status, @Param("offset") Integer offset, @Param("limit") Integer limit);
+    List<Product> listMyProducts(@Param("userId") Long userId, @Param("status") Integer status, @Param("offset") Integer offset, @Param("limit") Integer limit,
+                                 @Param("withTotal") boolean withTotal);
 
     /**
      * 查询我的商品总数
@@ -1,89 +1,172 @@
 package com.modestcyber.mapper;
 
+import com.modestcyber.dto.query.ProductQuery;
 import org.apache.ibatis.jdbc.SQL;
-import java.util.List;
 
 /**
  * 商品SQL构建器
  */
 public class ProductSqlProvider {
 
-    public String listProducts(Long categoryId, List<Long> categoryIds, List<String> quality,
-                               java.math.BigDecimal minPrice, java.math.BigDecimal maxPrice,
-                               Integer status, String keyword, String sortBy, String sortOrder,
-                               Integer offset, Integer limit) {
+    /**
+     * 价格分面的区间下界，最后一个区间无上界
+     */
+    public static final int[] PRICE_BUCKET_BOUNDS = {0, 50, 100, 200, 500, 1000};
+
+    /**
+     * 列表卡片所需的列：不取 description，images 只在 SQL 中取出第一张作为封面
+     * 含 create_time / price / view_count，游标分页按排序列定位时需要
+     */
+    public static final String CARD_COLUMNS = "id, user_id, category_id, title, price, original_price, " +
+            "JSON_UNQUOTE(JSON_EXTRACT(images, '$[0]')) AS cover_image, status, `condition`, " +
+            "view_count, favorite_count, create_time";
+
+    /**
+     * 同 CARD_COLUMNS，带表别名 p（与其他表连接时使用）
+     */
+    public static final String CARD_COLUMNS_P = "p.id, p.user_id, p.category_id, p.title, p.price, p.original_price, " +
+            "JSON_UNQUOTE(JSON_EXTRACT(p.images, '$[0]')) AS cover_image, p.status, p.`condition`, " +
+            "p.view_count, p.favorite_count, p.create_time";
+
+    public String listProducts(ProductQuery query) {
         return new SQL() {{
-            SELECT("*");
-            FROM("product");
-            
-            if (categoryId != null) {
-                WHERE("category_id = #{categoryId}");
-            }
-            if (categoryIds != null && !categoryIds.isEmpty()) {
-                WHERE("category_id IN (" + buildInClause(categoryIds.size(), "categoryIds") + ")");
-            }
-            if (quality != null && !quality.isEmpty()) {
-                WHERE("`condition` IN (" + buildInClause(quality.size(), "quality") + ")");
-            }
-            if (minPrice != null) {
-                WHERE("price >= #{minPrice}");
+            SELECT(query.isCard() ? CARD_COLUMNS : "*");
+            if (query.isWithTotal()) {
+                // 窗口函数在 LIMIT 之前计算，同一条语句带回筛选后的总行数
+                SELECT("COUNT(*) OVER() AS total_count");
             }
-            if (maxPrice != null) {
-                WHERE("price <= #{maxPrice}");
-            }
-            if (status != null) {
-                WHERE("status = #{status}");
-            }
-            if (keyword != null && !keyword.isEmpty()) {
-                WHERE("(title LIKE CONCAT('%', #{keyword}, '%') OR description LIKE CONCAT('%', #{keyword}, '%'))");
+            FROM("product");
+            applyFilters(this, query);
+
+            // 游标分页：从上一页最后一行之后继续，(排序列, id) 保证顺序确定
+            String column = query.getSort().getColumn();
+            String direction = query.isAscending() ? "ASC" : "DESC";
+            if (query.hasCursor()) {
+                String op = query.isAscending() ? ">" : "<";
+                WHERE("(" + column + " " + op + " #{cursorValue} OR (" + column + " = #{cursorValue} AND id " + op + " #{cursorId}))");
             }
-            
+
             // 排序
-            if (sortBy != null && !sortBy.isEmpty()) {
-                String order = (sortOrder != null && sortOrder.equalsIgnoreCase("desc")) ? "DESC" : "ASC";
-                ORDER_BY(sortBy + " " + order);
-            } else {
-                ORDER_BY("create_time DESC");
-            }
-            
-            if (offset != null && limit != null) {
-                LIMIT(limit);
-                OFFSET(offset);
+            ORDER_BY(column + " " + direction, "id " + direction);
+
+            if (query.getLimit() != null) {
+                LIMIT(query.getLimit());
+                if (query.getOffset() != null) {
+                    OFFSET(query.getOffset());
+                }
             }
         }}.toString();
     }
 
-    public String countProducts(Long categoryId, List<Long> categoryIds, List<String> quality,
-                                java.math.BigDecimal minPrice, java.math.BigDecimal maxPrice,
-                                Integer status, String keyword) {
+    /**
+     * 导出商品：筛选分页沿用 listProducts 作为子查询，外层连接卖家和分类，一条语句带出展示字段
+     * （流式读取期间连接被结果集占用，不能再逐批查关联数据）
+     */
+    public String exportProducts(ProductQuery query) {
+        String column = query.getSort().getColumn();
+        String direction = query.isAscending() ? "ASC" : "DESC";
+        return "SELECT p.id AS id, p.title AS title, p.price AS price, p.original_price AS originalPrice, " +
+                "JSON_UNQUOTE(JSON_EXTRACT(p.images, '$[0]')) AS coverImage, p.status AS status, " +
+                "p.`condition` AS `condition`, p.transaction_type AS transactionType, " +
+                "p.category_id AS categoryId, c.name AS categoryName, p.user_id AS userId, u.username AS username, " +
+                "p.view_count AS viewCount, p.favorite_count AS favoriteCount, p.create_time AS createTime " +
+                "FROM (" + listProducts(query) + ") p " +
+                "LEFT JOIN user u ON u.id = p.user_id " +
+                "LEFT JOIN category c ON c.id = p.category_id " +
+                "ORDER BY p." + column + " " + direction + ", p.id " + direction;
+    }
+
+    public String countProducts(ProductQuery query) {
         return new SQL() {{
             SELECT("COUNT(*)");
             FROM("product");
-            
-            if (categoryId != null) {
-                WHERE("category_id = #{categoryId}");
-            }
-            if (categoryIds != null && !categoryIds.isEmpty()) {
-                WHERE("category_id IN (" + buildInClause(categoryIds.size(), "categoryIds") + ")");
-            }
-            if (quality != null && !quality.isEmpty()) {
-                WHERE("`condition` IN (" + buildInClause(quality.size(), "quality") + ")");
-            }
-            if (minPrice != null) {
-                WHERE("price >= #{minPrice}");
-            }
-            if (maxPrice != null) {
-                WHERE("price <= #{maxPrice}");
-            }
-            if (status != null) {
-                WHERE("status = #{status}");
-            }
-            if (keyword != null && !keyword.isEmpty()) {
-                WHERE("(title LIKE CONCAT('%', #{keyword}, '%') OR description LIKE CONCAT('%', #{keyword}, '%'))");
-            }
+            applyFilters(this, query);
+        }}.toString();
+    }
+
+    private void applyFilters(SQL sql, ProductQuery query) {
+        applyBaseFilters(sql, query);
+        applyFacetFilters(sql, query);
+    }
+
+    /**
+     * 不参与分面统计的条件：状态、关键词（索引未就绪时的 LIKE 回退）
+     */
+    private void applyBaseFilters(SQL sql, ProductQuery query) {
+        if (query.getStatus() != null) {
+            sql.WHERE("status = #{status}");
+        }
+        if (query.getKeyword() != null && !query.getKeyword().isEmpty()) {
+            sql.WHERE("(title LIKE CONCAT('%', #{keyword}, '%') OR description LIKE CONCAT('%', #{keyword}, '%'))");
+        }
+    }
+
+    /**
+     * 分面条件：分类、成色、价格、交易方式
+     */
+    private void applyFacetFilters(SQL sql, ProductQuery query) {
+        if (query.getCategoryScope() != null && !query.getCategoryScope().isEmpty()) {
+            sql.WHERE("category_id IN (" + buildInClause(query.getCategoryScope().size(), "categoryScope") + ")");
+        } else if (query.getCategoryId() != null) {
+            sql.WHERE("category_id = #{categoryId}");
+        }
+        if (query.getCategoryIds() != null && !query.getCategoryIds().isEmpty()) {
+            sql.WHERE("category_id IN (" + buildInClause(query.getCategoryIds().size(), "categoryIds") + ")");
+        }
+        if (query.getQuality() != null && !query.getQuality().isEmpty()) {
+            sql.WHERE("`condition` IN (" + buildInClause(query.getQuality().size(), "quality") + ")");
+        }
+        if (query.getMinPrice() != null) {
+            sql.WHERE("price >= #{minPrice}");
+        }
+        if (query.getMaxPrice() != null) {
+            sql.WHERE("price <= #{maxPrice}");
+        }
+        if (query.getTransactionTypes() != null && !query.getTransactionTypes().isEmpty()) {
+            sql.WHERE("transaction_type IN (" + buildInClause(query.getTransactionTypes().size(), "transactionTypes") + ")");
+        }
+    }
+
+    /**
+     * 分面统计：只按基础条件过滤，一次 GROUP BY 得到 (分类, 成色, 交易方式, 价格区间, 是否满足价格条件) 的组合计数，
+     * 其余分面条件由调用方在内存中按"排除自身条件"的规则汇总
+     */
+    public String countFacets(ProductQuery query) {
+        return new SQL() {{
+            SELECT("category_id", "`condition`", "transaction_type");
+            SELECT(buildPriceBucketCase() + " AS price_bucket");
+            SELECT(buildPriceRangeFlag(query) + " AS in_price_range");
+            SELECT("COUNT(*) AS product_count");
+            FROM("product");
+            applyBaseFilters(this, query);
+            GROUP_BY("category_id", "`condition`", "transaction_type", "price_bucket", "in_price_range");
         }}.toString();
     }
-    
+
+    private String buildPriceBucketCase() {
+        StringBuilder sb = new StringBuilder("CASE");
+        for (int i = 1; i < PRICE_BUCKET_BOUNDS.length; i++) {
+            sb.append(" WHEN price < ").append(PRICE_BUCKET_BOUNDS[i]).append(" THEN ").append(i - 1);
+        }
+        sb.append(" ELSE ").append(PRICE_BUCKET_BOUNDS.length - 1).append(" END");
+        return sb.toString();
+    }
+
+    private String buildPriceRangeFlag(ProductQuery query) {
+        if (query.getMinPrice() == null && query.getMaxPrice() == null) {
+            return "1";
+        }
+        StringBuilder sb = new StringBuilder("(");
+        if (query.getMinPrice() != null) {
+            sb.append("price >= #{minPrice}");
+        }
+        if (query.getMaxPrice() != null) {
+            if (query.getMinPrice() != null) sb.append(" AND ");
+            sb.append("price <= #{maxPrice}");
+        }
+        return sb.append(")").toString();
+    }
+
     private String buildInClause(int size, String paramName) {
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < size; i++) {
@@ -93,9 +176,12 @@ public class ProductSqlProvider {
         return sb.toString();
     }
 
-    public String listMyProducts(Long userId, Integer status, Integer offset, Integer limit) {
+    public String listMyProducts(Long userId, Integer status, Integer offset, Integer limit, boolean withTotal) {
         return new SQL() {{
-            SELECT("*");
+            SELECT(CARD_COLUMNS);
+            if (withTotal) {
+                SELECT("COUNT(*) OVER() AS total_count");
+            }
             FROM("product");
             WHERE("user_id = #{userId}");
             
@@ -103,7 +189,7 @@ public class ProductSqlProvider {
                 WHERE("status = #{status}");
             }
             
-            ORDER_BY("create_time DESC");
+            ORDER_BY("create_time DESC", "id DESC");
             
             if (offset != null && limit != null) {
                 LIMIT(limit);
@@ -2,7 +2,11 @@ package com.modestcyber.mapper;
 
 import com.modestcyber.pojo.User;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 
 /**
@@ -35,6 +39,15 @@ public interface UserMapper {
     @Select("SELECT * FROM user WHERE id = #{id}")
     User findById(Long id);
 
+    /**
+     * 根据ID批量查询用户
+     */
+    @Select("<script>" +
+            "SELECT * FROM user WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<User> findByIds(@Param("ids") Collection<Long> ids);
+
     /**
      * 插入用户
      */
@@ -90,7 +103,7 @@ public interface UserMapper {
      * 查询用户列表（带筛选）
      */
     @Select("<script>" +
-            "SELECT * FROM user WHERE 1=1" +
+            "SELECT *<if test='withTotal'>, COUNT(*) OVER() AS total_count</if> FROM user WHERE 1=1" +
             "<if test='keyword != null and keyword != \"\"'>" +
             " AND (username LIKE CONCAT('%', #{keyword}, '%') OR email LIKE CONCAT('%', #{keyword}, '%') OR phone LIKE CONCAT('%', #{keyword}, '%'))" +
             "</if>" +
@@ -100,13 +113,39 @@ public interface UserMapper {
             "<if test='status != null'>" +
             " AND status = #{status}" +
             "</if>" +
-            " ORDER BY create_time DESC LIMIT #{offset}, #{limit}" +
+            " ORDER BY create_time DESC, id DESC LIMIT #{offset}, #{limit}" +
             "</script>")
     List<User> listUsers(@Param("keyword") String keyword,
                          @Param("department") String department,
                          @Param("status") Integer status,
                          @Param("offset") Integer offset,
-                         @Param("limit") Integer limit);
+                         @Param("limit") Integer limit,
+                         @Param("withTotal") boolean withTotal);
+
+    /**
+     * 流式导出用户（不含密码；limit 为空时导出全部）
+     */
+    @Select("<script>" +
+            "SELECT id, username, real_name AS realName, email, phone, student_id AS studentId, department, role, " +
+            "status, create_time AS createTime FROM user WHERE 1=1" +
+            "<if test='keyword != null and keyword != \"\"'>" +
+            " AND (username LIKE CONCAT('%', #{keyword}, '%') OR email LIKE CONCAT('%', #{keyword}, '%') OR phone LIKE CONCAT('%', #{keyword}, '%'))" +
+            "</if>" +
+            "<if test='department != null and department != \"\"'>" +
+            " AND department = #{department}" +
+            "</if>" +
+            "<if test='status != null'>" +
+            " AND status = #{status}" +
+            "</if>" +
+            " ORDER BY create_time DESC, id DESC" +
+            "<if test='limit != null'> LIMIT #{offset}, #{limit}</if>" +
+            "</script>")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<LinkedHashMap<String, Object>> exportUsers(@Param("keyword") String keyword,
+                                                      @Param("department") String department,
+                                                      @Param("status") Integer status,
+                                                      @Param("offset") Integer offset,
+                                                      @Param("limit") Integer limit);
 
     /**
      * 统计用户数量（带筛选）
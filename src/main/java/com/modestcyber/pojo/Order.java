@@ -1,5 +1,6 @@
 package com.modestcyber.pojo;
 
+import com.modestcyber.common.WindowCounted;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,7 +14,7 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class Order {
+public class Order implements WindowCounted {
     private Long id;
     private String orderNo;
     private Long buyerId;
@@ -28,4 +29,7 @@ public class Order {
     private LocalDateTime createTime;
     private LocalDateTime updateTime;
     private LocalDateTime completeTime;
+
+    // 辅助字段
+    private Long totalCount;  // 列表查询的窗口计数 COUNT(*) OVER()
 }
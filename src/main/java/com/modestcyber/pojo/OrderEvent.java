@@ -0,0 +1,23 @@
+package com.modestcyber.pojo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 订单状态流水实体（只追加）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEvent {
+    private Long id;
+    private Long orderId;
+    private String action;        // OrderStateMachine.Action 名称
+    private Integer fromStatus;   // 变更前状态，创建/基线事件为空
+    private Integer toStatus;
+    private Long operatorId;
+    private LocalDateTime createTime;
+}
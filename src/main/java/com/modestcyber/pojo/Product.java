@@ -1,5 +1,6 @@
 package com.modestcyber.pojo;
 
+import com.modestcyber.common.WindowCounted;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,7 +15,7 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class Product {
+public class Product implements WindowCounted {
     private Long id;
     private Long userId;
     private Long categoryId;
@@ -33,4 +34,7 @@ public class Product {
     
     // 辅助字段
     private List<String> imageList;  // 用于前端展示
+    private LocalDateTime favoriteTime;  // 收藏时间（收藏列表游标分页）
+    private String coverImage;  // 封面图（卡片查询从 images 中取第一张）
+    private Long totalCount;  // 列表查询的窗口计数 COUNT(*) OVER()
 }
@@ -1,5 +1,7 @@
 package com.modestcyber.pojo;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.modestcyber.common.WindowCounted;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,7 +14,7 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class User {
+public class User implements WindowCounted {
     private Long id;
     private String username;
     private String password;
@@ -26,4 +28,8 @@ public class User {
     private Integer status;
     private LocalDateTime createTime;
     private LocalDateTime updateTime;
+
+    // 辅助字段
+    @JsonIgnore
+    private Long totalCount;  // 列表查询的窗口计数 COUNT(*) OVER()
 }
@@ -0,0 +1,81 @@
+package com.modestcyber.serializer;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.SerializableString;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.SerializationContext;
+
+import java.math.BigDecimal;
+
+/**
+ * 手写序列化器共用的字段写出方法
+ * 字段名预先编码为 SerializedString，写出时直接拷贝字节；空值按 Jackson 默认规则输出 null
+ */
+final class JsonFields {
+
+    private JsonFields() {
+    }
+
+    static SerializedString name(String name) {
+        SerializedString serialized = new SerializedString(name);
+        serialized.asQuotedUTF8();  // 预先编码，之后各线程只读
+        return serialized;
+    }
+
+    static void writeString(JsonGenerator gen, SerializableString name, String value) {
+        gen.writeName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value);
+        }
+    }
+
+    static void writeNumber(JsonGenerator gen, SerializableString name, Integer value) {
+        gen.writeName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    static void writeNumber(JsonGenerator gen, SerializableString name, Long value) {
+        gen.writeName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    static void writeNumber(JsonGenerator gen, SerializableString name, BigDecimal value) {
+        gen.writeName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    static void writeBoolean(JsonGenerator gen, SerializableString name, Boolean value) {
+        gen.writeName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeBoolean(value);
+        }
+    }
+
+    /**
+     * 日期、集合、泛型数据等交给 Jackson 按运行时类型序列化，保持与默认输出一致
+     */
+    static void writeValue(JsonGenerator gen, SerializationContext ctxt, SerializableString name, Object value) {
+        gen.writeName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            ctxt.writeValue(gen, value);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.modestcyber.serializer;
+
+import com.modestcyber.dto.response.OrderResponse;
+import org.springframework.boot.jackson.JacksonComponent;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueSerializer;
+
+/**
+ * 订单响应序列化器，字段与默认输出一致
+ */
+@JacksonComponent
+public class OrderResponseSerializer extends ValueSerializer<OrderResponse> {
+
+    private static final SerializedString ID = JsonFields.name("id");
+    private static final SerializedString ORDER_NO = JsonFields.name("orderNo");
+    private static final SerializedString BUYER_ID = JsonFields.name("buyerId");
+    private static final SerializedString BUYER_NAME = JsonFields.name("buyerName");
+    private static final SerializedString SELLER_ID = JsonFields.name("sellerId");
+    private static final SerializedString SELLER_NAME = JsonFields.name("sellerName");
+    private static final SerializedString PRODUCT_ID = JsonFields.name("productId");
+    private static final SerializedString PRODUCT_TITLE = JsonFields.name("productTitle");
+    private static final SerializedString PRODUCT_IMAGE = JsonFields.name("productImage");
+    private static final SerializedString QUANTITY = JsonFields.name("quantity");
+    private static final SerializedString TOTAL_PRICE = JsonFields.name("totalPrice");
+    private static final SerializedString TRANSACTION_TYPE = JsonFields.name("transactionType");
+    private static final SerializedString TRANSACTION_TYPE_TEXT = JsonFields.name("transactionTypeText");
+    private static final SerializedString STATUS = JsonFields.name("status");
+    private static final SerializedString STATUS_TEXT = JsonFields.name("statusText");
+    private static final SerializedString REMARK = JsonFields.name("remark");
+    private static final SerializedString ADDRESS = JsonFields.name("address");
+    private static final SerializedString CREATE_TIME = JsonFields.name("createTime");
+    private static final SerializedString UPDATE_TIME = JsonFields.name("updateTime");
+    private static final SerializedString COMPLETE_TIME = JsonFields.name("completeTime");
+
+    @Override
+    public void serialize(OrderResponse order, JsonGenerator gen, SerializationContext ctxt) {
+        gen.writeStartObject(order);
+        JsonFields.writeNumber(gen, ID, order.getId());
+        JsonFields.writeString(gen, ORDER_NO, order.getOrderNo());
+        JsonFields.writeNumber(gen, BUYER_ID, order.getBuyerId());
+        JsonFields.writeString(gen, BUYER_NAME, order.getBuyerName());
+        JsonFields.writeNumber(gen, SELLER_ID, order.getSellerId());
+        JsonFields.writeString(gen, SELLER_NAME, order.getSellerName());
+        JsonFields.writeNumber(gen, PRODUCT_ID, order.getProductId());
+        JsonFields.writeString(gen, PRODUCT_TITLE, order.getProductTitle());
+        JsonFields.writeString(gen, PRODUCT_IMAGE, order.getProductImage());
+        JsonFields.writeNumber(gen, QUANTITY, order.getQuantity());
+        JsonFields.writeNumber(gen, TOTAL_PRICE, order.getTotalPrice());
+        JsonFields.writeNumber(gen, TRANSACTION_TYPE, order.getTransactionType());
+        JsonFields.writeString(gen, TRANSACTION_TYPE_TEXT, order.getTransactionTypeText());
+        JsonFields.writeNumber(gen, STATUS, order.getStatus());
+        JsonFields.writeString(gen, STATUS_TEXT, order.getStatusText());
+        JsonFields.writeString(gen, REMARK, order.getRemark());
+        JsonFields.writeString(gen, ADDRESS, order.getAddress());
+        JsonFields.writeValue(gen, ctxt, CREATE_TIME, order.getCreateTime());
+        JsonFields.writeValue(gen, ctxt, UPDATE_TIME, order.getUpdateTime());
+        JsonFields.writeValue(gen, ctxt, COMPLETE_TIME, order.getCompleteTime());
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,145 @@
+package com.modestcyber.serializer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.modestcyber.dto.response.ProductCardResponse;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.ObjectWriteContext;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 商品卡片 JSON 片段缓存
+ * 按商品ID缓存卡片中不随用户和浏览变化的字段编码好的 UTF-8 字节（以逗号开头，可直接拼进对象）；
+ * 命中时逐个比较这些字段的当前值，商品或分类名称变了就重新编码，不依赖失效通知
+ */
+@Component
+public class ProductCardFragmentCache {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Value("${cache.product-card-fragment.maximum-size:20000}")
+    private long maximumSize;
+
+    private Cache<Long, Fragment> cache;
+
+    /**
+     * 编码好的片段及编码时的字段值
+     */
+    static final class Fragment {
+        private final Long categoryId;
+        private final String categoryName;
+        private final String title;
+        private final BigDecimal price;
+        private final BigDecimal originalPrice;
+        private final String coverImage;
+        private final Integer status;
+        private final String statusText;
+        private final String condition;
+        private final String createdAt;
+        private final SerializedString json;
+
+        private Fragment(ProductCardResponse card, String json) {
+            this.categoryId = card.getCategoryId();
+            this.categoryName = card.getCategoryName();
+            this.title = card.getTitle();
+            this.price = card.getPrice();
+            this.originalPrice = card.getOriginalPrice();
+            this.coverImage = card.getCoverImage();
+            this.status = card.getStatus();
+            this.statusText = card.getStatusText();
+            this.condition = card.getCondition();
+            this.createdAt = card.getCreatedAt();
+            this.json = new SerializedString(json);
+            this.json.asUnquotedUTF8();
+        }
+
+        private boolean matches(ProductCardResponse card) {
+            return Objects.equals(status, card.getStatus())
+                    && Objects.equals(price, card.getPrice())
+                    && Objects.equals(title, card.getTitle())
+                    && Objects.equals(coverImage, card.getCoverImage())
+                    && Objects.equals(categoryId, card.getCategoryId())
+                    && Objects.equals(categoryName, card.getCategoryName())
+                    && Objects.equals(originalPrice, card.getOriginalPrice())
+                    && Objects.equals(condition, card.getCondition())
+                    && Objects.equals(statusText, card.getStatusText())
+                    && Objects.equals(createdAt, card.getCreatedAt());
+        }
+
+        SerializedString json() {
+            return json;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 取卡片的静态字段片段，缓存中没有或已过时则重新编码
+     */
+    Fragment get(ProductCardResponse card) {
+        if (card.getId() == null) {
+            return encode(card);
+        }
+        Fragment fragment = cache.getIfPresent(card.getId());
+        if (fragment != null && fragment.matches(card)) {
+            return fragment;
+        }
+        fragment = encode(card);
+        cache.put(card.getId(), fragment);
+        return fragment;
+    }
+
+    /**
+     * 缓存统计
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> map = new HashMap<>();
+        map.put("size", cache.estimatedSize());
+        map.put("hitCount", stats.hitCount());
+        map.put("missCount", stats.missCount());
+        map.put("hitRate", stats.hitRate());
+        map.put("evictionCount", stats.evictionCount());
+        return map;
+    }
+
+    private Fragment encode(ProductCardResponse card) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(ObjectWriteContext.empty(), out)) {
+            gen.writeStartObject();
+            JsonFields.writeNumber(gen, ProductCardSerializer.ID, card.getId());
+            JsonFields.writeNumber(gen, ProductCardSerializer.CATEGORY_ID, card.getCategoryId());
+            JsonFields.writeString(gen, ProductCardSerializer.CATEGORY_NAME, card.getCategoryName());
+            JsonFields.writeString(gen, ProductCardSerializer.TITLE, card.getTitle());
+            JsonFields.writeNumber(gen, ProductCardSerializer.PRICE, card.getPrice());
+            JsonFields.writeNumber(gen, ProductCardSerializer.ORIGINAL_PRICE, card.getOriginalPrice());
+            JsonFields.writeString(gen, ProductCardSerializer.COVER_IMAGE, card.getCoverImage());
+            JsonFields.writeNumber(gen, ProductCardSerializer.STATUS, card.getStatus());
+            JsonFields.writeString(gen, ProductCardSerializer.STATUS_TEXT, card.getStatusText());
+            JsonFields.writeString(gen, ProductCardSerializer.CONDITION, card.getCondition());
+            JsonFields.writeString(gen, ProductCardSerializer.CREATED_AT, card.getCreatedAt());
+            gen.writeEndObject();
+        }
+        // {"id":1,...} -> ,"id":1,...
+        String object = out.toString(StandardCharsets.UTF_8);
+        return new Fragment(card, "," + object.substring(1, object.length() - 1));
+    }
+}
@@ -0,0 +1,46 @@
+package com.modestcyber.serializer;
+
+import com.modestcyber.dto.response.ProductCardResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jackson.JacksonComponent;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueSerializer;
+
+/**
+ * 商品卡片序列化器
+ * 浏览量、收藏数、收藏状态每次现写，其余字段直接拼接片段缓存中已编码的字节
+ */
+@JacksonComponent
+public class ProductCardSerializer extends ValueSerializer<ProductCardResponse> {
+
+    static final SerializedString ID = JsonFields.name("id");
+    static final SerializedString CATEGORY_ID = JsonFields.name("categoryId");
+    static final SerializedString CATEGORY_NAME = JsonFields.name("categoryName");
+    static final SerializedString TITLE = JsonFields.name("title");
+    static final SerializedString PRICE = JsonFields.name("price");
+    static final SerializedString ORIGINAL_PRICE = JsonFields.name("originalPrice");
+    static final SerializedString COVER_IMAGE = JsonFields.name("coverImage");
+    static final SerializedString STATUS = JsonFields.name("status");
+    static final SerializedString STATUS_TEXT = JsonFields.name("statusText");
+    static final SerializedString CONDITION = JsonFields.name("condition");
+    static final SerializedString CREATED_AT = JsonFields.name("createdAt");
+    private static final SerializedString VIEW_COUNT = JsonFields.name("viewCount");
+    private static final SerializedString FAVORITE_COUNT = JsonFields.name("favoriteCount");
+    private static final SerializedString IS_FAVORITE = JsonFields.name("isFavorite");
+
+    @Autowired
+    private ProductCardFragmentCache fragmentCache;
+
+    @Override
+    public void serialize(ProductCardResponse card, JsonGenerator gen, SerializationContext ctxt) {
+        gen.writeStartObject(card);
+        // 动态字段先写；片段自带前导逗号，直接接在其后
+        JsonFields.writeNumber(gen, VIEW_COUNT, card.getViewCount());
+        JsonFields.writeNumber(gen, FAVORITE_COUNT, card.getFavoriteCount());
+        JsonFields.writeBoolean(gen, IS_FAVORITE, card.getIsFavorite());
+        gen.writeRaw(fragmentCache.get(card).json());
+        gen.writeEndObject();
+    }
+}
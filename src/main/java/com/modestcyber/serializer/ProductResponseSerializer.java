@@ -0,0 +1,82 @@
+package com.modestcyber.serializer;
+
+import com.modestcyber.dto.response.ProductResponse;
+import org.springframework.boot.jackson.JacksonComponent;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueSerializer;
+
+/**
+ * 商品详情序列化器
+ * 字段与默认输出一致（name/title、quality/condition、createdAt/createTime 两套命名都保留给前端）
+ */
+@JacksonComponent
+public class ProductResponseSerializer extends ValueSerializer<ProductResponse> {
+
+    private static final SerializedString ID = JsonFields.name("id");
+    private static final SerializedString USER_ID = JsonFields.name("userId");
+    private static final SerializedString USERNAME = JsonFields.name("username");
+    private static final SerializedString USER_DEPARTMENT = JsonFields.name("userDepartment");
+    private static final SerializedString CATEGORY_ID = JsonFields.name("categoryId");
+    private static final SerializedString CATEGORY_NAME = JsonFields.name("categoryName");
+    private static final SerializedString NAME = JsonFields.name("name");
+    private static final SerializedString TITLE = JsonFields.name("title");
+    private static final SerializedString DESCRIPTION = JsonFields.name("description");
+    private static final SerializedString PRICE = JsonFields.name("price");
+    private static final SerializedString ORIGINAL_PRICE = JsonFields.name("originalPrice");
+    private static final SerializedString IMAGES = JsonFields.name("images");
+    private static final SerializedString STATUS = JsonFields.name("status");
+    private static final SerializedString STATUS_TEXT = JsonFields.name("statusText");
+    private static final SerializedString QUALITY = JsonFields.name("quality");
+    private static final SerializedString CONDITION = JsonFields.name("condition");
+    private static final SerializedString TRADE_METHOD = JsonFields.name("tradeMethod");
+    private static final SerializedString TRANSACTION_TYPE = JsonFields.name("transactionType");
+    private static final SerializedString TRANSACTION_TYPE_TEXT = JsonFields.name("transactionTypeText");
+    private static final SerializedString VIEW_COUNT = JsonFields.name("viewCount");
+    private static final SerializedString FAVORITE_COUNT = JsonFields.name("favoriteCount");
+    private static final SerializedString IS_FAVORITE = JsonFields.name("isFavorite");
+    private static final SerializedString CREATED_AT = JsonFields.name("createdAt");
+    private static final SerializedString CREATE_TIME = JsonFields.name("createTime");
+    private static final SerializedString UPDATE_TIME = JsonFields.name("updateTime");
+
+    @Override
+    public void serialize(ProductResponse product, JsonGenerator gen, SerializationContext ctxt) {
+        gen.writeStartObject(product);
+        JsonFields.writeNumber(gen, ID, product.getId());
+        JsonFields.writeNumber(gen, USER_ID, product.getUserId());
+        JsonFields.writeString(gen, USERNAME, product.getUsername());
+        JsonFields.writeString(gen, USER_DEPARTMENT, product.getUserDepartment());
+        JsonFields.writeNumber(gen, CATEGORY_ID, product.getCategoryId());
+        JsonFields.writeString(gen, CATEGORY_NAME, product.getCategoryName());
+        JsonFields.writeString(gen, NAME, product.getName());
+        JsonFields.writeString(gen, TITLE, product.getTitle());
+        JsonFields.writeString(gen, DESCRIPTION, product.getDescription());
+        JsonFields.writeNumber(gen, PRICE, product.getPrice());
+        JsonFields.writeNumber(gen, ORIGINAL_PRICE, product.getOriginalPrice());
+        gen.writeName(IMAGES);
+        if (product.getImages() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartArray(product.getImages(), product.getImages().size());
+            for (String image : product.getImages()) {
+                gen.writeString(image);
+            }
+            gen.writeEndArray();
+        }
+        JsonFields.writeNumber(gen, STATUS, product.getStatus());
+        JsonFields.writeString(gen, STATUS_TEXT, product.getStatusText());
+        JsonFields.writeString(gen, QUALITY, product.getQuality());
+        JsonFields.writeString(gen, CONDITION, product.getCondition());
+        JsonFields.writeString(gen, TRADE_METHOD, product.getTradeMethod());
+        JsonFields.writeNumber(gen, TRANSACTION_TYPE, product.getTransactionType());
+        JsonFields.writeString(gen, TRANSACTION_TYPE_TEXT, product.getTransactionTypeText());
+        JsonFields.writeNumber(gen, VIEW_COUNT, product.getViewCount());
+        JsonFields.writeNumber(gen, FAVORITE_COUNT, product.getFavoriteCount());
+        JsonFields.writeBoolean(gen, IS_FAVORITE, product.getIsFavorite());
+        JsonFields.writeString(gen, CREATED_AT, product.getCreatedAt());
+        JsonFields.writeValue(gen, ctxt, CREATE_TIME, product.getCreateTime());
+        JsonFields.writeValue(gen, ctxt, UPDATE_TIME, product.getUpdateTime());
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,30 @@
+package com.modestcyber.serializer;
+
+import com.modestcyber.common.Result;
+import org.springframework.boot.jackson.JacksonComponent;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueSerializer;
+
+/**
+ * 统一响应结果序列化器，按字段直接写出，不走反射
+ */
+@JacksonComponent
+public class ResultSerializer extends ValueSerializer<Result<?>> {
+
+    private static final SerializedString CODE = JsonFields.name("code");
+    private static final SerializedString MESSAGE = JsonFields.name("message");
+    private static final SerializedString DATA = JsonFields.name("data");
+    private static final SerializedString TRACE_ID = JsonFields.name("traceId");
+
+    @Override
+    public void serialize(Result<?> result, JsonGenerator gen, SerializationContext ctxt) {
+        gen.writeStartObject(result);
+        JsonFields.writeNumber(gen, CODE, result.getCode());
+        JsonFields.writeString(gen, MESSAGE, result.getMessage());
+        JsonFields.writeValue(gen, ctxt, DATA, result.getData());
+        JsonFields.writeString(gen, TRACE_ID, result.getTraceId());
+        gen.writeEndObject();
+    }
+}
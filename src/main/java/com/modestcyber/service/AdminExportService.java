@@ -0,0 +1,144 @@
+package com.modestcyber.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.modestcyber.dto.query.ProductQuery;
+import com.modestcyber.mapper.OrderMapper;
+import com.modestcyber.mapper.ProductMapper;
+import com.modestcyber.mapper.UserMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * 管理端流式导出服务
+ * 从 MyBatis Cursor 逐行读取，用 JsonGenerator 直接写到响应流并定期 flush，
+ * 内存占用与导出行数无关；输出格式与 Result 一致：{"code":0,"message":"success","data":[...]}
+ */
+@Slf4j
+@Service
+public class AdminExportService {
+
+    private static final int FLUSH_ROWS = 500;
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 导出商品，pageNum/pageSize 为空时导出全部
+     */
+    @Transactional(readOnly = true)
+    public void exportProducts(String keyword, Long categoryId, Integer status, Integer pageNum, Integer pageSize,
+                               OutputStream out) throws IOException {
+        ProductQuery query = new ProductQuery();
+        query.setKeyword(keyword);
+        query.setCategoryId(categoryId);
+        query.setStatus(status);
+        if (pageSize != null && pageSize > 0) {
+            query.setOffset(offset(pageNum, pageSize));
+            query.setLimit(pageSize);
+        }
+        try (Cursor<? extends Map<String, Object>> cursor = productMapper.exportProducts(query)) {
+            write(cursor, out);
+        }
+    }
+
+    /**
+     * 导出用户（不含密码），pageNum/pageSize 为空时导出全部
+     */
+    @Transactional(readOnly = true)
+    public void exportUsers(String keyword, String department, Integer status, Integer pageNum, Integer pageSize,
+                            OutputStream out) throws IOException {
+        Integer limit = pageSize != null && pageSize > 0 ? pageSize : null;
+        Integer offset = limit != null ? offset(pageNum, limit) : null;
+        try (Cursor<? extends Map<String, Object>> cursor = userMapper.exportUsers(keyword, department, status, offset, limit)) {
+            write(cursor, out);
+        }
+    }
+
+    /**
+     * 导出订单，pageNum/pageSize 为空时导出全部
+     */
+    @Transactional(readOnly = true)
+    public void exportOrders(Integer status, Integer pageNum, Integer pageSize, OutputStream out) throws IOException {
+        Integer limit = pageSize != null && pageSize > 0 ? pageSize : null;
+        Integer offset = limit != null ? offset(pageNum, limit) : null;
+        try (Cursor<? extends Map<String, Object>> cursor = orderMapper.exportOrders(status, offset, limit)) {
+            write(cursor, out);
+        }
+    }
+
+    private int offset(Integer pageNum, int pageSize) {
+        return (pageNum == null || pageNum < 1 ? 0 : pageNum - 1) * pageSize;
+    }
+
+    private void write(Cursor<? extends Map<String, Object>> cursor, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartObject();
+        generator.writeNumberField("code", 0);
+        generator.writeStringField("message", "success");
+        generator.writeArrayFieldStart("data");
+
+        int rows = 0;
+        for (Map<String, Object> row : cursor) {
+            generator.writeStartObject();
+            for (Map.Entry<String, Object> field : row.entrySet()) {
+                generator.writeFieldName(field.getKey());
+                writeValue(generator, field.getValue());
+            }
+            generator.writeEndObject();
+            if (++rows % FLUSH_ROWS == 0) {
+                generator.flush();
+            }
+        }
+
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.close();
+        log.info("流式导出完成: {} 行", rows);
+    }
+
+    private void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof BigDecimal decimal) {
+            generator.writeNumber(decimal);
+        } else if (value instanceof BigInteger integer) {
+            generator.writeNumber(integer);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Number number) {
+            generator.writeNumber(number.doubleValue());
+        } else if (value instanceof Boolean bool) {
+            generator.writeBoolean(bool);
+        } else if (value instanceof LocalDateTime time) {
+            generator.writeString(time.format(DATE_TIME_FORMATTER));
+        } else if (value instanceof Timestamp timestamp) {
+            generator.writeString(timestamp.toLocalDateTime().format(DATE_TIME_FORMATTER));
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+}
@@ -1,27 +1,32 @@
 package com.modestcyber.service;
 
+import com.modestcyber.common.CountMode;
 import com.modestcyber.common.PageResult;
+import com.modestcyber.dto.query.ProductQuery;
 import com.modestcyber.dto.request.CategoryRequest;
 import com.modestcyber.dto.request.ReviewRequest;
 import com.modestcyber.dto.response.DashboardStatsResponse;
+import com.modestcyber.dto.response.HotSnapshot;
 import com.modestcyber.dto.response.OrderResponse;
 import com.modestcyber.dto.response.ProductResponse;
 import com.modestcyber.dto.response.StatisticsOverviewResponse;
 import com.modestcyber.dto.response.UserInfoResponse;
+import com.modestcyber.event.CategoryChangedEvent;
+import com.modestcyber.event.ProductChangedEvent;
 import com.modestcyber.exception.BusinessException;
 import com.modestcyber.mapper.OrderMapper;
 import com.modestcyber.mapper.ProductMapper;
 import com.modestcyber.mapper.CategoryMapper;
 import com.modestcyber.mapper.UserMapper;
 import com.modestcyber.pojo.Order;
+import com.modestcyber.pojo.OrderEvent;
 import com.modestcyber.pojo.Product;
 import com.modestcyber.pojo.Category;
 import com.modestcyber.pojo.User;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.modestcyber.serializer.ProductCardFragmentCache;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,12 +34,12 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -62,16 +67,55 @@ public class AdminService {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+
+    @Autowired
+    private OrderTimeoutService orderTimeoutService;
+
     @Autowired
     private CategoryMapper categoryMapper;
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    @Autowired
+    private CategoryCache categoryCache;
+
+    @Autowired
+    private ProductCardFragmentCache productCardFragmentCache;
+
+    @Autowired
+    private FavoriteSetCache favoriteSetCache;
+
+    @Autowired
+    private ProductResponseAssembler productResponseAssembler;
+
+    @Autowired
+    private PagingService pagingService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ProductListCache productListCache;
+
+    @Autowired
+    private QueryProfileService queryProfileService;
+
+    @Autowired
+    private IndexAdvisorService indexAdvisorService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private ProductDetailCache productDetailCache;
+
+    private static final int HOT_LIMIT = 10;
 
     /**
      * 获取用户列表
      */
-    public PageResult<User> getUserList(String keyword, String department, Integer status, Integer pageNum, Integer pageSize) {
+    public PageResult<User> getUserList(String keyword, String department, Integer status, Integer pageNum, Integer pageSize,
+                                        CountMode countMode) {
         if (pageNum == null || pageNum < 1) {
             pageNum = 1;
         }
@@ -79,11 +123,11 @@ public class AdminService {
             pageSize = 10;
         }
 
-        int offset = (pageNum - 1) * pageSize;
-        List<User> users = userMapper.listUsers(keyword, department, status, offset, pageSize);
-        Long total = userMapper.countUsers(keyword, department, status);
-
-        return new PageResult<>(users, pageNum, pageSize, total);
+        String countKey = "user:k=" + keyword + "|d=" + department + "|s=" + status;
+        return pagingService.page(countMode, countKey, pageNum, pageSize,
+                (offset, limit, withTotal) -> userMapper.listUsers(keyword, department, status, offset, limit, withTotal),
+                () -> userMapper.countUsers(keyword, department, status),
+                Function.identity());
     }
 
     /**
@@ -128,6 +172,7 @@ public class AdminService {
         }
 
         productMapper.updateStatus(productId, status, LocalDateTime.now());
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, ProductChangedEvent.Type.STATUS_CHANGED));
         log.info("管理员审核商品 {}: 状态={}, 原因={}", productId, status, reason);
     }
 
@@ -142,13 +187,16 @@ public class AdminService {
             pageSize = 10;
         }
 
-        int offset = (pageNum - 1) * pageSize;
-        List<Product> products = productMapper.listProducts(categoryId, null, null, null, null, 0, keyword, "create_time", "desc", offset, pageSize);
-        Long total = productMapper.countProducts(categoryId, null, null, null, null, 0, keyword);
+        ProductQuery query = new ProductQuery();
+        query.setCategoryId(categoryId);
+        query.setStatus(0);
+        query.setKeyword(keyword);
+        query.setOffset((pageNum - 1) * pageSize);
+        query.setLimit(pageSize);
+        List<Product> products = productMapper.listProducts(query);
+        Long total = productMapper.countProducts(query);
 
-        List<ProductResponse> responseList = products.stream()
-                .map(this::convertToProductResponse)
-                .collect(Collectors.toList());
+        List<ProductResponse> responseList = productResponseAssembler.toResponses(products);
 
         return new PageResult<>(responseList, pageNum, pageSize, total);
     }
@@ -164,13 +212,16 @@ public class AdminService {
             pageSize = 10;
         }
 
-        int offset = (pageNum - 1) * pageSize;
-        List<Product> products = productMapper.listProducts(categoryId, null, null, null, null, status, keyword, "create_time", "desc", offset, pageSize);
-        Long total = productMapper.countProducts(categoryId, null, null, null, null, status, keyword);
+        ProductQuery query = new ProductQuery();
+        query.setCategoryId(categoryId);
+        query.setStatus(status);
+        query.setKeyword(keyword);
+        query.setOffset((pageNum - 1) * pageSize);
+        query.setLimit(pageSize);
+        List<Product> products = productMapper.listProducts(query);
+        Long total = productMapper.countProducts(query);
 
-        List<ProductResponse> responseList = products.stream()
-                .map(this::convertToProductResponse)
-                .collect(Collectors.toList());
+        List<ProductResponse> responseList = productResponseAssembler.toResponses(products);
 
         return new PageResult<>(responseList, pageNum, pageSize, total);
     }
@@ -185,73 +236,6 @@ public class AdminService {
         }
     }
 
-    /**
-     * 转换Product到ProductResponse
-     */
-    private ProductResponse convertToProductResponse(Product product) {
-        ProductResponse response = new ProductResponse();
-        
-        // 基本字段复制
-        response.setId(product.getId());
-        response.setUserId(product.getUserId());
-        response.setCategoryId(product.getCategoryId());
-        response.setTitle(product.getTitle());
-        response.setName(product.getTitle());  // 前端使用name
-        response.setDescription(product.getDescription());
-        response.setPrice(product.getPrice());
-        response.setOriginalPrice(product.getOriginalPrice());
-        response.setStatus(product.getStatus());
-        response.setCondition(product.getCondition());
-        response.setQuality(product.getCondition());  // 前端使用quality
-        response.setTransactionType(product.getTransactionType());
-        response.setViewCount(product.getViewCount());
-        response.setFavoriteCount(product.getFavoriteCount());
-        response.setCreateTime(product.getCreateTime());
-        response.setUpdateTime(product.getUpdateTime());
-        
-        // 格式化时间为前端需要的格式
-        if (product.getCreateTime() != null) {
-            response.setCreatedAt(product.getCreateTime().format(DATE_TIME_FORMATTER));
-        }
-        
-        // 解析图片JSON
-        if (product.getImages() != null && !product.getImages().isEmpty()) {
-            try {
-                List<String> imageList = objectMapper.readValue(product.getImages(), new TypeReference<List<String>>() {});
-                response.setImages(imageList);
-            } catch (Exception e) {
-                log.error("解析商品图片JSON失败: {}", product.getImages(), e);
-                response.setImages(new ArrayList<>());
-            }
-        } else {
-            response.setImages(new ArrayList<>());
-        }
-        
-        // 转换交易方式
-        response.setTradeMethod(getTradeMethodText(product.getTransactionType()));
-        
-        // 获取用户信息
-        User user = userMapper.findById(product.getUserId());
-        if (user != null) {
-            response.setUsername(user.getUsername());
-            response.setUserDepartment(user.getDepartment());
-        }
-        
-        return response;
-    }
-    
-    private String getTradeMethodText(Integer transactionType) {
-        if (transactionType == null) {
-            return "";
-        }
-        switch (transactionType) {
-            case 0: return "面交";
-            case 1: return "邮寄";
-            case 2: return "均可";
-            default: return "";
-        }
-    }
-
     /**
      * 商品下架
      */
@@ -263,6 +247,7 @@ public class AdminService {
         }
 
         productMapper.updateStatus(productId, 2, LocalDateTime.now());
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, ProductChangedEvent.Type.STATUS_CHANGED));
         log.info("管理员下架商品: {}", productId);
     }
 
@@ -277,6 +262,7 @@ public class AdminService {
         }
 
         productMapper.deleteById(productId);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, ProductChangedEvent.Type.DELETED));
         log.info("管理员删除商品: {}", productId);
     }
 
@@ -293,19 +279,10 @@ public class AdminService {
 
         int offset = (pageNum - 1) * pageSize;
 
-        // 这里需要添加查询所有订单的方法
-        List<Order> orders = orderMapper.listBuyerOrders(null, status, offset, pageSize);
-        Long total = orderMapper.countBuyerOrders(null, status);
-
-        List<OrderResponse> responseList = orders.stream()
-                .map(order -> {
-                    OrderResponse response = new OrderResponse();
-                    BeanUtils.copyProperties(order, response);
-                    return response;
-                })
-                .collect(Collectors.toList());
+        List<Order> orders = orderMapper.listAllOrders(status, offset, pageSize);
+        Long total = orderMapper.countAllOrders(status);
 
-        return new PageResult<>(responseList, pageNum, pageSize, total);
+        return new PageResult<>(orderService.toResponses(orders), pageNum, pageSize, total);
     }
 
     /**
@@ -316,10 +293,32 @@ public class AdminService {
         if (order == null) {
             throw new BusinessException("订单不存在");
         }
-        
-        OrderResponse response = new OrderResponse();
-        BeanUtils.copyProperties(order, response);
-        return response;
+
+        return orderService.toResponses(List.of(order)).get(0);
+    }
+
+    /**
+     * 订单状态流水，并按状态机重放校验与当前状态是否一致
+     */
+    public Map<String, Object> getOrderEvents(Long orderId) {
+        Order order = orderMapper.findById(orderId);
+        if (order == null) {
+            throw new BusinessException("订单不存在");
+        }
+
+        List<OrderEvent> events = orderStateMachine.history(orderId);
+        Map<String, Object> result = new HashMap<>();
+        result.put("events", events);
+        result.put("currentStatus", order.getStatus());
+        try {
+            Integer replayed = orderStateMachine.replay(events);
+            result.put("replayedStatus", replayed);
+            result.put("consistent", order.getStatus().equals(replayed));
+        } catch (IllegalStateException e) {
+            result.put("replayError", e.getMessage());
+            result.put("consistent", false);
+        }
+        return result;
     }
 
     /**
@@ -419,23 +418,11 @@ public class AdminService {
     // ========== 分类管理 ==========
 
     public List<Category> getCategoryTree() {
-        List<Category> allCategories = categoryMapper.findAll();
-        // 设置level和sort字段
-        for (Category category : allCategories) {
-            category.setLevel(category.getParentId() == 0 ? 1 : 2);
-            category.setSort(category.getSortOrder());
-        }
-        return buildCategoryTree(allCategories, 0L);
+        return categoryCache.get().tree();
     }
 
     public List<Category> getCategoryList() {
-        List<Category> allCategories = categoryMapper.findAll();
-        // 设置level和sort字段
-        for (Category category : allCategories) {
-            category.setLevel(category.getParentId() == 0 ? 1 : 2);
-            category.setSort(category.getSortOrder());
-        }
-        return allCategories;
+        return categoryCache.get().list();
     }
 
     @Transactional
@@ -447,6 +434,7 @@ public class AdminService {
         category.setStatus(request.getStatus() != null ? request.getStatus() : 1);
         category.setCreateTime(LocalDateTime.now());
         categoryMapper.insert(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(category.getId()));
     }
 
     @Transactional
@@ -460,6 +448,7 @@ public class AdminService {
         category.setSortOrder(request.getSort() != null ? request.getSort() : 0);
         category.setStatus(request.getStatus() != null ? request.getStatus() : 1);
         categoryMapper.update(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
     }
 
     @Transactional
@@ -475,18 +464,13 @@ public class AdminService {
             throw new BusinessException("该分类下存在商品，无法删除");
         }
         categoryMapper.deleteById(id);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
     }
 
     @Transactional
     public void updateCategoryStatus(Long id, Integer status) {
         categoryMapper.updateStatus(id, status);
-    }
-
-    private List<Category> buildCategoryTree(List<Category> allCategories, Long parentId) {
-        return allCategories.stream()
-                .filter(cat -> cat.getParentId().equals(parentId))
-                .peek(cat -> cat.setChildren(buildCategoryTree(allCategories, cat.getId())))
-                .collect(Collectors.toList());
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
     }
 
     // ========== 统计报表 ==========
@@ -625,17 +609,99 @@ public class AdminService {
         return rank;
     }
 
+    /**
+     * 热门商品
+     * 未指定日期时返回最新的时间衰减热度榜；指定日期时按区间内浏览、收藏、下单次数加权排序（只保留最近 30 天的明细）
+     */
     public List<Map<String, Object>> getHotProducts(String startDate, String endDate) {
+        boolean ranged = (startDate != null && !startDate.isEmpty()) || (endDate != null && !endDate.isEmpty());
+        List<HotSnapshot.Item> items;
+        if (ranged) {
+            LocalDate endD = (endDate != null && !endDate.isEmpty()) ? LocalDate.parse(endDate) : LocalDate.now();
+            LocalDate startD = (startDate != null && !startDate.isEmpty()) ? LocalDate.parse(startDate) : endD.minusDays(7);
+            items = trendingService.rangeTop(startD, endD, HOT_LIMIT);
+        } else {
+            items = trendingService.getSnapshot().getProducts();
+        }
+
+        List<Long> ids = items.stream().map(HotSnapshot.Item::getId).collect(Collectors.toList());
+        Map<Long, Product> productMap = ids.isEmpty() ? new HashMap<>() : productMapper.findCardsByIds(ids).stream()
+                .collect(Collectors.toMap(Product::getId, p -> p));
+
         List<Map<String, Object>> products = new ArrayList<>();
-        // 查询热门商品（按浏览量排序）
-        List<Product> allProducts = productMapper.listProducts(null, null, null, null, null, 1, null, "view_count", "desc", 0, 10);
-        for (Product product : allProducts) {
+        for (HotSnapshot.Item item : items) {
+            Product product = productMap.get(item.getId());
+            if (product == null) {
+                continue;
+            }
             Map<String, Object> map = new HashMap<>();
+            map.put("productId", product.getId());
             map.put("name", product.getTitle());
-            map.put("viewCount", product.getViewCount());
-            map.put("favoriteCount", product.getFavoriteCount());
+            map.put("score", Math.round(item.getScore() * 100) / 100.0);
+            // 区间榜展示区间内的次数，衰减榜展示累计次数
+            map.put("viewCount", ranged ? item.getViewCount() : product.getViewCount());
+            map.put("favoriteCount", ranged ? item.getFavoriteCount() : product.getFavoriteCount());
+            if (ranged) {
+                map.put("orderCount", item.getOrderCount());
+            }
             products.add(map);
+            if (products.size() >= HOT_LIMIT) {
+                break;
+            }
         }
         return products;
     }
+
+    /**
+     * 热门分类（时间衰减热度）
+     */
+    public List<Map<String, Object>> getHotCategories() {
+        CategorySnapshot snapshot = categoryCache.get();
+        List<Map<String, Object>> categories = new ArrayList<>();
+        for (HotSnapshot.Item item : trendingService.getSnapshot().getCategories()) {
+            if (!snapshot.contains(item.getId())) {
+                continue;
+            }
+            Map<String, Object> map = new HashMap<>();
+            map.put("categoryId", item.getId());
+            map.put("name", snapshot.name(item.getId()));
+            map.put("score", Math.round(item.getScore() * 100) / 100.0);
+            categories.add(map);
+            if (categories.size() >= HOT_LIMIT) {
+                break;
+            }
+        }
+        return categories;
+    }
+
+    /**
+     * 商品列表结果缓存与详情缓存统计
+     */
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("productList", productListCache.stats());
+        stats.put("productDetail", productDetailCache.stats());
+        stats.put("productCardFragment", productCardFragmentCache.stats());
+        stats.put("favoriteSet", favoriteSetCache.stats());
+        stats.put("orderTimeout", orderTimeoutService.stats());
+        return stats;
+    }
+
+    /**
+     * SQL 形状统计
+     */
+    public List<Map<String, Object>> getSqlShapes(Integer top) {
+        return queryProfileService.topShapeStats(top == null || top < 1 ? 20 : top);
+    }
+
+    public void resetSqlShapes() {
+        queryProfileService.reset();
+    }
+
+    /**
+     * 索引建议
+     */
+    public Map<String, Object> getIndexAdvice(Integer top) {
+        return indexAdvisorService.advise(top == null || top < 1 ? 10 : top);
+    }
 }
@@ -0,0 +1,53 @@
+package com.modestcyber.service;
+
+import com.modestcyber.event.CategoryChangedEvent;
+import com.modestcyber.mapper.CategoryMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 分类快照持有者
+ * 读取方拿到的始终是一份完整的不可变快照；只有管理端的分类增删改、启停会触发重建，
+ * 重建在事务提交后进行，构建好新快照后整体替换引用
+ */
+@Slf4j
+@Service
+public class CategoryCache {
+
+    @Autowired
+    private CategoryMapper categoryMapper;
+
+    private final AtomicReference<CategorySnapshot> snapshot = new AtomicReference<>();
+
+    /**
+     * 当前快照，首次访问时从数据库加载
+     */
+    public CategorySnapshot get() {
+        CategorySnapshot current = snapshot.get();
+        return current != null ? current : load();
+    }
+
+    /**
+     * 分类变更（事务提交后）：重新加载并替换快照
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        reload();
+    }
+
+    public synchronized CategorySnapshot reload() {
+        CategorySnapshot rebuilt = CategorySnapshot.of(categoryMapper.findAll());
+        snapshot.set(rebuilt);
+        log.info("分类快照已重建: {} 个分类", rebuilt.size());
+        return rebuilt;
+    }
+
+    private synchronized CategorySnapshot load() {
+        CategorySnapshot current = snapshot.get();
+        return current != null ? current : reload();
+    }
+}
@@ -0,0 +1,195 @@
+package com.modestcyber.service;
+
+import com.modestcyber.pojo.Category;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 分类快照（不可变）
+ * 一次全量加载构建：ID→节点、子节点数组、每个节点的子孙集合（含自身）均预先算好，
+ * 对外返回的 Category 一律是新建的副本，调用方修改不会影响快照
+ */
+public final class CategorySnapshot {
+
+    private static final long[] NO_CHILDREN = new long[0];
+
+    private final Map<Long, Node> nodes;
+    private final long[] roots;
+    private final List<Long> order;  // 与库中 ORDER BY parent_id, sort_order 一致
+
+    private static final class Node {
+        private final Category category;
+        private final int level;
+        private final long[] children;
+        private final Set<Long> descendants;
+
+        private Node(Category category, int level, long[] children, Set<Long> descendants) {
+            this.category = category;
+            this.level = level;
+            this.children = children;
+            this.descendants = descendants;
+        }
+    }
+
+    private CategorySnapshot(Map<Long, Node> nodes, long[] roots, List<Long> order) {
+        this.nodes = nodes;
+        this.roots = roots;
+        this.order = order;
+    }
+
+    /**
+     * 由全量分类构建快照，O(n)；父分类不存在的节点只出现在列表中，不挂到树上
+     */
+    public static CategorySnapshot of(List<Category> categories) {
+        Map<Long, Category> byId = new HashMap<>();
+        Map<Long, List<Long>> childrenOf = new HashMap<>();
+        List<Long> order = new ArrayList<>(categories.size());
+        for (Category category : categories) {
+            byId.put(category.getId(), copy(category));
+            order.add(category.getId());
+            Long parentId = category.getParentId() != null ? category.getParentId() : 0L;
+            childrenOf.computeIfAbsent(parentId, k -> new ArrayList<>()).add(category.getId());
+        }
+
+        // 自顶向下求层级，再按相反顺序自底向上合并子孙集合
+        Map<Long, Integer> levels = new HashMap<>();
+        List<Long> visited = new ArrayList<>(categories.size());
+        Deque<Long> stack = new ArrayDeque<>(childrenOf.getOrDefault(0L, Collections.emptyList()));
+        stack.forEach(id -> levels.put(id, 1));
+        while (!stack.isEmpty()) {
+            Long id = stack.pop();
+            visited.add(id);
+            for (Long childId : childrenOf.getOrDefault(id, Collections.emptyList())) {
+                if (levels.putIfAbsent(childId, levels.get(id) + 1) == null) {
+                    stack.push(childId);
+                }
+            }
+        }
+
+        Map<Long, Set<Long>> descendants = new HashMap<>();
+        for (int i = visited.size() - 1; i >= 0; i--) {
+            Long id = visited.get(i);
+            Set<Long> set = new LinkedHashSet<>();
+            set.add(id);
+            for (Long childId : childrenOf.getOrDefault(id, Collections.emptyList())) {
+                Set<Long> childSet = descendants.get(childId);
+                if (childSet != null) {
+                    set.addAll(childSet);
+                }
+            }
+            descendants.put(id, Collections.unmodifiableSet(set));
+        }
+
+        Map<Long, Node> nodes = new HashMap<>();
+        for (Map.Entry<Long, Category> entry : byId.entrySet()) {
+            Long id = entry.getKey();
+            Category category = entry.getValue();
+            // 不在树上的孤立节点按原有规则取层级
+            int level = levels.getOrDefault(id, category.getParentId() == null || category.getParentId() == 0 ? 1 : 2);
+            long[] children = levels.containsKey(id) ? toArray(childrenOf.get(id)) : NO_CHILDREN;
+            Set<Long> subtree = descendants.getOrDefault(id, Collections.singleton(id));
+            nodes.put(id, new Node(category, level, children, subtree));
+        }
+        return new CategorySnapshot(nodes, toArray(childrenOf.get(0L)), Collections.unmodifiableList(order));
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public boolean contains(Long id) {
+        return id != null && nodes.containsKey(id);
+    }
+
+    /**
+     * 分类名称，分类不存在时返回 null
+     */
+    public String name(Long id) {
+        Node node = id != null ? nodes.get(id) : null;
+        return node != null ? node.category.getName() : null;
+    }
+
+    /**
+     * 父分类ID，顶级分类为 0，分类不存在时返回 null
+     */
+    public Long parentId(Long id) {
+        Node node = id != null ? nodes.get(id) : null;
+        return node != null ? node.category.getParentId() : null;
+    }
+
+    /**
+     * 分类自身及其全部子孙分类的ID（不可修改），分类不存在时返回空集合
+     */
+    public Set<Long> descendantIds(Long id) {
+        Node node = id != null ? nodes.get(id) : null;
+        return node != null ? node.descendants : Collections.emptySet();
+    }
+
+    /**
+     * 分类树（每次返回新建的副本）
+     */
+    public List<Category> tree() {
+        return buildTree(roots);
+    }
+
+    /**
+     * 扁平分类列表（每次返回新建的副本）
+     */
+    public List<Category> list() {
+        List<Category> list = new ArrayList<>(order.size());
+        for (Long id : order) {
+            list.add(view(nodes.get(id)));
+        }
+        return list;
+    }
+
+    private List<Category> buildTree(long[] ids) {
+        List<Category> list = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Node node = nodes.get(id);
+            Category category = view(node);
+            category.setChildren(buildTree(node.children));
+            list.add(category);
+        }
+        return list;
+    }
+
+    private static Category view(Node node) {
+        Category category = copy(node.category);
+        category.setLevel(node.level);
+        category.setSort(node.category.getSortOrder());
+        return category;
+    }
+
+    private static Category copy(Category source) {
+        Category category = new Category();
+        category.setId(source.getId());
+        category.setName(source.getName());
+        category.setParentId(source.getParentId());
+        category.setLevel(source.getLevel());
+        category.setSort(source.getSort());
+        category.setSortOrder(source.getSortOrder());
+        category.setStatus(source.getStatus());
+        category.setCreateTime(source.getCreateTime());
+        return category;
+    }
+
+    private static long[] toArray(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return NO_CHILDREN;
+        }
+        long[] array = new long[ids.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = ids.get(i);
+        }
+        return array;
+    }
+}
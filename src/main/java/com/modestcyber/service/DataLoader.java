@@ -0,0 +1,98 @@
+package com.modestcyber.service;
+
+import com.modestcyber.mapper.ProductMapper;
+import com.modestcyber.mapper.UserMapper;
+import com.modestcyber.pojo.Product;
+import com.modestcyber.pojo.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 请求级批量加载器（DataLoader）
+ * 逐行组装响应前先登记需要的用户/商品ID，第一次取值时把已登记且未加载的ID合并成一条 IN 查询，
+ * 查到的（以及查不到的）结果在本次请求内缓存。状态保存在 ThreadLocal 中，由 JwtInterceptor 在请求结束时清理；
+ * 请求线程之外使用时调用方须自行 clear()
+ */
+@Component
+public class DataLoader {
+
+    private static final ThreadLocal<Batch> BATCH = ThreadLocal.withInitial(Batch::new);
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    private static final class Batch {
+        private final Keys<User> users = new Keys<>();
+        private final Keys<Product> products = new Keys<>();
+    }
+
+    private static final class Keys<V> {
+        private final Map<Long, V> loaded = new HashMap<>();  // 查不到的ID也记录（值为 null），不重复查询
+        private final Set<Long> pending = new LinkedHashSet<>();
+
+        private void register(Long id) {
+            if (id != null && !loaded.containsKey(id)) {
+                pending.add(id);
+            }
+        }
+    }
+
+    public void registerUser(Long id) {
+        BATCH.get().users.register(id);
+    }
+
+    public void registerProduct(Long id) {
+        BATCH.get().products.register(id);
+    }
+
+    /**
+     * 用户，不存在时返回 null
+     */
+    public User user(Long id) {
+        return load(BATCH.get().users, id, userMapper::findByIds, User::getId);
+    }
+
+    /**
+     * 商品卡片列（含封面图），不存在时返回 null
+     */
+    public Product product(Long id) {
+        return load(BATCH.get().products, id, productMapper::findCardsByIds, Product::getId);
+    }
+
+    /**
+     * 清理当前线程的批次与缓存
+     */
+    public static void clear() {
+        BATCH.remove();
+    }
+
+    private <V> V load(Keys<V> keys, Long id, Function<Collection<Long>, List<V>> fetch, Function<V, Long> idOf) {
+        if (id == null) {
+            return null;
+        }
+        if (!keys.loaded.containsKey(id)) {
+            keys.pending.add(id);
+            List<Long> ids = new ArrayList<>(keys.pending);
+            keys.pending.clear();
+            for (Long pendingId : ids) {
+                keys.loaded.put(pendingId, null);
+            }
+            for (V value : fetch.apply(ids)) {
+                keys.loaded.put(idOf.apply(value), value);
+            }
+        }
+        return keys.loaded.get(id);
+    }
+}
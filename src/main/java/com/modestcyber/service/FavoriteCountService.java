@@ -0,0 +1,173 @@
+package com.modestcyber.service;
+
+import com.modestcyber.mapper.ProductMapper;
+import com.modestcyber.util.DeltaCounter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 商品收藏量计数服务
+ * 收藏/取消收藏提交后只在内存中累加增量，定时合并成一条 UPDATE ... CASE 批量落库，热门商品不再每次点击都锁一次商品行；
+ * 展示的收藏量为库中的值加上尚未落库的增量。另有定时对账按收藏表分段重算 favorite_count，修正任何原因造成的偏差
+ */
+@Slf4j
+@Service
+public class FavoriteCountService {
+
+    private static final int FLUSH_BATCH_SIZE = 500;
+    private static final long COMMIT_WAIT_MS = 1000;  // 收藏事务提交前等待对账段结束的上限
+
+    @Value("${favorite-counter.reconcile-chunk-size:1000}")
+    private int reconcileChunkSize;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ProductDetailCache productDetailCache;
+
+    private final DeltaCounter counter = new DeltaCounter();
+
+    // 收藏事务从提交到记入增量期间持有读锁，对账段（落库 + 重算）持有写锁：
+    // 否则在 flush() 之后、重算之前提交的收藏既被重算计入，增量又在之后落库一次
+    private final ReadWriteLock reconcileLock = new ReentrantReadWriteLock();
+
+    /**
+     * 在当前事务提交后记录收藏量增量（无事务时立即记录），回滚的收藏不计入
+     */
+    public void addAfterCommit(Long productId, long delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            counter.add(productId, delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean locked;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // 限时等待：对账语句若在等收藏事务持有的行锁，不能让提交无限期卡住，超时后照常提交，偏差留给下次对账
+                try {
+                    locked = reconcileLock.readLock().tryLock(COMMIT_WAIT_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (!locked) {
+                    log.debug("等待收藏量对账超时，商品 {} 的增量不与对账互斥", productId);
+                }
+            }
+
+            @Override
+            public void afterCommit() {
+                counter.add(productId, delta);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (locked) {
+                    reconcileLock.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * 尚未落库的收藏量增量
+     */
+    public long pending(Long productId) {
+        return counter.pending(productId);
+    }
+
+    /**
+     * 定时落库；每批最多 500 件商品一条语句，失败的批次放回下次重试
+     */
+    @Scheduled(fixedDelayString = "${favorite-counter.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        Map<Long, Long> drained = counter.drain();
+        if (drained.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> batch = new LinkedHashMap<>();
+        for (Map.Entry<Long, Long> entry : drained.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            if (batch.size() >= FLUSH_BATCH_SIZE) {
+                write(batch);
+                batch = new LinkedHashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    /**
+     * 定时对账：按商品ID分段，每段一条 UPDATE ... JOIN (GROUP BY product_id)，单条语句只锁一段商品行；
+     * 每段之前先落库内存增量，避免把已计入收藏表的增量再加一次；落库到重算期间收藏事务暂缓提交
+     */
+    @Scheduled(initialDelayString = "${favorite-counter.reconcile-initial-delay-ms:60000}",
+            fixedDelayString = "${favorite-counter.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        long start = System.currentTimeMillis();
+        long maxId = productMapper.findMaxId();
+        int fixed = 0;
+        for (long fromId = 1; fromId <= maxId; fromId += reconcileChunkSize) {
+            long toId = fromId + reconcileChunkSize - 1;
+            fixed += reconcileChunk(fromId, toId);
+        }
+        log.info("收藏量对账完成: 修正 {} 件商品，耗时 {} ms", fixed, System.currentTimeMillis() - start);
+    }
+
+    private synchronized int reconcileChunk(long fromId, long toId) {
+        reconcileLock.writeLock().lock();
+        try {
+            flush();
+            // 持有写锁期间收藏表不会再有提交，先查出的偏差ID即为下面 UPDATE 修正的行，只失效这些商品的详情
+            List<Long> drifted = productMapper.findFavoriteCountDrift(fromId, toId);
+            if (drifted.isEmpty()) {
+                return 0;
+            }
+            int fixed = productMapper.reconcileFavoriteCounts(fromId, toId);
+            drifted.forEach(productDetailCache::invalidate);
+            return fixed;
+        } catch (RuntimeException e) {
+            log.warn("收藏量对账失败，商品ID {}-{} 留待下次: {}", fromId, toId, e.getMessage());
+            return 0;
+        } finally {
+            reconcileLock.writeLock().unlock();
+        }
+    }
+
+    private void write(Map<Long, Long> batch) {
+        try {
+            productMapper.addFavoriteCounts(batch);
+            // 详情缓存中的收藏量是库中旧值，落库后失效，下次读取时回源
+            batch.keySet().forEach(productDetailCache::invalidate);
+        } catch (RuntimeException e) {
+            counter.restore(batch);
+            log.warn("收藏量落库失败，{} 件商品的增量留待下次重试: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 应用关闭前把剩余的增量落库
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (counter.size() > 0) {
+            log.info("收藏量计数器关闭，剩余 {} 件商品未落库", counter.size());
+        }
+    }
+}
@@ -1,29 +1,25 @@
 package com.modestcyber.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.modestcyber.common.CountMode;
+import com.modestcyber.common.PageCursor;
 import com.modestcyber.common.PageResult;
 import com.modestcyber.context.UserContext;
-import com.modestcyber.dto.response.ProductResponse;
+import com.modestcyber.dto.response.ProductCardResponse;
 import com.modestcyber.exception.BusinessException;
-import com.modestcyber.mapper.CategoryMapper;
 import com.modestcyber.mapper.FavoriteMapper;
 import com.modestcyber.mapper.ProductMapper;
-import com.modestcyber.mapper.UserMapper;
-import com.modestcyber.pojo.Category;
 import com.modestcyber.pojo.Favorite;
 import com.modestcyber.pojo.Product;
-import com.modestcyber.pojo.User;
+import com.modestcyber.util.LongHashSet;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * 收藏服务
@@ -32,6 +28,9 @@ import java.util.stream.Collectors;
 @Service
 public class FavoriteService {
 
+    private static final String CURSOR_SORT = "favorite_time";
+    private static final int MAX_FLAG_IDS = 200;
+
     @Autowired
     private FavoriteMapper favoriteMapper;
 
@@ -40,17 +39,21 @@ public class FavoriteService {
 
     @Autowired
     private ProductService productService;
-    
+
+    @Autowired
+    private ProductResponseAssembler productResponseAssembler;
+
     @Autowired
-    private UserMapper userMapper;
-    
+    private PagingService pagingService;
+
+    @Autowired
+    private TrendingService trendingService;
+
     @Autowired
-    private CategoryMapper categoryMapper;
-    
+    private FavoriteCountService favoriteCountService;
+
     @Autowired
-    private ObjectMapper objectMapper;
-    
-    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private FavoriteSetCache favoriteSetCache;
 
     /**
      * 添加收藏
@@ -68,21 +71,19 @@ public class FavoriteService {
             throw new BusinessException("商品不存在");
         }
 
-        // 检查是否已收藏
-        int count = favoriteMapper.existsByUserIdAndProductId(userId, productId);
-        if (count > 0) {
-            throw new BusinessException("已收藏该商品");
-        }
-
-        // 添加收藏
+        // 添加收藏（唯一键去重，并发重复收藏只有一次生效）
         Favorite favorite = new Favorite();
         favorite.setUserId(userId);
         favorite.setProductId(productId);
         favorite.setCreateTime(LocalDateTime.now());
-        favoriteMapper.insert(favorite);
+        if (favoriteMapper.insert(favorite) == 0) {
+            throw new BusinessException("已收藏该商品");
+        }
 
-        // 增加商品收藏量
-        productMapper.incrementFavoriteCount(productId);
+        // 增加商品收藏量（提交后内存累加，定时批量落库）
+        favoriteCountService.addAfterCommit(productId, 1);
+        favoriteSetCache.addAfterCommit(userId, productId);
+        trendingService.recordAfterCommit(product, TrendingService.Action.FAVORITE);
 
         log.info("用户 {} 收藏商品: {}", userId, productId);
     }
@@ -97,25 +98,43 @@ public class FavoriteService {
             throw new BusinessException(401, "请先登录");
         }
 
-        // 检查是否已收藏
-        int count = favoriteMapper.existsByUserIdAndProductId(userId, productId);
-        if (count == 0) {
+        // 删除收藏，以实际删除的行数为准
+        if (favoriteMapper.delete(userId, productId) == 0) {
             throw new BusinessException("未收藏该商品");
         }
 
-        // 删除收藏
-        favoriteMapper.delete(userId, productId);
-
-        // 减少商品收藏量
-        productMapper.decrementFavoriteCount(productId);
+        // 减少商品收藏量（提交后内存累加，定时批量落库）
+        favoriteCountService.addAfterCommit(productId, -1);
+        favoriteSetCache.removeAfterCommit(userId, productId);
 
         log.info("用户 {} 取消收藏商品: {}", userId, productId);
     }
 
+    /**
+     * 批量查询当前用户对一组商品的收藏状态（未登录时全部为 false）
+     */
+    public Map<Long, Boolean> getFavoriteFlags(List<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        if (productIds.size() > MAX_FLAG_IDS) {
+            throw new BusinessException("一次最多查询" + MAX_FLAG_IDS + "个商品");
+        }
+        LongHashSet favorites = favoriteSetCache.get(UserContext.getUserId());
+        Map<Long, Boolean> flags = new LinkedHashMap<>();
+        for (Long productId : productIds) {
+            if (productId != null) {
+                flags.put(productId, favorites.contains(productId));
+            }
+        }
+        return flags;
+    }
+
     /**
      * 收藏列表
+     * after 不为 null 时使用游标分页（空串表示第一页），按 (收藏时间, 商品ID) 定位，不统计总数
      */
-    public PageResult<ProductResponse> listFavorites(Integer pageNum, Integer pageSize) {
+    public PageResult<ProductCardResponse> listFavorites(Integer pageNum, Integer pageSize, String after, CountMode countMode) {
         Long userId = UserContext.getUserId();
         if (userId == null) {
             throw new BusinessException(401, "请先登录");
@@ -128,80 +147,31 @@ public class FavoriteService {
             pageSize = 10;
         }
 
-        int offset = (pageNum - 1) * pageSize;
-
-        List<Product> products = favoriteMapper.listFavoriteProducts(userId, offset, pageSize);
-        Long total = favoriteMapper.countFavorites(userId);
-
-        List<ProductResponse> responseList = products.stream()
-                .map(this::convertToProductResponse)
-                .collect(Collectors.toList());
-
-        return new PageResult<>(responseList, pageNum, pageSize, total);
-    }
-    
-    /**
-     * 转换Product到ProductResponse
-     */
-    private ProductResponse convertToProductResponse(Product product) {
-        ProductResponse response = new ProductResponse();
-        
-        // 基本字段复制
-        response.setId(product.getId());
-        response.setUserId(product.getUserId());
-        response.setCategoryId(product.getCategoryId());
-        response.setTitle(product.getTitle());
-        response.setName(product.getTitle());
-        response.setDescription(product.getDescription());
-        response.setPrice(product.getPrice());
-        response.setOriginalPrice(product.getOriginalPrice());
-        response.setStatus(product.getStatus());
-        response.setCondition(product.getCondition());
-        response.setQuality(product.getCondition());
-        response.setTransactionType(product.getTransactionType());
-        response.setViewCount(product.getViewCount());
-        response.setFavoriteCount(product.getFavoriteCount());
-        response.setCreateTime(product.getCreateTime());
-        response.setUpdateTime(product.getUpdateTime());
-        response.setIsFavorite(true);
-        
-        // 格式化时间
-        if (product.getCreateTime() != null) {
-            response.setCreatedAt(product.getCreateTime().format(DATE_TIME_FORMATTER));
-        }
-        
-        // 解析图片JSON
-        if (product.getImages() != null && !product.getImages().isEmpty()) {
-            try {
-                List<String> imageList = objectMapper.readValue(product.getImages(), new TypeReference<List<String>>() {});
-                response.setImages(imageList);
-            } catch (Exception e) {
-                log.error("解析商品图片JSON失败: {}", product.getImages(), e);
-                response.setImages(new ArrayList<>());
+        if (after != null) {
+            LocalDateTime cursorTime = null;
+            Long cursorId = null;
+            if (!after.isEmpty()) {
+                PageCursor cursor = PageCursor.decode(after, CURSOR_SORT);
+                try {
+                    cursorTime = LocalDateTime.parse(cursor.getValue());
+                } catch (RuntimeException e) {
+                    throw new BusinessException("分页游标无效");
+                }
+                cursorId = cursor.getId();
             }
-        } else {
-            response.setImages(new ArrayList<>());
-        }
-        
-        // 获取用户信息
-        User user = userMapper.findById(product.getUserId());
-        if (user != null) {
-            response.setUsername(user.getUsername());
-            response.setUserDepartment(user.getDepartment());
-        }
-        
-        // 获取分类信息
-        if (product.getCategoryId() != null) {
-            Category category = categoryMapper.findById(product.getCategoryId());
-            if (category != null) {
-                response.setCategoryName(category.getName());
-            } else {
-                response.setCategoryName("未分类");
+            List<Product> products = favoriteMapper.listFavoriteProducts(userId, cursorTime, cursorId, 0, pageSize + 1, false);
+            String nextCursor = null;
+            if (products.size() > pageSize) {
+                products = products.subList(0, pageSize);
+                Product last = products.get(pageSize - 1);
+                nextCursor = new PageCursor(CURSOR_SORT, last.getFavoriteTime().toString(), last.getId()).encode();
             }
-        } else {
-            response.setCategoryName("未分类");
+            return PageResult.ofCursor(productResponseAssembler.toFavoriteCards(products), pageSize, nextCursor);
         }
-        
-        return response;
+
+        return pagingService.page(countMode, "favorite:" + userId, pageNum, pageSize,
+                (offset, limit, withTotal) -> favoriteMapper.listFavoriteProducts(userId, null, null, offset, limit, withTotal),
+                () -> favoriteMapper.countFavorites(userId),
+                productResponseAssembler::toFavoriteCards);
     }
 }
@@ -0,0 +1,148 @@
+package com.modestcyber.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.modestcyber.mapper.FavoriteMapper;
+import com.modestcyber.util.LongHashSet;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 用户收藏集合缓存
+ * 每个用户的已收藏商品ID存成一个 LongHashSet，首次用到时从 favorite 表整体加载，按条目数和空闲时间淘汰；
+ * 集合发布后不再修改，收藏/取消收藏在事务提交后复制一份改好再整体替换，读取方无需加锁。
+ * 增量只在本实例生效，其他实例的收藏或直接改库不会通知到这里，因此自加载起最长 expire-seconds 后强制重新加载，
+ * 期间的增量替换不顺延这个期限
+ */
+@Slf4j
+@Service
+public class FavoriteSetCache {
+
+    private static final LongHashSet EMPTY = new LongHashSet(0);
+
+    @Value("${cache.favorite-set.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${cache.favorite-set.idle-seconds:1800}")
+    private long idleSeconds;
+
+    @Value("${cache.favorite-set.expire-seconds:600}")
+    private long expireSeconds;
+
+    @Autowired
+    private FavoriteMapper favoriteMapper;
+
+    private Cache<Long, Favorites> cache;
+
+    /**
+     * 收藏集合及其从库中加载的时刻（System.nanoTime，与 Caffeine 默认时钟一致）
+     */
+    private record Favorites(LongHashSet ids, long loadedAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        long idleNanos = Duration.ofSeconds(idleSeconds).toNanos();
+        long expireNanos = Duration.ofSeconds(expireSeconds).toNanos();
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<Long, Favorites>() {
+                    @Override
+                    public long expireAfterCreate(Long userId, Favorites favorites, long currentTime) {
+                        return Math.min(idleNanos, remaining(favorites, currentTime));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long userId, Favorites favorites, long currentTime, long currentDuration) {
+                        return Math.min(idleNanos, remaining(favorites, currentTime));
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long userId, Favorites favorites, long currentTime, long currentDuration) {
+                        return Math.min(idleNanos, remaining(favorites, currentTime));
+                    }
+
+                    private long remaining(Favorites favorites, long currentTime) {
+                        return Math.max(0, expireNanos - (currentTime - favorites.loadedAt()));
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 用户收藏的商品ID集合（只读），未登录时为空集合
+     */
+    public LongHashSet get(Long userId) {
+        if (userId == null) {
+            return EMPTY;
+        }
+        return cache.get(userId, id -> new Favorites(LongHashSet.of(favoriteMapper.findProductIdsByUserId(id)),
+                System.nanoTime())).ids();
+    }
+
+    public boolean contains(Long userId, Long productId) {
+        return productId != null && get(userId).contains(productId);
+    }
+
+    /**
+     * 收藏：当前事务提交后加入集合（无事务时立即加入）
+     */
+    public void addAfterCommit(Long userId, Long productId) {
+        afterCommit(() -> cache.asMap().computeIfPresent(userId, (id, favorites) -> {
+            LongHashSet copy = favorites.ids().copy();
+            copy.add(productId);
+            return new Favorites(copy, favorites.loadedAt());
+        }));
+    }
+
+    /**
+     * 取消收藏：当前事务提交后移出集合（无事务时立即移出）
+     */
+    public void removeAfterCommit(Long userId, Long productId) {
+        afterCommit(() -> cache.asMap().computeIfPresent(userId, (id, favorites) -> {
+            LongHashSet copy = favorites.ids().copy();
+            copy.remove(productId);
+            return new Favorites(copy, favorites.loadedAt());
+        }));
+    }
+
+    /**
+     * 缓存统计
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> map = new HashMap<>();
+        map.put("size", cache.estimatedSize());
+        map.put("hitCount", stats.hitCount());
+        map.put("missCount", stats.missCount());
+        map.put("hitRate", stats.hitRate());
+        map.put("evictionCount", stats.evictionCount());
+        return map;
+    }
+
+    // 未加载的用户不必处理，下次读取时会从库中加载到最新状态
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,337 @@
+package com.modestcyber.service;
+
+import com.modestcyber.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 索引建议服务
+ * 对耗时最高的查询形状执行 EXPLAIN，结合 WHERE 中的等值/范围列和 ORDER BY 列给出联合索引建议：
+ * 等值列在前，排序列（或第一个范围列）在后，InnoDB 二级索引末尾自带主键，因此排序中的 id 不再重复列出
+ */
+@Slf4j
+@Service
+public class IndexAdvisorService {
+
+    private static final Set<String> KEYWORDS = Set.of(
+            "WHERE", "INNER", "LEFT", "RIGHT", "JOIN", "ON", "ORDER", "GROUP", "LIMIT", "HAVING", "FOR", "UNION");
+    private static final Pattern FROM = Pattern.compile("(?i)\\bFROM\\s+(`?\\w+`?)(?:\\s+(?:AS\\s+)?(\\w+))?");
+    private static final Pattern JOIN = Pattern.compile("(?i)\\bJOIN\\s+(`?\\w+`?)(?:\\s+(?:AS\\s+)?(\\w+))?");
+    private static final Pattern PREDICATE = Pattern.compile(
+            "(?i)(?<![\\w`.])(`?\\w+`?(?:\\.`?\\w+`?)?)\\s*(=|>=|<=|<>|!=|>|<|\\bIN\\s*\\(|\\bLIKE\\b)\\s*(\\S+)?");
+
+    @Autowired
+    private QueryProfileService queryProfileService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    /**
+     * 解析出的查询形状
+     */
+    private static class QueryShape {
+        private final Map<String, String> aliases = new HashMap<>();  // 别名/表名 -> 表名
+        private String mainTable;
+        private final Map<String, Set<String>> equalities = new LinkedHashMap<>();
+        private final Map<String, Set<String>> inLists = new LinkedHashMap<>();
+        private final Map<String, Set<String>> ranges = new LinkedHashMap<>();
+        private final List<String[]> orderBy = new ArrayList<>();     // [表, 列, 方向]
+    }
+
+    /**
+     * 为耗时最高的若干查询形状生成索引建议
+     */
+    public Map<String, Object> advise(int top) {
+        List<Map<String, Object>> shapes = new ArrayList<>();
+        Set<String> ddl = new LinkedHashSet<>();
+        Map<String, Map<String, List<String>>> indexCache = new HashMap<>();
+
+        try (Connection connection = dataSource.getConnection()) {
+            for (QueryProfileService.ShapeStats stats : queryProfileService.topShapes(top)) {
+                QueryProfileService.Sample sample = stats.getSample();
+                if (!stats.isSelect() || sample == null) {
+                    continue;
+                }
+                Map<String, Object> item = stats.toMap();
+                try {
+                    List<Map<String, Object>> plan = explain(connection, sample);
+                    item.put("explain", plan);
+
+                    QueryShape shape = parse(sample.sql());
+                    List<String> columns = shape != null ? recommend(shape) : new ArrayList<>();
+                    if (!columns.isEmpty() && needsIndex(plan)) {
+                        Map<String, List<String>> existing = indexCache.computeIfAbsent(shape.mainTable,
+                                table -> loadIndexes(connection, table));
+                        if (!isCovered(existing, columns)) {
+                            String statement = buildDdl(shape.mainTable, columns);
+                            item.put("recommendation", statement);
+                            ddl.add(statement);
+                        }
+                    }
+                } catch (SQLException e) {
+                    item.put("error", e.getMessage());
+                }
+                shapes.add(item);
+            }
+        } catch (SQLException e) {
+            log.error("获取数据库连接失败", e);
+            throw new BusinessException(500, "获取数据库连接失败");
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("shapes", shapes);
+        result.put("ddl", new ArrayList<>(ddl));
+        return result;
+    }
+
+    private List<Map<String, Object>> explain(Connection connection, QueryProfileService.Sample sample) throws SQLException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sample.sql())) {
+            List<Object> params = sample.params();
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("table", rs.getString("table"));
+                    row.put("type", rs.getString("type"));
+                    row.put("possibleKeys", rs.getString("possible_keys"));
+                    row.put("key", rs.getString("key"));
+                    row.put("rows", rs.getLong("rows"));
+                    row.put("extra", rs.getString("Extra"));
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 全表扫描、文件排序或临时表都说明现有索引不够用
+     */
+    private boolean needsIndex(List<Map<String, Object>> plan) {
+        for (Map<String, Object> row : plan) {
+            String extra = row.get("extra") != null ? row.get("extra").toString() : "";
+            if ("ALL".equals(row.get("type")) || row.get("key") == null
+                    || extra.contains("filesort") || extra.contains("temporary")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 读取表上已有索引：索引名 -> 按顺序的列
+     */
+    private Map<String, List<String>> loadIndexes(Connection connection, String table) {
+        Map<String, TreeMap<Integer, String>> indexes = new HashMap<>();
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SHOW INDEX FROM `" + table + "`")) {
+            while (rs.next()) {
+                indexes.computeIfAbsent(rs.getString("Key_name"), k -> new TreeMap<>())
+                        .put(rs.getInt("Seq_in_index"), rs.getString("Column_name").toLowerCase(Locale.ROOT));
+            }
+        } catch (SQLException e) {
+            log.warn("读取表 {} 的索引失败", table, e);
+        }
+        Map<String, List<String>> result = new HashMap<>();
+        indexes.forEach((name, columns) -> result.put(name, new ArrayList<>(columns.values())));
+        return result;
+    }
+
+    /**
+     * 已有索引以建议的列为前缀时无需新建
+     */
+    private boolean isCovered(Map<String, List<String>> existing, List<String> columns) {
+        for (List<String> indexColumns : existing.values()) {
+            if (indexColumns.size() >= columns.size() && indexColumns.subList(0, columns.size()).equals(columns)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String buildDdl(String table, List<String> columns) {
+        return "ALTER TABLE `" + table + "` ADD INDEX `idx_" + String.join("_", columns)
+                + "` (" + "`" + String.join("`, `", columns) + "`);";
+    }
+
+    /**
+     * 解析 SQL 中的表、谓词与排序；子查询等复杂结构返回 null
+     */
+    private QueryShape parse(String sql) {
+        String upper = sql.toUpperCase(Locale.ROOT);
+        if (upper.indexOf("SELECT", 1) > 0 || upper.contains(" UNION ")) {
+            return null;
+        }
+        QueryShape shape = new QueryShape();
+        Matcher from = FROM.matcher(sql);
+        if (!from.find()) {
+            return null;
+        }
+        shape.mainTable = registerTable(shape, from.group(1), from.group(2));
+        Matcher join = JOIN.matcher(sql);
+        while (join.find()) {
+            registerTable(shape, join.group(1), join.group(2));
+        }
+
+        int where = indexOfKeyword(upper, " WHERE ", 0);
+        int groupBy = indexOfKeyword(upper, " GROUP BY ", 0);
+        int orderBy = indexOfKeyword(upper, " ORDER BY ", 0);
+        int limit = indexOfKeyword(upper, " LIMIT ", 0);
+        if (where >= 0) {
+            int end = firstPositive(groupBy, orderBy, limit, sql.length());
+            parsePredicates(shape, sql.substring(where + 7, end));
+        }
+        if (orderBy >= 0) {
+            int end = limit > orderBy ? limit : sql.length();
+            parseOrderBy(shape, sql.substring(orderBy + 10, end));
+        }
+        return shape;
+    }
+
+    private String registerTable(QueryShape shape, String table, String alias) {
+        String name = unquote(table).toLowerCase(Locale.ROOT);
+        shape.aliases.put(name, name);
+        if (alias != null && !KEYWORDS.contains(alias.toUpperCase(Locale.ROOT))) {
+            shape.aliases.put(alias.toLowerCase(Locale.ROOT), name);
+        }
+        return name;
+    }
+
+    private void parsePredicates(QueryShape shape, String where) {
+        Matcher m = PREDICATE.matcher(where);
+        while (m.find()) {
+            String[] column = resolveColumn(shape, m.group(1));
+            if (column == null) {
+                continue;
+            }
+            String op = m.group(2).toUpperCase(Locale.ROOT).replaceAll("\\s", "");
+            String rhs = m.group(3) != null ? m.group(3) : "";
+            if (op.equals("=")) {
+                shape.equalities.computeIfAbsent(column[0], k -> new LinkedHashSet<>()).add(column[1]);
+            } else if (op.startsWith("IN")) {
+                shape.inLists.computeIfAbsent(column[0], k -> new LinkedHashSet<>()).add(column[1]);
+            } else if (op.equals("LIKE")) {
+                // 前导通配符无法利用索引
+                if (!rhs.startsWith("'%") && !rhs.toUpperCase(Locale.ROOT).startsWith("CONCAT('%'")) {
+                    shape.ranges.computeIfAbsent(column[0], k -> new LinkedHashSet<>()).add(column[1]);
+                }
+            } else if (!op.equals("<>") && !op.equals("!=")) {
+                shape.ranges.computeIfAbsent(column[0], k -> new LinkedHashSet<>()).add(column[1]);
+            }
+        }
+    }
+
+    private void parseOrderBy(QueryShape shape, String orderBy) {
+        for (String part : orderBy.split(",")) {
+            String[] tokens = part.trim().split("\\s+");
+            String[] column = resolveColumn(shape, tokens[0]);
+            if (column == null) {
+                shape.orderBy.add(new String[]{null, tokens[0], ""});
+                continue;
+            }
+            String direction = tokens.length > 1 ? tokens[1].toUpperCase(Locale.ROOT) : "ASC";
+            shape.orderBy.add(new String[]{column[0], column[1], direction});
+        }
+    }
+
+    /**
+     * 列引用解析为 [表, 列]；字面量或无法识别的别名返回 null
+     */
+    private String[] resolveColumn(QueryShape shape, String reference) {
+        String ref = unquote(reference).toLowerCase(Locale.ROOT);
+        if (ref.isEmpty() || Character.isDigit(ref.charAt(0)) || ref.equals("?")) {
+            return null;
+        }
+        int dot = ref.indexOf('.');
+        if (dot < 0) {
+            return new String[]{shape.mainTable, ref};
+        }
+        String table = shape.aliases.get(ref.substring(0, dot));
+        return table != null ? new String[]{table, ref.substring(dot + 1)} : null;
+    }
+
+    /**
+     * 生成建议的索引列：等值列 + 排序列（排序全部落在同一张表且方向一致时），否则等值列 + 第一个范围列
+     */
+    private List<String> recommend(QueryShape shape) {
+        String table = shape.mainTable;
+        if (!shape.orderBy.isEmpty() && shape.orderBy.get(0)[0] != null) {
+            table = shape.orderBy.get(0)[0];
+        }
+        shape.mainTable = table;
+
+        Set<String> ranges = shape.ranges.getOrDefault(table, new LinkedHashSet<>());
+        List<String> columns = new ArrayList<>();
+        // 单值等值列在前，IN 列表列其次
+        Set<String> equalities = new LinkedHashSet<>(shape.equalities.getOrDefault(table, new LinkedHashSet<>()));
+        equalities.addAll(shape.inLists.getOrDefault(table, new LinkedHashSet<>()));
+        for (String column : equalities) {
+            if (!ranges.contains(column) && !column.equals("id")) {
+                columns.add(column);
+            }
+        }
+
+        List<String> orderColumns = new ArrayList<>();
+        Set<String> directions = new LinkedHashSet<>();
+        boolean orderUsable = !shape.orderBy.isEmpty();
+        for (String[] order : shape.orderBy) {
+            if (!table.equals(order[0])) {
+                orderUsable = false;
+                break;
+            }
+            directions.add(order[2]);
+            if (!order[1].equals("id") && !columns.contains(order[1])) {
+                orderColumns.add(order[1]);
+            }
+        }
+        if (orderUsable && directions.size() == 1 && !orderColumns.isEmpty()) {
+            columns.addAll(orderColumns);
+        } else if (!ranges.isEmpty()) {
+            String range = ranges.iterator().next();
+            if (!range.equals("id")) {
+                columns.add(range);
+            }
+        }
+        return columns;
+    }
+
+    private int indexOfKeyword(String upper, String keyword, int from) {
+        return upper.indexOf(keyword, from);
+    }
+
+    private int firstPositive(int... positions) {
+        int min = Integer.MAX_VALUE;
+        for (int p : positions) {
+            if (p >= 0 && p < min) {
+                min = p;
+            }
+        }
+        return min;
+    }
+
+    private String unquote(String identifier) {
+        return identifier.replace("`", "");
+    }
+}
@@ -1,28 +1,36 @@
 package com.modestcyber.service;
 
+import com.modestcyber.common.CountMode;
+import com.modestcyber.common.PageCursor;
 import com.modestcyber.common.PageResult;
 import com.modestcyber.context.UserContext;
+import com.modestcyber.converter.OrderConverter;
 import com.modestcyber.dto.request.CreateOrderRequest;
 import com.modestcyber.dto.response.OrderResponse;
+import com.modestcyber.event.OrderTransitionEvent;
+import com.modestcyber.event.ProductChangedEvent;
 import com.modestcyber.exception.BusinessException;
 import com.modestcyber.mapper.OrderMapper;
 import com.modestcyber.mapper.ProductMapper;
-import com.modestcyber.mapper.UserMapper;
 import com.modestcyber.pojo.Order;
 import com.modestcyber.pojo.Product;
 import com.modestcyber.pojo.User;
+import com.modestcyber.util.SnowflakeIdGenerator;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -35,11 +43,37 @@ public class OrderService {
     @Autowired
     private OrderMapper orderMapper;
 
+    @Autowired
+    private OrderConverter orderConverter;
+
     @Autowired
     private ProductMapper productMapper;
 
     @Autowired
-    private UserMapper userMapper;
+    private PagingService pagingService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+
+    @Autowired
+    private DataLoader dataLoader;
+
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+
+    private static final String CURSOR_SORT = "create_time";
+    private static final String BUYER_COUNT_KEY = "buyerOrder:";
+    private static final String SELLER_COUNT_KEY = "sellerOrder:";
+
+    private static final Comparator<Order> TIMELINE_ORDER = Comparator.comparing(Order::getCreateTime)
+            .thenComparing(Order::getId)
+            .reversed();
 
     private static final Map<Integer, String> STATUS_MAP = new HashMap<>();
     private static final Map<Integer, String> TRANSACTION_TYPE_MAP = new HashMap<>();
@@ -72,7 +106,7 @@ public class OrderService {
             throw new BusinessException("商品不存在");
         }
 
-        // 检查商品状态
+        // 检查商品状态（无锁预检，真正的占有由下面的条件更新决定）
         if (product.getStatus() != 1) {
             throw new BusinessException("商品不在销售中");
         }
@@ -87,6 +121,11 @@ public class OrderService {
             throw new BusinessException("邮寄方式必须填写收货地址");
         }
 
+        // 抢占商品：在售 → 已售出，只有一个买家能改到这一行，其余买家直接失败，不插入订单
+        if (productMapper.compareAndSetStatus(product.getId(), 1, 3, LocalDateTime.now()) != 1) {
+            throw new BusinessException("商品已被他人购买");
+        }
+
         // 创建订单
         Order order = new Order();
         order.setOrderNo(generateOrderNo());
@@ -103,9 +142,10 @@ public class OrderService {
         order.setUpdateTime(LocalDateTime.now());
 
         orderMapper.insert(order);
+        orderStateMachine.created(order, userId);
 
-        // 更新商品状态为已售出
-        productMapper.updateStatus(product.getId(), 3, LocalDateTime.now());
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId(), ProductChangedEvent.Type.STATUS_CHANGED));
+        trendingService.recordAfterCommit(product, TrendingService.Action.ORDER);
 
         log.info("用户 {} 创建订单: {}", userId, order.getOrderNo());
         return order.getId();
@@ -131,13 +171,16 @@ public class OrderService {
             throw new BusinessException("无权查看该订单");
         }
 
-        return convertToOrderResponse(order);
+        return toResponses(List.of(order)).get(0);
     }
 
     /**
-     * 订单列表
+     * 订单列表，type 为 buyer / seller / all
+     * after 不为 null 时使用游标分页（空串表示第一页），按 (create_time, id) 定位，不统计总数；
+     * all（我买到的 + 我卖出的）只支持游标分页，after 为 null 时按第一页处理
      */
-    public PageResult<OrderResponse> listOrders(String type, Integer status, Integer pageNum, Integer pageSize) {
+    public PageResult<OrderResponse> listOrders(String type, Integer status, Integer pageNum, Integer pageSize, String after,
+                                                CountMode countMode) {
         Long userId = UserContext.getUserId();
         if (userId == null) {
             throw new BusinessException(401, "请先登录");
@@ -146,26 +189,65 @@ public class OrderService {
         if (pageNum == null || pageNum < 1) pageNum = 1;
         if (pageSize == null || pageSize < 1) pageSize = 10;
 
-        int offset = (pageNum - 1) * pageSize;
+        boolean seller = "seller".equals(type);
+        boolean all = "all".equals(type);
 
-        List<Order> orders;
-        Long total;
-
-        if ("seller".equals(type)) {
-            // 卖家订单
-            orders = orderMapper.listSellerOrders(userId, status, offset, pageSize);
-            total = orderMapper.countSellerOrders(userId, status);
-        } else {
-            // 买家订单（默认）
-            orders = orderMapper.listBuyerOrders(userId, status, offset, pageSize);
-            total = orderMapper.countBuyerOrders(userId, status);
+        if (after != null || all) {
+            LocalDateTime cursorTime = null;
+            Long cursorId = null;
+            if (after != null && !after.isEmpty()) {
+                PageCursor cursor = PageCursor.decode(after, CURSOR_SORT);
+                cursorTime = parseCursorTime(cursor.getValue());
+                cursorId = cursor.getId();
+            }
+            List<Order> orders = all
+                    ? listTimeline(userId, status, cursorTime, cursorId, pageSize + 1)
+                    : seller
+                    ? orderMapper.listSellerOrders(userId, status, cursorTime, cursorId, null, pageSize + 1, false)
+                    : orderMapper.listBuyerOrders(userId, status, cursorTime, cursorId, null, pageSize + 1, false);
+            String nextCursor = null;
+            if (orders.size() > pageSize) {
+                orders = orders.subList(0, pageSize);
+                Order last = orders.get(pageSize - 1);
+                nextCursor = new PageCursor(CURSOR_SORT, last.getCreateTime().toString(), last.getId()).encode();
+            }
+            return PageResult.ofCursor(toResponses(orders), pageSize, nextCursor);
         }
 
-        List<OrderResponse> responseList = orders.stream()
-                .map(this::convertToOrderResponse)
-                .collect(Collectors.toList());
+        String countKey = (seller ? SELLER_COUNT_KEY : BUYER_COUNT_KEY) + userId + "|s=" + status;
+        return pagingService.page(countMode, countKey, pageNum, pageSize,
+                (offset, limit, withTotal) -> seller
+                        ? orderMapper.listSellerOrders(userId, status, null, null, offset, limit, withTotal)
+                        : orderMapper.listBuyerOrders(userId, status, null, null, offset, limit, withTotal),
+                () -> seller
+                        ? orderMapper.countSellerOrders(userId, status)
+                        : orderMapper.countBuyerOrders(userId, status),
+                this::toResponses);
+    }
 
-        return new PageResult<>(responseList, pageNum, pageSize, total);
+    /**
+     * 买卖双方订单合并时间线：两路各自按 (buyer_id|seller_id, create_time) 索引从游标处取 limit 条，
+     * 再按 (create_time, id) 降序归并取前 limit 条。两路排序键一致，同一个游标即可在两路上续读，不需要 OR 全表扫描
+     */
+    private List<Order> listTimeline(Long userId, Integer status, LocalDateTime cursorTime, Long cursorId, int limit) {
+        List<Order> bought = orderMapper.listBuyerOrders(userId, status, cursorTime, cursorId, null, limit, false);
+        List<Order> sold = orderMapper.listSellerOrders(userId, status, cursorTime, cursorId, null, limit, false);
+        List<Order> merged = new ArrayList<>(Math.min(limit, bought.size() + sold.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < bought.size() || j < sold.size())) {
+            Order next;
+            if (j >= sold.size() || (i < bought.size() && TIMELINE_ORDER.compare(bought.get(i), sold.get(j)) <= 0)) {
+                next = bought.get(i++);
+            } else {
+                next = sold.get(j++);
+            }
+            // 买卖双方不可同人，两路不会有同一订单；保险起见按ID去重（相同ID必然相邻）
+            if (merged.isEmpty() || !merged.get(merged.size() - 1).getId().equals(next.getId())) {
+                merged.add(next);
+            }
+        }
+        return merged;
     }
 
     /**
@@ -183,18 +265,8 @@ public class OrderService {
             throw new BusinessException("订单不存在");
         }
 
-        // 检查权限
-        if (!order.getSellerId().equals(userId)) {
-            throw new BusinessException("无权操作该订单");
-        }
-
-        // 检查订单状态
-        if (order.getStatus() != 1) {
-            throw new BusinessException("订单状态不正确");
-        }
-
-        // 更新状态为待收货
-        orderMapper.updateStatus(id, 2, LocalDateTime.now());
+        // 待发货 → 待收货
+        orderStateMachine.transition(order, OrderStateMachine.Action.DELIVER, userId);
         log.info("卖家 {} 发货订单: {}", userId, order.getOrderNo());
     }
 
@@ -213,18 +285,8 @@ public class OrderService {
             throw new BusinessException("订单不存在");
         }
 
-        // 检查权限
-        if (!order.getBuyerId().equals(userId)) {
-            throw new BusinessException("无权操作该订单");
-        }
-
-        // 检查订单状态
-        if (order.getStatus() != 2) {
-            throw new BusinessException("订单状态不正确");
-        }
-
-        // 更新状态为已完成
-        orderMapper.completeOrder(id, 3, LocalDateTime.now(), LocalDateTime.now());
+        // 待收货 → 已完成
+        orderStateMachine.transition(order, OrderStateMachine.Action.CONFIRM, userId);
         log.info("买家 {} 确认收货订单: {}", userId, order.getOrderNo());
     }
 
@@ -243,78 +305,128 @@ public class OrderService {
             throw new BusinessException("订单不存在");
         }
 
-        // 检查权限
-        if (!order.getBuyerId().equals(userId) && !order.getSellerId().equals(userId)) {
-            throw new BusinessException("无权操作该订单");
+        // 待发货 → 已取消（与发货并发时只有一个成功）
+        orderStateMachine.transition(order, OrderStateMachine.Action.CANCEL, userId);
+
+        // 恢复商品状态（仍为已售出时才恢复在售，期间被下架的保持原状）
+        productMapper.compareAndSetStatus(order.getProductId(), 3, 1, LocalDateTime.now());
+        eventPublisher.publishEvent(new ProductChangedEvent(order.getProductId(), ProductChangedEvent.Type.STATUS_CHANGED));
+
+        log.info("用户 {} 取消订单: {}", userId, order.getOrderNo());
+    }
+
+    /**
+     * 超时未发货的订单自动取消并恢复商品在售，一批订单一个事务；状态已变化的订单跳过
+     *
+     * @return 实际取消的数量
+     */
+    @Transactional
+    public int autoCancel(List<Long> ids) {
+        int cancelled = 0;
+        for (Order order : orderMapper.findByIds(ids)) {
+            if (!expire(order, OrderStateMachine.Action.AUTO_CANCEL)) {
+                continue;
+            }
+            productMapper.compareAndSetStatus(order.getProductId(), 3, 1, LocalDateTime.now());
+            eventPublisher.publishEvent(new ProductChangedEvent(order.getProductId(), ProductChangedEvent.Type.STATUS_CHANGED));
+            cancelled++;
         }
+        log.info("超时自动取消订单: {}/{}", cancelled, ids.size());
+        return cancelled;
+    }
 
-        // 检查订单状态（待发货可取消）
-        if (order.getStatus() != 1) {
-            throw new BusinessException("当前状态不允许取消订单");
+    /**
+     * 超时未确认的订单自动确认收货，一批订单一个事务；状态已变化的订单跳过
+     *
+     * @return 实际确认的数量
+     */
+    @Transactional
+    public int autoConfirm(List<Long> ids) {
+        int confirmed = 0;
+        for (Order order : orderMapper.findByIds(ids)) {
+            if (expire(order, OrderStateMachine.Action.AUTO_CONFIRM)) {
+                confirmed++;
+            }
         }
+        log.info("超时自动确认收货: {}/{}", confirmed, ids.size());
+        return confirmed;
+    }
 
-        // 取消订单
-        orderMapper.updateStatus(id, 4, LocalDateTime.now());
+    private boolean expire(Order order, OrderStateMachine.Action action) {
+        try {
+            orderStateMachine.transition(order, action, null);
+            return true;
+        } catch (BusinessException e) {
+            return false;  // 到期前已被买卖双方处理
+        }
+    }
 
-        // 恢复商品状态
-        productMapper.updateStatus(order.getProductId(), 1, LocalDateTime.now());
+    /**
+     * 订单状态变更（事务提交后异步）：买卖双方各状态下的缓存订单总数失效
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderTransition(OrderTransitionEvent event) {
+        pagingService.evictCounts(BUYER_COUNT_KEY + event.getBuyerId() + "|");
+        pagingService.evictCounts(SELLER_COUNT_KEY + event.getSellerId() + "|");
+    }
 
-        log.info("用户 {} 取消订单: {}", userId, order.getOrderNo());
+    /**
+     * 批量转换为响应DTO：先登记全部买卖双方与商品ID，用户、商品各一条 IN 查询
+     */
+    public List<OrderResponse> toResponses(List<Order> orders) {
+        for (Order order : orders) {
+            dataLoader.registerUser(order.getBuyerId());
+            dataLoader.registerUser(order.getSellerId());
+            dataLoader.registerProduct(order.getProductId());
+        }
+        return orders.stream()
+                .map(this::convertToOrderResponse)
+                .collect(Collectors.toList());
     }
 
     /**
      * 转换为响应DTO
      */
     private OrderResponse convertToOrderResponse(Order order) {
-        OrderResponse response = new OrderResponse();
-        BeanUtils.copyProperties(order, response);
+        OrderResponse response = orderConverter.toResponse(order);
         response.setStatusText(STATUS_MAP.get(order.getStatus()));
         response.setTransactionTypeText(TRANSACTION_TYPE_MAP.get(order.getTransactionType()));
 
-        // 查询买家信息
-        User buyer = userMapper.findById(order.getBuyerId());
+        // 买家信息
+        User buyer = dataLoader.user(order.getBuyerId());
         if (buyer != null) {
             response.setBuyerName(buyer.getUsername());
         }
 
-        // 查询卖家信息
-        User seller = userMapper.findById(order.getSellerId());
+        // 卖家信息
+        User seller = dataLoader.user(order.getSellerId());
         if (seller != null) {
             response.setSellerName(seller.getUsername());
         }
 
-        // 查询商品信息
-        Product product = productMapper.findById(order.getProductId());
+        // 商品信息（卡片列已取出第一张图片）
+        Product product = dataLoader.product(order.getProductId());
         if (product != null) {
             response.setProductTitle(product.getTitle());
-            // 获取第一张图片
-            List<String> images = convertJsonToList(product.getImages());
-            if (!images.isEmpty()) {
-                response.setProductImage(images.get(0));
-            }
+            response.setProductImage(product.getCoverImage());
         }
 
         return response;
     }
 
-    /**
-     * 生成订单号
-     */
-    private String generateOrderNo() {
-        return "ORD" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    private LocalDateTime parseCursorTime(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (RuntimeException e) {
+            throw new BusinessException("分页游标无效");
+        }
     }
 
     /**
-     * JSON字符串转List
+     * 生成订单号：ORD + 19 位 Snowflake ID，按时间有序、多节点不重复
      */
-    private List<String> convertJsonToList(String json) {
-        if (json == null || json.isEmpty() || "[]".equals(json)) {
-            return List.of();
-        }
-        json = json.replace("[", "").replace("]", "").replace("\"", "");
-        if (json.isEmpty()) {
-            return List.of();
-        }
-        return List.of(json.split(","));
+    private String generateOrderNo() {
+        return idGenerator.nextNo("ORD");
     }
 }
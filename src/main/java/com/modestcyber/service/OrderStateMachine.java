@@ -0,0 +1,189 @@
+package com.modestcyber.service;
+
+import com.modestcyber.event.OrderTransitionEvent;
+import com.modestcyber.exception.BusinessException;
+import com.modestcyber.mapper.OrderEventMapper;
+import com.modestcyber.mapper.OrderMapper;
+import com.modestcyber.pojo.Order;
+import com.modestcyber.pojo.OrderEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 订单状态机
+ * 状态迁移由 Action 声明（起始状态 → 目标状态、允许的操作方），执行时用 WHERE status = 起始状态 的条件更新完成，
+ * 并发的两个迁移只有一个能改到这一行，不加锁。每次迁移追加一条 order_event 流水：同一事务内的流水先攒在事务上，
+ * 提交前一条多值 INSERT 写入，与状态变更同时提交或回滚；OrderTransitionEvent 在提交后由监听方异步消费
+ */
+@Component
+public class OrderStateMachine {
+
+    public static final int PENDING_DELIVERY = 1;
+    public static final int PENDING_RECEIPT = 2;
+    public static final int COMPLETED = 3;
+    public static final int CANCELLED = 4;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private OrderEventMapper orderEventMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 可执行的操作方
+     */
+    public enum Actor {
+        BUYER,
+        SELLER,
+        EITHER,
+        SYSTEM  // 定时任务等系统操作，操作人为空
+    }
+
+    /**
+     * 订单动作：起始状态为空表示不从已有状态迁移（创建/基线）
+     */
+    public enum Action {
+        CREATE(null, PENDING_DELIVERY, Actor.BUYER, null),
+        DELIVER(PENDING_DELIVERY, PENDING_RECEIPT, Actor.SELLER, "订单状态不正确"),
+        CONFIRM(PENDING_RECEIPT, COMPLETED, Actor.BUYER, "订单状态不正确"),
+        CANCEL(PENDING_DELIVERY, CANCELLED, Actor.EITHER, "当前状态不允许取消订单"),
+        AUTO_CANCEL(PENDING_DELIVERY, CANCELLED, Actor.SYSTEM, "订单状态已变化"),
+        AUTO_CONFIRM(PENDING_RECEIPT, COMPLETED, Actor.SYSTEM, "订单状态已变化"),
+        BASELINE(null, null, null, null);  // V3 迁移为已有订单补记的当前状态，只出现在流水开头
+
+        private final Integer from;
+        private final Integer to;
+        private final Actor actor;
+        private final String rejectMessage;
+
+        Action(Integer from, Integer to, Actor actor, String rejectMessage) {
+            this.from = from;
+            this.to = to;
+            this.actor = actor;
+            this.rejectMessage = rejectMessage;
+        }
+
+        private boolean allows(Order order, Long operatorId) {
+            if (operatorId == null) {
+                return actor == Actor.SYSTEM;
+            }
+            switch (actor) {
+                case BUYER:
+                    return order.getBuyerId().equals(operatorId);
+                case SELLER:
+                    return order.getSellerId().equals(operatorId);
+                case SYSTEM:
+                    return false;
+                default:
+                    return order.getBuyerId().equals(operatorId) || order.getSellerId().equals(operatorId);
+            }
+        }
+    }
+
+    /**
+     * 记录新建订单（订单已插入）
+     */
+    public void created(Order order, Long operatorId) {
+        append(order, Action.CREATE, null, order.getStatus(), operatorId);
+    }
+
+    /**
+     * 执行状态迁移，成功后 order 的状态同步更新
+     *
+     * @throws BusinessException 无权操作、当前状态不允许，或并发迁移中落败
+     */
+    public void transition(Order order, Action action, Long operatorId) {
+        if (action.from == null) {
+            throw new IllegalArgumentException("不是状态迁移动作: " + action);
+        }
+        if (!action.allows(order, operatorId)) {
+            throw new BusinessException("无权操作该订单");
+        }
+        if (!action.from.equals(order.getStatus())) {
+            throw new BusinessException(action.rejectMessage);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime completeTime = action.to == COMPLETED ? now : null;
+        if (orderMapper.compareAndSetStatus(order.getId(), action.from, action.to, now, completeTime) != 1) {
+            // 读到的状态已过期：另一个迁移先提交了
+            throw new BusinessException(action.rejectMessage);
+        }
+        order.setStatus(action.to);
+        append(order, action, action.from, action.to, operatorId);
+    }
+
+    /**
+     * 订单的状态流水
+     */
+    public List<OrderEvent> history(Long orderId) {
+        return orderEventMapper.findByOrderId(orderId);
+    }
+
+    /**
+     * 按状态机重放流水，返回最终状态；流水与声明的迁移不符时抛出 IllegalStateException
+     */
+    public Integer replay(List<OrderEvent> events) {
+        Integer status = null;
+        for (OrderEvent event : events) {
+            Action action = Action.valueOf(event.getAction());
+            if (action.from == null) {
+                if (status != null) {
+                    throw new IllegalStateException("流水 " + event.getId() + ": " + action + " 只能出现在开头");
+                }
+            } else if (!action.from.equals(status) || !action.to.equals(event.getToStatus())) {
+                throw new IllegalStateException("流水 " + event.getId() + ": 状态 " + status + " 不能执行 " + action);
+            }
+            status = event.getToStatus();
+        }
+        return status;
+    }
+
+    private void append(Order order, Action action, Integer from, Integer to, Long operatorId) {
+        OrderEvent event = new OrderEvent(null, order.getId(), action.name(), from, to, operatorId, LocalDateTime.now());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingEvents().add(event);
+        } else {
+            orderEventMapper.insertBatch(List.of(event));
+        }
+        eventPublisher.publishEvent(new OrderTransitionEvent(order.getId(), order.getBuyerId(), order.getSellerId(),
+                order.getProductId(), action.name(), from, to));
+    }
+
+    /**
+     * 当前事务的待写流水，提交前一次写入
+     */
+    @SuppressWarnings("unchecked")
+    private List<OrderEvent> pendingEvents() {
+        List<OrderEvent> pending = (List<OrderEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<OrderEvent> batch = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, batch);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    if (!batch.isEmpty()) {
+                        orderEventMapper.insertBatch(batch);
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OrderStateMachine.this);
+                }
+            });
+            pending = batch;
+        }
+        return pending;
+    }
+}
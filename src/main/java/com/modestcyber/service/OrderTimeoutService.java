@@ -0,0 +1,198 @@
+package com.modestcyber.service;
+
+import com.modestcyber.event.OrderTransitionEvent;
+import com.modestcyber.mapper.OrderMapper;
+import com.modestcyber.pojo.Order;
+import com.modestcyber.util.TimingWheel;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 订单超时服务
+ * 待发货超过 auto-cancel-days 自动取消，待收货超过 auto-confirm-days 自动确认收货。
+ * 截止时间放在内存分层时间轮中（添加/取消 O(1)），不扫描订单表：启动时按ID分批加载，之后随订单状态事件增删；
+ * 到期订单按批经状态机条件更新，期间已被处理或多节点重复触发的订单自然落空
+ */
+@Slf4j
+@Service
+public class OrderTimeoutService {
+
+    private static final long DAY_MS = 86_400_000L;
+    private static final long RETRY_DELAY_MS = 60_000L;
+
+    @Value("${order-timeout.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order-timeout.auto-cancel-days:7}")
+    private long autoCancelDays;
+
+    @Value("${order-timeout.auto-confirm-days:14}")
+    private long autoConfirmDays;
+
+    @Value("${order-timeout.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${order-timeout.load-batch-size:2000}")
+    private int loadBatchSize;
+
+    @Value("${order-timeout.fire-batch-size:200}")
+    private int fireBatchSize;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private OrderService orderService;
+
+    private TimingWheel<Integer> wheel;  // 值为到期时订单应处的状态
+    private final Object loadLock = new Object();  // 启动加载与重试互斥，不占用时间轮的锁
+    private volatile boolean loaded;
+    private final AtomicLong autoCancelled = new AtomicLong();
+    private final AtomicLong autoConfirmed = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        wheel = new TimingWheel<>(tickMs, System.currentTimeMillis());
+    }
+
+    /**
+     * 启动时按ID分批加载待发货/待收货订单的截止时间
+     * 时间轮中已有的订单跳过：那是加载期间由状态事件登记的，比这里读到的批次新，不能被旧状态覆盖。
+     * 失败时已加载的部分保留，启动前的订单暂不超时处理，由 retryLoad 定时重试，不影响应用启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (loadLock) {
+            long start = System.currentTimeMillis();
+            long afterId = 0L;
+            int count = 0;
+            try {
+                while (true) {
+                    List<Order> batch = orderMapper.listPendingDeadlines(afterId, loadBatchSize);
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    synchronized (this) {
+                        for (Order order : batch) {
+                            if (wheel.contains(order.getId())) {
+                                continue;
+                            }
+                            long since = order.getUpdateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                            schedule(order.getId(), order.getStatus(), since);
+                        }
+                    }
+                    count += batch.size();
+                    afterId = batch.get(batch.size() - 1).getId();
+                }
+            } catch (RuntimeException e) {
+                log.error("订单超时时间轮加载失败（已加载 {} 个订单），稍后重试", count, e);
+                return;
+            }
+            loaded = true;
+            log.info("订单超时时间轮加载完成: {} 个订单, 耗时 {} ms", count, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 启动加载失败时定时重试
+     */
+    @Scheduled(initialDelayString = "${startup-load.retry-interval-ms:30000}",
+            fixedDelayString = "${startup-load.retry-interval-ms:30000}")
+    public void retryLoad() {
+        if (enabled && !loaded) {
+            load();
+        }
+    }
+
+    /**
+     * 订单状态变更（事务提交后）：进入待发货/待收货时登记截止时间，其余状态撤销
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onOrderTransition(OrderTransitionEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (!schedule(event.getOrderId(), event.getToStatus(), System.currentTimeMillis())) {
+            wheel.cancel(event.getOrderId());
+        }
+    }
+
+    /**
+     * 推进时间轮，到期订单按批处理；处理失败的批次稍后重试
+     */
+    @Scheduled(fixedDelayString = "${order-timeout.tick-ms:1000}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        List<Long> toCancel = new ArrayList<>();
+        List<Long> toConfirm = new ArrayList<>();
+        synchronized (this) {
+            wheel.advance(System.currentTimeMillis(),
+                    (status, orderId) -> (status == OrderStateMachine.PENDING_DELIVERY ? toCancel : toConfirm).add(orderId));
+        }
+        fire(toCancel, OrderStateMachine.PENDING_DELIVERY, orderService::autoCancel, autoCancelled);
+        fire(toConfirm, OrderStateMachine.PENDING_RECEIPT, orderService::autoConfirm, autoConfirmed);
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("pending", wheel.size());
+        stats.put("autoCancelled", autoCancelled.get());
+        stats.put("autoConfirmed", autoConfirmed.get());
+        return stats;
+    }
+
+    private void fire(List<Long> orderIds, int status, Function<List<Long>, Integer> action, AtomicLong counter) {
+        for (int from = 0; from < orderIds.size(); from += fireBatchSize) {
+            List<Long> batch = orderIds.subList(from, Math.min(from + fireBatchSize, orderIds.size()));
+            try {
+                counter.addAndGet(action.apply(batch));
+            } catch (RuntimeException e) {
+                log.error("订单超时处理失败，{} ms 后重试: {} 个订单", RETRY_DELAY_MS, batch.size(), e);
+                synchronized (this) {
+                    long retryAt = System.currentTimeMillis() + RETRY_DELAY_MS;
+                    for (Long orderId : batch) {
+                        wheel.schedule(orderId, retryAt, status);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 该状态有超时处理时返回 true
+     */
+    private boolean schedule(Long orderId, Integer status, long since) {
+        if (status == null) {
+            return false;
+        }
+        if (status == OrderStateMachine.PENDING_DELIVERY) {
+            wheel.schedule(orderId, since + autoCancelDays * DAY_MS, status);
+            return true;
+        }
+        if (status == OrderStateMachine.PENDING_RECEIPT) {
+            wheel.schedule(orderId, since + autoConfirmDays * DAY_MS, status);
+            return true;
+        }
+        return false;
+    }
+}
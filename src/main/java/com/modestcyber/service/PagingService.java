@@ -0,0 +1,108 @@
+package com.modestcyber.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.modestcyber.common.CountMode;
+import com.modestcyber.common.PageResult;
+import com.modestcyber.common.WindowCounted;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 分页查询服务
+ * 统一处理三种总数统计方式：同语句窗口计数、按筛选条件缓存总数、只判断是否有下一页
+ */
+@Service
+public class PagingService {
+
+    @Value("${paging.count-cache-seconds:60}")
+    private long countCacheSeconds;
+
+    @Value("${paging.count-cache-maximum-size:10000}")
+    private long countCacheMaximumSize;
+
+    private Cache<String, Long> countCache;
+
+    /**
+     * 按页取数据的回调
+     */
+    @FunctionalInterface
+    public interface PageFetcher<E> {
+        /**
+         * @param offset    偏移量
+         * @param limit     条数
+         * @param withTotal 是否在同一语句中附带 COUNT(*) OVER()
+         */
+        List<E> fetch(int offset, int limit, boolean withTotal);
+    }
+
+    @PostConstruct
+    public void init() {
+        countCache = Caffeine.newBuilder()
+                .maximumSize(countCacheMaximumSize)
+                .expireAfterWrite(Duration.ofSeconds(countCacheSeconds))
+                .build();
+    }
+
+    /**
+     * 分页查询
+     *
+     * @param mode      总数统计方式
+     * @param countKey  筛选条件的规范化键（CACHED 模式下用于缓存总数）
+     * @param fetcher   按页取数据
+     * @param counter   单独统计总数（窗口计数拿不到总数时兜底）
+     * @param converter 结果行转换为响应
+     */
+    public <E extends WindowCounted, R> PageResult<R> page(CountMode mode, String countKey, int pageNum, int pageSize,
+                                                           PageFetcher<E> fetcher, Supplier<Long> counter,
+                                                           Function<List<E>, List<R>> converter) {
+        int offset = (pageNum - 1) * pageSize;
+        switch (mode) {
+            case NONE: {
+                List<E> rows = fetcher.fetch(offset, pageSize + 1, false);
+                boolean hasMore = rows.size() > pageSize;
+                if (hasMore) {
+                    rows = rows.subList(0, pageSize);
+                }
+                return PageResult.ofHasMore(converter.apply(rows), pageNum, pageSize, hasMore);
+            }
+            case CACHED: {
+                List<E> rows = fetcher.fetch(offset, pageSize, false);
+                Long cached = countCache.getIfPresent(countKey);
+                if (cached != null) {
+                    return PageResult.of(converter.apply(rows), pageNum, pageSize, cached, false);
+                }
+                long total = counter.get();
+                countCache.put(countKey, total);
+                return PageResult.of(converter.apply(rows), pageNum, pageSize, total, true);
+            }
+            default: {
+                List<E> rows = fetcher.fetch(offset, pageSize, true);
+                long total;
+                Long windowTotal = rows.isEmpty() ? null : rows.get(0).getTotalCount();
+                if (windowTotal != null) {
+                    total = windowTotal;
+                } else if (rows.isEmpty() && offset == 0) {
+                    total = 0L;
+                } else {
+                    // 页码越界时窗口函数没有返回行，或语句未带回总数列，单独统计一次
+                    total = counter.get();
+                }
+                return PageResult.of(converter.apply(rows), pageNum, pageSize, total, true);
+            }
+        }
+    }
+
+    /**
+     * 清除键以 keyPrefix 开头的缓存总数
+     */
+    public void evictCounts(String keyPrefix) {
+        countCache.asMap().keySet().removeIf(key -> key.startsWith(keyPrefix));
+    }
+}
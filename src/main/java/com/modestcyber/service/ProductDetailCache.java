@@ -0,0 +1,144 @@
+package com.modestcyber.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.modestcyber.converter.ProductConverter;
+import com.modestcyber.dto.response.ProductResponse;
+import com.modestcyber.event.ProductChangedEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 商品详情缓存
+ * 缓存组装好的商品详情（不含当前用户的收藏状态，可跨用户共享），键为 商品ID@版本号；
+ * 商品变更后版本号加一，变更前开始、变更后才写入的旧数据落在旧版本的键上，不会再被读到。
+ * 同一个键并发未命中时只有一个线程回源，其余线程等待其结果
+ */
+@Slf4j
+@Service
+public class ProductDetailCache {
+
+    private static final int VERSION_SLOTS = 4096;  // 版本号按商品ID哈希分槽，槽冲突只会多失效一些条目
+
+    @Value("${cache.product-detail.maximum-size:5000}")
+    private long maximumSize;
+
+    @Value("${cache.product-detail.expire-seconds:600}")
+    private long expireSeconds;
+
+    @Autowired
+    private ProductConverter productConverter;
+
+    private Cache<String, Entry> cache;
+
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_SLOTS);
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * 缓存条目：详情模板 + 回源时库中的浏览量
+     */
+    public static class Entry {
+        private final ProductResponse response;
+        private final int storedViewCount;
+
+        public Entry(ProductResponse response, Integer storedViewCount) {
+            this.response = response;
+            this.storedViewCount = storedViewCount != null ? storedViewCount : 0;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireSeconds))  // 兜底：卖家昵称、分类名称等变更不触发失效
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 读取商品详情，未命中时回源
+     *
+     * @param id     商品ID
+     * @param loader 回源加载，商品不存在时返回 null（不缓存）
+     * @return 详情副本，浏览量为库中值；商品不存在时返回 null
+     */
+    public ProductResponse get(Long id, Function<Long, Entry> loader) {
+        Entry entry = cache.get(key(id), k -> loader.apply(id));
+        if (entry == null) {
+            return null;
+        }
+        ProductResponse copy = productConverter.copy(entry.response);
+        copy.setViewCount(entry.storedViewCount);
+        return copy;
+    }
+
+    /**
+     * 商品变更（事务提交后）：版本号加一并删除当前条目
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidate(event.getProductId());
+    }
+
+    /**
+     * 在当前事务提交后失效（无事务时立即失效），用于收藏数等不发商品变更事件的字段
+     */
+    public void invalidateAfterCommit(Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(id);
+            }
+        });
+    }
+
+    public void invalidate(Long id) {
+        String current = key(id);
+        versions.incrementAndGet(slot(id));
+        cache.invalidate(current);
+        invalidations.increment();
+    }
+
+    /**
+     * 缓存统计
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> map = new HashMap<>();
+        map.put("size", cache.estimatedSize());
+        map.put("hitCount", stats.hitCount());
+        map.put("missCount", stats.missCount());
+        map.put("hitRate", stats.hitRate());
+        map.put("evictionCount", stats.evictionCount());
+        map.put("invalidationCount", invalidations.sum());
+        return map;
+    }
+
+    private String key(Long id) {
+        return id + "@" + versions.get(slot(id));
+    }
+
+    private int slot(Long id) {
+        int h = id.hashCode();
+        return (h ^ (h >>> 16)) & (VERSION_SLOTS - 1);
+    }
+}
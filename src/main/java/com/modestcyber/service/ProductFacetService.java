@@ -0,0 +1,150 @@
+package com.modestcyber.service;
+
+import com.modestcyber.converter.ProductLabels;
+import com.modestcyber.dto.query.ProductFacetRow;
+import com.modestcyber.dto.query.ProductQuery;
+import com.modestcyber.dto.response.ProductFacetsResponse;
+import com.modestcyber.dto.response.ProductFacetsResponse.FacetCount;
+import com.modestcyber.dto.response.ProductFacetsResponse.PriceBucket;
+import com.modestcyber.mapper.ProductMapper;
+import com.modestcyber.mapper.ProductSqlProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 商品分面统计服务
+ * 数据库只按基础条件做一次分组计数（关键词检索时改为在命中集合上内存分组），各分面在内存中汇总，
+ * 每个分面排除自身的筛选条件
+ */
+@Service
+public class ProductFacetService {
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private CategoryCache categoryCache;
+
+    /**
+     * 计算当前筛选条件下的分面计数
+     */
+    public ProductFacetsResponse countFacets(ProductQuery query) {
+        return summarize(query, productMapper.countFacets(query));
+    }
+
+    /**
+     * 在关键词检索的命中集合上计算分面计数：按索引中的商品属性分组，与 countFacets 的 GROUP BY 一致，不查库
+     */
+    public ProductFacetsResponse countFacets(ProductQuery query, List<ProductSearchIndex.Hit> hits) {
+        Map<FacetKey, ProductFacetRow> groups = new HashMap<>();
+        for (ProductSearchIndex.Hit hit : hits) {
+            FacetKey key = new FacetKey(hit.categoryId(), hit.condition(), hit.transactionType(),
+                    priceBucket(hit.price()), query.inPriceRange(hit.price()));
+            ProductFacetRow row = groups.computeIfAbsent(key, k -> {
+                ProductFacetRow r = new ProductFacetRow();
+                r.setCategoryId(k.categoryId());
+                r.setCondition(k.condition());
+                r.setTransactionType(k.transactionType());
+                r.setPriceBucket(k.priceBucket());
+                r.setInPriceRange(k.inPriceRange());
+                r.setProductCount(0L);
+                return r;
+            });
+            row.setProductCount(row.getProductCount() + 1);
+        }
+        return summarize(query, new ArrayList<>(groups.values()));
+    }
+
+    private record FacetKey(Long categoryId, String condition, Integer transactionType, int priceBucket,
+                            boolean inPriceRange) {
+    }
+
+    /**
+     * 价格所在区间下标，与 SQL 中的 CASE 一致（价格为空时落在最后一个区间）
+     */
+    private int priceBucket(BigDecimal price) {
+        int[] bounds = ProductSqlProvider.PRICE_BUCKET_BOUNDS;
+        if (price != null) {
+            for (int i = 1; i < bounds.length; i++) {
+                if (price.compareTo(BigDecimal.valueOf(bounds[i])) < 0) {
+                    return i - 1;
+                }
+            }
+        }
+        return bounds.length - 1;
+    }
+
+    /**
+     * 按"排除自身条件"的规则把分组计数汇总成各分面
+     */
+    private ProductFacetsResponse summarize(ProductQuery query, List<ProductFacetRow> rows) {
+        ProductFacetsResponse response = new ProductFacetsResponse();
+        int[] bounds = ProductSqlProvider.PRICE_BUCKET_BOUNDS;
+        long[] bucketCounts = new long[bounds.length];
+
+        Map<Long, Long> categoryCounts = new HashMap<>();
+        Map<String, Long> conditionCounts = new HashMap<>();
+        Map<Integer, Long> transactionTypeCounts = new TreeMap<>();
+        for (ProductFacetRow row : rows) {
+            boolean categoryOk = matchesCategory(query, row.getCategoryId());
+            boolean conditionOk = isEmpty(query.getQuality()) || query.getQuality().contains(row.getCondition());
+            boolean transactionTypeOk = isEmpty(query.getTransactionTypes())
+                    || query.getTransactionTypes().contains(row.getTransactionType());
+            boolean priceOk = Boolean.TRUE.equals(row.getInPriceRange());
+            long count = row.getProductCount();
+
+            if (conditionOk && transactionTypeOk && priceOk && row.getCategoryId() != null) {
+                categoryCounts.merge(row.getCategoryId(), count, Long::sum);
+            }
+            if (categoryOk && transactionTypeOk && priceOk && row.getCondition() != null) {
+                conditionCounts.merge(row.getCondition(), count, Long::sum);
+            }
+            if (categoryOk && conditionOk && priceOk && row.getTransactionType() != null) {
+                transactionTypeCounts.merge(row.getTransactionType(), count, Long::sum);
+            }
+            if (categoryOk && conditionOk && transactionTypeOk) {
+                bucketCounts[row.getPriceBucket()] += count;
+            }
+        }
+
+        CategorySnapshot categories = categoryCache.get();
+        categoryCounts.forEach((categoryId, count) -> {
+            String name = categories.name(categoryId);
+            response.getCategories().add(new FacetCount(categoryId, name != null ? name : "未分类", count));
+        });
+        conditionCounts.forEach((condition, count) ->
+                response.getConditions().add(new FacetCount(condition, condition, count)));
+        transactionTypeCounts.forEach((transactionType, count) ->
+                response.getTransactionTypes().add(new FacetCount(transactionType,
+                        ProductLabels.transactionTypeText(transactionType), count)));
+        response.getCategories().sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+        response.getConditions().sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+
+        for (int i = 0; i < bounds.length; i++) {
+            BigDecimal min = BigDecimal.valueOf(bounds[i]);
+            BigDecimal max = i + 1 < bounds.length ? BigDecimal.valueOf(bounds[i + 1]) : null;
+            String label = max != null ? bounds[i] + "-" + bounds[i + 1] : bounds[i] + "以上";
+            response.getPriceBuckets().add(new PriceBucket(min, max, label, bucketCounts[i]));
+        }
+        return response;
+    }
+
+    private boolean matchesCategory(ProductQuery query, Long categoryId) {
+        if (!query.inCategoryScope(categoryId)) {
+            return false;
+        }
+        return isEmpty(query.getCategoryIds()) || query.getCategoryIds().contains(categoryId);
+    }
+
+    private boolean isEmpty(Collection<?> values) {
+        return values == null || values.isEmpty();
+    }
+}
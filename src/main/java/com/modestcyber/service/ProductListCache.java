@@ -0,0 +1,187 @@
+package com.modestcyber.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.modestcyber.common.PageResult;
+import com.modestcyber.dto.query.ProductQuery;
+import com.modestcyber.event.ProductChangedEvent;
+import com.modestcyber.mapper.ProductMapper;
+import com.modestcyber.pojo.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 商品列表查询结果缓存
+ * 以规范化的筛选条件 + 排序 + 分页为键，只缓存当页商品ID和总数；商品发布、修改、状态变更、删除后
+ * 按变更后的商品能否命中各缓存条目的筛选条件精确失效，TTL 只作为浏览量等非事件字段的兜底
+ */
+@Slf4j
+@Service
+public class ProductListCache {
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Value("${cache.product-list.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${cache.product-list.expire-seconds:600}")
+    private long expireSeconds;
+
+    private Cache<String, Entry> cache;
+
+    // 每次失效递增，查询期间发生过失效的结果不再写入缓存
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * 缓存条目：筛选条件 + 当页商品ID与分页信息
+     */
+    private static class Entry {
+        private final ProductQuery query;
+        private final PageResult<Long> page;
+
+        private Entry(ProductQuery query, PageResult<Long> page) {
+            this.query = query;
+            this.page = page;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)  // Window TinyLFU 淘汰
+                .expireAfterWrite(Duration.ofSeconds(expireSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 缓存键：筛选条件 + 排序 + 分页参数
+     */
+    public String key(ProductQuery query, Object... paging) {
+        StringBuilder sb = new StringBuilder(query.filterKey())
+                .append("|sort=").append(query.getSort()).append(query.isAscending() ? ":asc" : ":desc");
+        for (Object part : paging) {
+            sb.append('|').append(part);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 当前失效代数，查询前读取，写入缓存时校验
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public PageResult<Long> get(String key) {
+        Entry entry = cache.getIfPresent(key);
+        return entry != null ? entry.page : null;
+    }
+
+    /**
+     * 写入缓存；查询开始后发生过失效则丢弃，避免把旧结果写回
+     *
+     * @param query 筛选条件（须为搜索替换前的原始条件）
+     */
+    public void put(String key, ProductQuery query, PageResult<Long> page, long expectedGeneration) {
+        if (generation.get() != expectedGeneration) {
+            return;
+        }
+        cache.put(key, new Entry(query, page));
+        if (generation.get() != expectedGeneration) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * 商品变更后失效受影响的列表（事务提交后执行）
+     * 旧状态未知，按事件类型放宽可能变化的字段：状态变更只比较非状态字段，修改只比较状态，删除全部失效
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        generation.incrementAndGet();
+        Product product = event.getType() == ProductChangedEvent.Type.DELETED
+                ? null
+                : productMapper.findById(event.getProductId());
+        if (product == null) {
+            invalidateAll();
+            return;
+        }
+
+        long before = cache.estimatedSize();
+        cache.asMap().values().removeIf(entry -> mayContain(entry.query, product, event.getType()));
+        long removed = before - cache.estimatedSize();
+        invalidations.add(Math.max(removed, 0));
+        log.debug("商品 {} {} 失效列表缓存 {} 条", product.getId(), event.getType(), removed);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        invalidations.add(cache.estimatedSize());
+        cache.invalidateAll();
+    }
+
+    /**
+     * 变更前后的商品是否可能出现在该筛选条件的结果中
+     */
+    private boolean mayContain(ProductQuery query, Product product, ProductChangedEvent.Type type) {
+        if (type != ProductChangedEvent.Type.STATUS_CHANGED
+                && query.getStatus() != null && !query.getStatus().equals(product.getStatus())) {
+            return false;
+        }
+        if (type == ProductChangedEvent.Type.UPDATED) {
+            return true;
+        }
+        if (!query.inCategoryScope(product.getCategoryId())) {
+            return false;
+        }
+        if (query.getCategoryIds() != null && !query.getCategoryIds().isEmpty()
+                && !query.getCategoryIds().contains(product.getCategoryId())) {
+            return false;
+        }
+        if (query.getQuality() != null && !query.getQuality().isEmpty()
+                && !query.getQuality().contains(product.getCondition())) {
+            return false;
+        }
+        if (query.getTransactionTypes() != null && !query.getTransactionTypes().isEmpty()
+                && !query.getTransactionTypes().contains(product.getTransactionType())) {
+            return false;
+        }
+        if (query.getMinPrice() != null && product.getPrice().compareTo(query.getMinPrice()) < 0) {
+            return false;
+        }
+        if (query.getMaxPrice() != null && product.getPrice().compareTo(query.getMaxPrice()) > 0) {
+            return false;
+        }
+        // 关键词条件不在内存中判断，按可能命中处理
+        return true;
+    }
+
+    /**
+     * 命中率、淘汰数等统计
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> map = new HashMap<>();
+        map.put("size", cache.estimatedSize());
+        map.put("hitCount", stats.hitCount());
+        map.put("missCount", stats.missCount());
+        map.put("hitRate", stats.hitRate());
+        map.put("evictionCount", stats.evictionCount());
+        map.put("invalidationCount", invalidations.sum());
+        return map;
+    }
+}
@@ -0,0 +1,218 @@
+package com.modestcyber.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.modestcyber.context.UserContext;
+import com.modestcyber.converter.ProductConverter;
+import com.modestcyber.dto.response.ProductCardResponse;
+import com.modestcyber.dto.response.ProductResponse;
+import com.modestcyber.mapper.UserMapper;
+import com.modestcyber.pojo.Product;
+import com.modestcyber.pojo.User;
+import com.modestcyber.util.LongHashSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * 商品响应组装器
+ * 整页商品共用一次卖家的批量查询；分类名称取自内存分类快照，收藏状态取自用户收藏集合缓存
+ */
+@Slf4j
+@Component
+public class ProductResponseAssembler {
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private CategoryCache categoryCache;
+
+    @Autowired
+    private FavoriteSetCache favoriteSetCache;
+
+    @Autowired
+    private ViewCountService viewCountService;
+
+    @Autowired
+    private FavoriteCountService favoriteCountService;
+
+    @Autowired
+    private ProductConverter productConverter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 转换单个商品（收藏状态取当前登录用户）
+     */
+    public ProductResponse toResponse(Product product) {
+        return toResponses(Collections.singletonList(product)).get(0);
+    }
+
+    /**
+     * 批量转换商品（收藏状态取当前登录用户）
+     */
+    public List<ProductResponse> toResponses(List<Product> products) {
+        if (products.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return assemble(products, favoritesOfCurrentUser());
+    }
+
+    /**
+     * 转换单个商品，不含收藏状态、收藏量为库中的值（可跨用户共享，用于详情缓存）
+     */
+    public ProductResponse toSharedResponse(Product product) {
+        ProductResponse response = assemble(Collections.singletonList(product), productId -> false).get(0);
+        response.setIsFavorite(null);
+        response.setFavoriteCount(product.getFavoriteCount());  // 缓存库中的值，未落库增量在读取时再加
+        return response;
+    }
+
+    /**
+     * 当前登录用户是否收藏了该商品
+     */
+    public boolean isFavorite(Long productId) {
+        return favoriteSetCache.contains(UserContext.getUserId(), productId);
+    }
+
+    /**
+     * 批量转换为列表卡片（收藏状态取当前登录用户），只补分类名称，不查卖家
+     */
+    public List<ProductCardResponse> toCards(List<Product> products) {
+        if (products.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return assembleCards(products, favoritesOfCurrentUser());
+    }
+
+    /**
+     * 批量转换收藏列表中的商品卡片（全部为已收藏，无需再查收藏表）
+     */
+    public List<ProductCardResponse> toFavoriteCards(List<Product> products) {
+        if (products.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return assembleCards(products, productId -> true);
+    }
+
+    private List<ProductCardResponse> assembleCards(List<Product> products, Predicate<Long> isFavorite) {
+        CategorySnapshot categories = categoryCache.get();
+
+        List<ProductCardResponse> cards = new ArrayList<>(products.size());
+        for (Product product : products) {
+            ProductCardResponse card = productConverter.toCard(product);
+            card.setCategoryName(categoryName(categories, product.getCategoryId()));
+            card.setViewCount(viewCount(product));
+            card.setFavoriteCount(favoriteCount(product));
+            card.setIsFavorite(isFavorite.test(product.getId()));
+            cards.add(card);
+        }
+        return cards;
+    }
+
+    private List<ProductResponse> assemble(List<Product> products, Predicate<Long> isFavorite) {
+        Map<Long, User> users = loadUsers(products);
+        CategorySnapshot categories = categoryCache.get();
+
+        List<ProductResponse> responseList = new ArrayList<>(products.size());
+        for (Product product : products) {
+            ProductResponse response = convert(product);
+
+            User user = users.get(product.getUserId());
+            if (user != null) {
+                response.setUsername(user.getUsername());
+                response.setUserDepartment(user.getDepartment());
+            }
+
+            response.setCategoryName(categoryName(categories, product.getCategoryId()));
+
+            response.setIsFavorite(isFavorite.test(product.getId()));
+            responseList.add(response);
+        }
+        return responseList;
+    }
+
+    /**
+     * 基本字段转换
+     */
+    private ProductResponse convert(Product product) {
+        ProductResponse response = productConverter.toResponse(product);
+        response.setViewCount(viewCount(product));
+        response.setFavoriteCount(favoriteCount(product));
+        response.setImages(parseImages(product.getImages()));
+        return response;
+    }
+
+    /**
+     * 浏览量：库中的值加上尚未落库的增量
+     */
+    private Integer viewCount(Product product) {
+        long pendingViews = viewCountService.pending(product.getId());
+        return product.getViewCount() != null && pendingViews > 0
+                ? (int) (product.getViewCount() + pendingViews)
+                : product.getViewCount();
+    }
+
+    /**
+     * 收藏量：库中的值加上尚未落库的增量
+     */
+    private Integer favoriteCount(Product product) {
+        long pendingFavorites = favoriteCountService.pending(product.getId());
+        return product.getFavoriteCount() != null && pendingFavorites != 0
+                ? (int) Math.max(product.getFavoriteCount() + pendingFavorites, 0)
+                : product.getFavoriteCount();
+    }
+
+    private Map<Long, User> loadUsers(List<Product> products) {
+        Set<Long> userIds = collectIds(products, Product::getUserId);
+        if (userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return userMapper.findByIds(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+    }
+
+    private String categoryName(CategorySnapshot categories, Long categoryId) {
+        String name = categories.name(categoryId);
+        return name != null ? name : "未分类";
+    }
+
+    private Predicate<Long> favoritesOfCurrentUser() {
+        LongHashSet favorites = favoriteSetCache.get(UserContext.getUserId());
+        return productId -> productId != null && favorites.contains(productId);
+    }
+
+    private Set<Long> collectIds(List<Product> products, Function<Product, Long> getter) {
+        return products.stream()
+                .map(getter)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * 解析图片JSON
+     */
+    private List<String> parseImages(String images) {
+        if (images == null || images.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            return objectMapper.readValue(images, new TypeReference<List<String>>() {});
+        } catch (Exception e) {
+            log.error("解析商品图片JSON失败: {}", images, e);
+            return new ArrayList<>();
+        }
+    }
+}
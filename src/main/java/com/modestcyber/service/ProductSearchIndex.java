@@ -0,0 +1,341 @@
+package com.modestcyber.service;
+
+import com.modestcyber.event.ProductChangedEvent;
+import com.modestcyber.mapper.ProductMapper;
+import com.modestcyber.pojo.Product;
+import com.modestcyber.util.TextTokenizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 商品全文检索索引
+ * 标题和描述分词后建立倒排表，按 BM25 打分；每件商品另存一份筛选、排序用的属性，
+ * 命中集合与其他筛选条件的求交在内存中完成。启动时从数据库重建，之后随商品变更事件增量维护
+ */
+@Slf4j
+@Service
+public class ProductSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_BOOST = 3;  // 标题命中的词频权重
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    private Set<Long> changedDuringRebuild;  // 重建期间变更的商品，换上新索引后重放；不在重建时为 null
+    private volatile boolean ready;
+
+    /**
+     * 倒排表及已索引文档
+     */
+    private static class Index {
+        // 词 -> (商品ID -> 加权词频)
+        private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+        private final Map<Long, Doc> docs = new HashMap<>();
+        private long totalLength;
+
+        private void put(Long productId, Doc doc) {
+            remove(productId);
+            for (Map.Entry<String, Integer> entry : doc.termFreqs.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(productId, entry.getValue());
+            }
+            docs.put(productId, doc);
+            totalLength += doc.length;
+        }
+
+        private void remove(Long productId) {
+            Doc old = docs.remove(productId);
+            if (old == null) {
+                return;
+            }
+            for (String term : old.termFreqs.keySet()) {
+                Map<Long, Integer> posting = postings.get(term);
+                if (posting != null) {
+                    posting.remove(productId);
+                    if (posting.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+            totalLength -= old.length;
+        }
+    }
+
+    /**
+     * 已索引文档
+     */
+    private static class Doc {
+        private final Map<String, Integer> termFreqs;
+        private final int length;
+        private final Hit hit;
+        private Integer status;
+
+        private Doc(Map<String, Integer> termFreqs, int length, Hit hit, Integer status) {
+            this.termFreqs = termFreqs;
+            this.length = length;
+            this.hit = hit;
+            this.status = status;
+        }
+    }
+
+    /**
+     * 检索命中的商品及其筛选、排序用的属性（建索引时的快照，随商品变更事件更新）
+     */
+    public record Hit(Long id, Long categoryId, String condition, BigDecimal price, Integer transactionType,
+                      LocalDateTime createTime) {
+    }
+
+    /**
+     * 索引是否已完成首次构建，未完成时调用方应回退到数据库 LIKE 查询
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 启动时从数据库重建索引
+     * 新索引在锁外构建，完成后在写锁内整体换上；期间变更的商品换上后再按最新数据重放。
+     * 失败时保持未就绪（检索退回 LIKE），由 retryRebuild 定时重试，不影响应用启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            Index fresh = new Index();
+            long afterId = 0L;
+            while (true) {
+                List<Product> batch = productMapper.listForSearchIndex(afterId, REBUILD_BATCH_SIZE);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (Product product : batch) {
+                    fresh.put(product.getId(), docOf(product));
+                }
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+
+            Set<Long> changed;
+            lock.writeLock().lock();
+            try {
+                index = fresh;
+                changed = changedDuringRebuild;
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            for (Long productId : changed) {
+                refresh(productId);
+            }
+            ready = true;
+            log.info("商品检索索引构建完成: {} 件商品, 重放 {} 件变更商品, 耗时 {} ms",
+                    fresh.docs.size(), changed.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("商品检索索引构建失败，检索暂时退回数据库查询，稍后重试", e);
+        }
+    }
+
+    /**
+     * 首次构建失败时定时重试
+     */
+    @Scheduled(initialDelayString = "${startup-load.retry-interval-ms:30000}",
+            fixedDelayString = "${startup-load.retry-interval-ms:30000}")
+    public void retryRebuild() {
+        if (!ready) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 商品变更后增量维护索引（事务提交后执行）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.Type.DELETED) {
+            remove(event.getProductId());
+            return;
+        }
+        Product product = productMapper.findById(event.getProductId());
+        if (product == null) {
+            remove(event.getProductId());
+        } else if (event.getType() == ProductChangedEvent.Type.STATUS_CHANGED) {
+            updateStatus(product.getId(), product.getStatus());
+        } else {
+            index(product);
+        }
+    }
+
+    /**
+     * 按库中最新数据替换商品的索引（重放重建期间的变更）
+     */
+    private void refresh(Long productId) {
+        Product product = productMapper.findById(productId);
+        if (product == null) {
+            remove(productId);
+        } else {
+            index(product);
+        }
+    }
+
+    /**
+     * 新增或替换商品的索引
+     */
+    public void index(Product product) {
+        Doc doc = docOf(product);
+        lock.writeLock().lock();
+        try {
+            markChanged(product.getId());
+            index.put(product.getId(), doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            markChanged(productId);
+            index.remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateStatus(Long productId, Integer status) {
+        lock.writeLock().lock();
+        try {
+            markChanged(productId);
+            Doc doc = index.docs.get(productId);
+            if (doc != null) {
+                doc.status = status;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 重建期间记下变更的商品（持有写锁时调用）
+     */
+    private void markChanged(Long productId) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(productId);
+        }
+    }
+
+    private static Doc docOf(Product product) {
+        Map<String, Integer> termFreqs = new HashMap<>();
+        for (String token : TextTokenizer.indexTokens(product.getTitle())) {
+            termFreqs.merge(token, TITLE_BOOST, Integer::sum);
+        }
+        for (String token : TextTokenizer.indexTokens(product.getDescription())) {
+            termFreqs.merge(token, 1, Integer::sum);
+        }
+        int length = termFreqs.values().stream().mapToInt(Integer::intValue).sum();
+        Hit hit = new Hit(product.getId(), product.getCategoryId(), product.getCondition(), product.getPrice(),
+                product.getTransactionType(), product.getCreateTime());
+        return new Doc(termFreqs, length, hit, product.getStatus());
+    }
+
+    /**
+     * 检索商品
+     * 所有查询词都必须命中，结果按 BM25 得分从高到低排列；返回完整命中集合，
+     * 其余筛选条件由调用方按命中里的属性在内存中求交后再分页，不在这里截断
+     *
+     * @param keyword 关键词
+     * @param status  商品状态，为 null 时不限
+     * @return 命中的商品，按相关度排序
+     */
+    public List<Hit> search(String keyword, Integer status) {
+        Set<String> terms = new LinkedHashSet<>(TextTokenizer.queryTokens(keyword));
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            // 从最短的倒排表开始求交集
+            List<Map<Long, Integer>> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<Long, Integer> posting = index.postings.get(term);
+                if (posting == null) {
+                    return new ArrayList<>();
+                }
+                lists.add(posting);
+            }
+            lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+            int n = index.docs.size();
+            double avgLength = n == 0 ? 1.0 : (double) index.totalLength / n;
+            double[] idf = new double[lists.size()];
+            for (int i = 0; i < lists.size(); i++) {
+                int df = lists.get(i).size();
+                idf[i] = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+            }
+
+            List<Map.Entry<Hit, Double>> scored = new ArrayList<>();
+            candidates:
+            for (Long productId : lists.get(0).keySet()) {
+                Doc doc = index.docs.get(productId);
+                if (doc == null || (status != null && !status.equals(doc.status))) {
+                    continue;
+                }
+                double score = 0;
+                double norm = K1 * (1 - B + B * doc.length / avgLength);
+                for (int i = 0; i < lists.size(); i++) {
+                    Integer tf = lists.get(i).get(productId);
+                    if (tf == null) {
+                        continue candidates;
+                    }
+                    score += idf[i] * tf * (K1 + 1) / (tf + norm);
+                }
+                scored.add(Map.entry(doc.hit, score));
+            }
+
+            scored.sort((a, b) -> {
+                int cmp = Double.compare(b.getValue(), a.getValue());
+                return cmp != 0 ? cmp : Long.compare(b.getKey().id(), a.getKey().id());
+            });
+            List<Hit> result = new ArrayList<>(scored.size());
+            for (Map.Entry<Hit, Double> entry : scored) {
+                result.add(entry.getKey());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
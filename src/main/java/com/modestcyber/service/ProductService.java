@@ -1,30 +1,39 @@
 package com.modestcyber.service;
 
+import com.modestcyber.common.CountMode;
+import com.modestcyber.common.FacetedPageResult;
+import com.modestcyber.common.PageCursor;
 import com.modestcyber.common.PageResult;
 import com.modestcyber.context.UserContext;
+import com.modestcyber.converter.ProductConverter;
+import com.modestcyber.dto.query.ProductQuery;
+import com.modestcyber.dto.query.ProductSort;
 import com.modestcyber.dto.request.PublishProductRequest;
 import com.modestcyber.dto.request.UpdateProductRequest;
+import com.modestcyber.dto.response.HotSnapshot;
+import com.modestcyber.dto.response.ProductCardResponse;
 import com.modestcyber.dto.response.ProductResponse;
+import com.modestcyber.event.ProductChangedEvent;
 import com.modestcyber.exception.BusinessException;
-import com.modestcyber.mapper.CategoryMapper;
-import com.modestcyber.mapper.FavoriteMapper;
 import com.modestcyber.mapper.ProductMapper;
-import com.modestcyber.mapper.UserMapper;
-import com.modestcyber.pojo.Category;
 import com.modestcyber.pojo.Product;
-import com.modestcyber.pojo.User;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -38,28 +47,50 @@ public class ProductService {
     private ProductMapper productMapper;
 
     @Autowired
-    private UserMapper userMapper;
+    private ProductResponseAssembler productResponseAssembler;
 
     @Autowired
-    private FavoriteMapper favoriteMapper;
+    private ProductConverter productConverter;
 
     @Autowired
-    private CategoryMapper categoryMapper;
+    private FavoriteCountService favoriteCountService;
 
-    private static final Map<Integer, String> STATUS_MAP = new HashMap<>();
-    private static final Map<Integer, String> TRANSACTION_TYPE_MAP = new HashMap<>();
+    @Autowired
+    private CategoryCache categoryCache;
 
-    static {
-        STATUS_MAP.put(0, "待审核");
-        STATUS_MAP.put(1, "在售");
-        STATUS_MAP.put(2, "已下架");
-        STATUS_MAP.put(3, "已售出");
-        STATUS_MAP.put(4, "审核拒绝");
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
 
-        TRANSACTION_TYPE_MAP.put(0, "面交");
-        TRANSACTION_TYPE_MAP.put(1, "邮寄");
-        TRANSACTION_TYPE_MAP.put(2, "均可");
-    }
+    @Autowired
+    private PagingService pagingService;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Autowired
+    private ProductListCache productListCache;
+
+    @Autowired
+    private ProductSuggestService productSuggestService;
+
+    @Autowired
+    private ProductSimilarityIndex productSimilarityIndex;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private ViewCountService viewCountService;
+
+    @Autowired
+    private ProductDetailCache productDetailCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private static final int MAX_SIMILAR = 20;
+    private static final int MAX_HOT = 50;
+    private static final int SORT_VALUE_BATCH_SIZE = 1000;  // 检索结果按计数排序时每批回表的ID数
 
     /**
      * 发布商品
@@ -71,8 +102,7 @@ public class ProductService {
             throw new BusinessException(401, "请先登录");
         }
 
-        Product product = new Product();
-        BeanUtils.copyProperties(request, product);
+        Product product = productConverter.fromRequest(request);
         product.setUserId(userId);
         product.setImages(convertListToJson(request.getImages()));
         product.setStatus(0);  // 默认待审核状态，需要管理员审核后才能上架
@@ -82,6 +112,7 @@ public class ProductService {
         product.setUpdateTime(LocalDateTime.now());
 
         productMapper.insert(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId(), ProductChangedEvent.Type.CREATED));
         log.info("用户 {} 发布商品: {}，状态: 待审核", userId, product.getTitle());
         return product.getId();
     }
@@ -111,11 +142,12 @@ public class ProductService {
             throw new BusinessException("商品已售出，无法修改");
         }
 
-        BeanUtils.copyProperties(request, product);
+        productConverter.updateFromRequest(request, product);
         product.setImages(convertListToJson(request.getImages()));
         product.setUpdateTime(LocalDateTime.now());
 
         productMapper.update(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ProductChangedEvent.Type.UPDATED));
         log.info("用户 {} 更新商品: {}", userId, id);
     }
 
@@ -140,6 +172,7 @@ public class ProductService {
         }
 
         productMapper.updateStatus(id, status, LocalDateTime.now());
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ProductChangedEvent.Type.STATUS_CHANGED));
         log.info("用户 {} 更新商品状态: {} -> {}", userId, id, status);
     }
 
@@ -169,110 +202,303 @@ public class ProductService {
         }
 
         productMapper.deleteById(id);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ProductChangedEvent.Type.DELETED));
         log.info("用户 {} 删除商品: {}", userId, id);
     }
 
     /**
      * 商品详情
      */
-    @Transactional
     public ProductResponse getProductDetail(Long id) {
+        ProductResponse response = productDetailCache.get(id, this::loadDetail);
+        if (response == null) {
+            throw new BusinessException("商品不存在");
+        }
+
+        // 增加浏览量（内存累加，定时批量落库）
+        viewCountService.increment(id);
+        trendingService.record(id, response.getCategoryId(), TrendingService.Action.VIEW);
+
+        response.setViewCount(response.getViewCount() + (int) viewCountService.pending(id));
+        if (response.getFavoriteCount() != null) {
+            response.setFavoriteCount((int) Math.max(response.getFavoriteCount() + favoriteCountService.pending(id), 0));
+        }
+        response.setIsFavorite(productResponseAssembler.isFavorite(id));
+        return response;
+    }
+
+    /**
+     * 详情缓存回源：组装不含收藏状态的详情
+     */
+    private ProductDetailCache.Entry loadDetail(Long id) {
         Product product = productMapper.findById(id);
         if (product == null) {
-            throw new BusinessException("商品不存在");
+            return null;
         }
+        return new ProductDetailCache.Entry(productResponseAssembler.toSharedResponse(product), product.getViewCount());
+    }
 
-        // 增加浏览量
-        productMapper.incrementViewCount(id);
+    /**
+     * 热门商品：取最新热度榜快照中仍在售的商品
+     */
+    public List<ProductCardResponse> listHotProducts(Integer limit) {
+        int size = limit == null || limit < 1 ? 10 : Math.min(limit, MAX_HOT);
+        List<Long> ids = trendingService.getSnapshot().getProducts().stream()
+                .map(HotSnapshot.Item::getId)
+                .collect(Collectors.toList());
+        List<Product> products = findByIdsInOrder(ids).stream()
+                .filter(product -> Integer.valueOf(1).equals(product.getStatus()))
+                .limit(size)
+                .collect(Collectors.toList());
+        return productResponseAssembler.toCards(products);
+    }
 
-        return convertToProductResponse(product);
+    /**
+     * 相似商品：同分类或相邻分类中标题、描述相近的在售商品，只查内存索引后按ID回表
+     */
+    public List<ProductCardResponse> listSimilarProducts(Long id, Integer limit) {
+        int size = limit == null || limit < 1 ? 6 : Math.min(limit, MAX_SIMILAR);
+        List<Long> ids = productSimilarityIndex.findSimilar(id, size);
+        return productResponseAssembler.toCards(findByIdsInOrder(ids));
     }
 
     /**
      * 商品列表
+     * after 不为 null 时使用游标分页（空串表示第一页），按 (排序列, id) 定位，不统计总数
+     * facets 为 true 时附带分类、成色、交易方式、价格区间的分面计数
      */
-    public PageResult<ProductResponse> listProducts(Long categoryId, List<Long> categoryIds, List<String> quality,
-                                                     BigDecimal minPrice, BigDecimal maxPrice,
+    public PageResult<ProductCardResponse> listProducts(Long categoryId, List<Long> categoryIds, List<String> quality,
+                                                     BigDecimal minPrice, BigDecimal maxPrice, List<Integer> transactionTypes,
                                                      Integer status, String keyword, String sortBy, String sortOrder,
-                                                     Integer pageNum, Integer pageSize) {
+                                                     Integer pageNum, Integer pageSize, String after,
+                                                     CountMode countMode, boolean facets) {
         if (pageNum == null || pageNum < 1) pageNum = 1;
         if (pageSize == null || pageSize < 1) pageSize = 10;
 
-        int offset = (pageNum - 1) * pageSize;
+        ProductQuery query = new ProductQuery();
+        query.setCategoryId(categoryId);
+        query.setCategoryIds(categoryIds);
+        if (categoryId != null) {
+            // 选中父分类时一并查出所有子孙分类下的商品
+            Set<Long> scope = categoryCache.get().descendantIds(categoryId);
+            if (scope.size() > 1) {
+                query.setCategoryScope(new ArrayList<>(scope));
+            }
+        }
+        query.setQuality(quality);
+        query.setMinPrice(minPrice);
+        query.setMaxPrice(maxPrice);
+        query.setTransactionTypes(transactionTypes);
+        query.setStatus(status);
+        query.setKeyword(keyword);
+        query.setSort(sortBy, sortOrder);
+        query.setCard(true);
+        // 关键词走内存全文索引：命中集合与其他筛选条件在内存中求交，排序分页、分面统计都复用它；索引未就绪时退回 LIKE
+        List<ProductSearchIndex.Hit> hits = StringUtils.hasText(keyword) && productSearchIndex.isReady()
+                ? productSearchIndex.search(keyword, status)
+                : null;
+        // 关键词检索依赖内存索引的实时状态，不进结果缓存
+        boolean cacheable = !StringUtils.hasText(keyword);
+        String cacheKey = cacheable ? productListCache.key(query, pageNum, pageSize, after, countMode) : null;
+        PageResult<Long> cached = cacheable ? productListCache.get(cacheKey) : null;
+
+        PageResult<Product> page;
+        if (hits != null) {
+            page = listProductsByHits(query, hits, pageNum, pageSize, after, StringUtils.hasText(sortBy));
+        } else if (cached != null) {
+            page = cached.withList(findByIdsInOrder(cached.getList()));
+        } else {
+            long generation = productListCache.generation();
+            page = loadProductPage(query, pageNum, pageSize, after, countMode);
+            if (cacheable) {
+                List<Long> ids = page.getList().stream().map(Product::getId).collect(Collectors.toList());
+                productListCache.put(cacheKey, query, page.withList(ids), generation);
+            }
+        }
 
-        List<Product> products = productMapper.listProducts(categoryId, categoryIds, quality, minPrice, maxPrice, 
-                                                            status, keyword, sortBy, sortOrder, offset, pageSize);
-        Long total = productMapper.countProducts(categoryId, categoryIds, quality, minPrice, maxPrice, status, keyword);
+        if (StringUtils.hasText(keyword) && pageNum == 1 && (after == null || after.isEmpty())
+                && !page.getList().isEmpty()) {
+            productSuggestService.recordQuery(keyword);
+        }
 
-        List<ProductResponse> responseList = products.stream()
-                .map(this::convertToProductResponse)
-                .collect(Collectors.toList());
+        PageResult<ProductCardResponse> result = page.withList(productResponseAssembler.toCards(page.getList()));
+        if (facets) {
+            return new FacetedPageResult<>(result, hits != null
+                    ? productFacetService.countFacets(query, hits)
+                    : productFacetService.countFacets(query));
+        }
+        return result;
+    }
 
-        return new PageResult<>(responseList, pageNum, pageSize, total);
+    /**
+     * 查询一页商品（未命中结果缓存时）
+     */
+    private PageResult<Product> loadProductPage(ProductQuery query, int pageNum, int pageSize,
+                                                String after, CountMode countMode) {
+        if (after != null) {
+            return listProductsByCursor(query, after, pageSize);
+        }
+        return pagingService.page(countMode, "product:" + query.filterKey(), pageNum, pageSize,
+                (offset, limit, withTotal) -> {
+                    query.setOffset(offset);
+                    query.setLimit(limit);
+                    query.setWithTotal(withTotal);
+                    return productMapper.listProducts(query);
+                },
+                () -> productMapper.countProducts(query),
+                Function.identity());
     }
 
     /**
-     * 我的商品
+     * 关键词检索的一页：用命中里的属性过滤其余条件，未指定排序时沿用相关度顺序，否则按排序列在内存中排序；
+     * 总数就是过滤后的命中数，数据库只按ID取最终这一页
      */
-    public PageResult<ProductResponse> listMyProducts(Integer status, Integer pageNum, Integer pageSize) {
-        Long userId = UserContext.getUserId();
-        if (userId == null) {
-            throw new BusinessException(401, "请先登录");
+    private PageResult<Product> listProductsByHits(ProductQuery query, List<ProductSearchIndex.Hit> hits,
+                                                   int pageNum, int pageSize, String after, boolean sorted) {
+        List<ProductSearchIndex.Hit> matched = hits.stream()
+                .filter(hit -> query.matchesFacets(hit.categoryId(), hit.condition(), hit.price(), hit.transactionType()))
+                .collect(Collectors.toList());
+
+        if (after == null && !sorted) {
+            List<Long> ranked = matched.stream().map(ProductSearchIndex.Hit::id).collect(Collectors.toList());
+            return slice(ranked, pageNum, pageSize);
         }
 
-        if (pageNum == null || pageNum < 1) pageNum = 1;
-        if (pageSize == null || pageSize < 1) pageSize = 10;
+        // 与 SQL 的 ORDER BY 排序列, id 一致
+        ProductSort sort = query.getSort();
+        Map<Long, Object> values = sortValues(sort, matched);
+        Comparator<SortKey> order = (a, b) -> {
+            int cmp = sort.compare(a.value(), b.value());
+            return cmp != 0 ? cmp : Long.compare(a.id(), b.id());
+        };
+        if (!query.isAscending()) {
+            order = order.reversed();
+        }
+        List<SortKey> keys = matched.stream()
+                .map(hit -> new SortKey(values.get(hit.id()), hit.id()))
+                .sorted(order)
+                .collect(Collectors.toList());
 
-        int offset = (pageNum - 1) * pageSize;
+        if (after == null) {
+            return slice(keys.stream().map(SortKey::id).collect(Collectors.toList()), pageNum, pageSize);
+        }
 
-        List<Product> products = productMapper.listMyProducts(userId, status, offset, pageSize);
-        Long total = productMapper.countMyProducts(userId, status);
+        // 游标分页：从上一页最后一行之后继续
+        if (!after.isEmpty()) {
+            PageCursor cursor = PageCursor.decode(after, sort.getColumn());
+            SortKey last;
+            try {
+                last = new SortKey(sort.parse(cursor.getValue()), cursor.getId());
+            } catch (RuntimeException e) {
+                throw new BusinessException("分页游标无效");
+            }
+            Comparator<SortKey> comparator = order;
+            keys = keys.stream().filter(key -> comparator.compare(key, last) > 0).collect(Collectors.toList());
+        }
+        String nextCursor = null;
+        if (keys.size() > pageSize) {
+            keys = keys.subList(0, pageSize);
+            SortKey last = keys.get(pageSize - 1);
+            nextCursor = new PageCursor(sort.getColumn(), String.valueOf(last.value()), last.id()).encode();
+        }
+        List<Product> products = findByIdsInOrder(keys.stream().map(SortKey::id).collect(Collectors.toList()));
+        return PageResult.ofCursor(products, pageSize, nextCursor);
+    }
 
-        List<ProductResponse> responseList = products.stream()
-                .map(this::convertToProductResponse)
-                .collect(Collectors.toList());
+    private record SortKey(Object value, Long id) {
+    }
 
-        return new PageResult<>(responseList, pageNum, pageSize, total);
+    /**
+     * 命中商品在排序列上的值：创建时间、价格取自索引；浏览量、收藏量变化频繁不进索引，按ID分批回表
+     */
+    private Map<Long, Object> sortValues(ProductSort sort, List<ProductSearchIndex.Hit> hits) {
+        Map<Long, Object> values = new HashMap<>(hits.size() * 2);
+        if (sort == ProductSort.CREATE_TIME || sort == ProductSort.PRICE) {
+            for (ProductSearchIndex.Hit hit : hits) {
+                values.put(hit.id(), sort == ProductSort.CREATE_TIME ? hit.createTime() : hit.price());
+            }
+            return values;
+        }
+        for (int from = 0; from < hits.size(); from += SORT_VALUE_BATCH_SIZE) {
+            List<Long> ids = hits.subList(from, Math.min(from + SORT_VALUE_BATCH_SIZE, hits.size())).stream()
+                    .map(ProductSearchIndex.Hit::id)
+                    .collect(Collectors.toList());
+            for (Product product : productMapper.findCountsByIds(ids)) {
+                values.put(product.getId(), sort.valueOf(product));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 截取已排好序的ID列表中的一页并回表
+     */
+    private PageResult<Product> slice(List<Long> ids, int pageNum, int pageSize) {
+        int from = (int) Math.min((long) (pageNum - 1) * pageSize, ids.size());
+        int to = Math.min(from + pageSize, ids.size());
+        List<Product> products = findByIdsInOrder(ids.subList(from, to));
+        return PageResult.of(products, pageNum, pageSize, ids.size(), true);
     }
 
     /**
-     * 转换为响应DTO
+     * 按给定ID顺序批量查询商品卡片列
      */
-    private ProductResponse convertToProductResponse(Product product) {
-        ProductResponse response = new ProductResponse();
-        BeanUtils.copyProperties(product, response);
-        response.setImages(convertJsonToList(product.getImages()));
-        response.setStatusText(STATUS_MAP.get(product.getStatus()));
-        response.setTransactionTypeText(TRANSACTION_TYPE_MAP.get(product.getTransactionType()));
-
-        // 查询用户信息
-        User user = userMapper.findById(product.getUserId());
-        if (user != null) {
-            response.setUsername(user.getUsername());
-        }
-
-        // 查询分类信息
-        if (product.getCategoryId() != null) {
-            Category category = categoryMapper.findById(product.getCategoryId());
-            if (category != null) {
-                response.setCategoryName(category.getName());
-            } else {
-                response.setCategoryName("未分类");
+    private List<Product> findByIdsInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Product> byId = productMapper.findCardsByIds(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 游标分页：多取一行判断是否还有下一页
+     */
+    private PageResult<Product> listProductsByCursor(ProductQuery query, String after, int pageSize) {
+        ProductSort sort = query.getSort();
+        if (!after.isEmpty()) {
+            PageCursor cursor = PageCursor.decode(after, sort.getColumn());
+            try {
+                query.setCursorValue(sort.parse(cursor.getValue()));
+            } catch (RuntimeException e) {
+                throw new BusinessException("分页游标无效");
             }
-        } else {
-            response.setCategoryName("未分类");
+            query.setCursorId(cursor.getId());
         }
+        query.setLimit(pageSize + 1);
+
+        List<Product> products = productMapper.listProducts(query);
+        String nextCursor = null;
+        if (products.size() > pageSize) {
+            products = products.subList(0, pageSize);
+            Product last = products.get(pageSize - 1);
+            nextCursor = new PageCursor(sort.getColumn(), String.valueOf(sort.valueOf(last)), last.getId()).encode();
+        }
+
+        return PageResult.ofCursor(products, pageSize, nextCursor);
+    }
 
-        // 检查是否已收藏
+    /**
+     * 我的商品
+     */
+    public PageResult<ProductCardResponse> listMyProducts(Integer status, Integer pageNum, Integer pageSize,
+                                                      CountMode countMode) {
         Long userId = UserContext.getUserId();
-        if (userId != null) {
-            int count = favoriteMapper.existsByUserIdAndProductId(userId, product.getId());
-            response.setIsFavorite(count > 0);
-        } else {
-            response.setIsFavorite(false);
+        if (userId == null) {
+            throw new BusinessException(401, "请先登录");
         }
 
-        return response;
+        if (pageNum == null || pageNum < 1) pageNum = 1;
+        if (pageSize == null || pageSize < 1) pageSize = 10;
+
+        return pagingService.page(countMode, "myProduct:" + userId + "|s=" + status, pageNum, pageSize,
+                (offset, limit, withTotal) -> productMapper.listMyProducts(userId, status, offset, limit, withTotal),
+                () -> productMapper.countMyProducts(userId, status),
+                productResponseAssembler::toCards);
     }
 
     /**
@@ -284,19 +510,4 @@ public class ProductService {
         }
         return "[\"" + String.join("\",\"", list) + "\"]";
     }
-
-    /**
-     * JSON字符串转List
-     */
-    private List<String> convertJsonToList(String json) {
-        if (json == null || json.isEmpty() || "[]".equals(json)) {
-            return Arrays.asList();
-        }
-        // 简单解析JSON数组
-        json = json.replace("[", "").replace("]", "").replace("\"", "");
-        if (json.isEmpty()) {
-            return Arrays.asList();
-        }
-        return Arrays.asList(json.split(","));
-    }
 }
@@ -0,0 +1,330 @@
+package com.modestcyber.service;
+
+import com.modestcyber.event.ProductChangedEvent;
+import com.modestcyber.mapper.ProductMapper;
+import com.modestcyber.pojo.Product;
+import com.modestcyber.util.MinHash;
+import com.modestcyber.util.TextTokenizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 相似商品索引
+ * 标题和描述切成词组后计算 MinHash 签名，LSH 分桶召回候选，再按签名估计的 Jaccard 相似度排序；
+ * 启动时从数据库重建，之后随商品变更事件增量维护
+ */
+@Slf4j
+@Service
+public class ProductSimilarityIndex {
+
+    private static final int ON_SALE = 1;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final int MAX_DESCRIPTION_LENGTH = 200;  // 描述只取开头，避免长描述淹没标题
+    private static final int MAX_CANDIDATES = 500;          // 单次查询最多比较的候选数
+    private static final double MIN_SIMILARITY = 0.1;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private CategoryCache categoryCache;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    private Set<Long> changedDuringRebuild;  // 重建期间变更的商品，换上新索引后重放；不在重建时为 null
+    private volatile boolean ready;
+
+    /**
+     * 已索引文档及 LSH 分桶
+     */
+    private static class Index {
+        private final Map<Long, Doc> docs = new HashMap<>();
+        private final Map<Long, Set<Long>> buckets = new HashMap<>();
+
+        private void put(Long productId, Doc doc) {
+            remove(productId);
+            if (doc == null) {
+                return;
+            }
+            docs.put(productId, doc);
+            for (long key : doc.bandKeys) {
+                buckets.computeIfAbsent(key, k -> new HashSet<>()).add(productId);
+            }
+        }
+
+        private void remove(Long productId) {
+            Doc old = docs.remove(productId);
+            if (old == null) {
+                return;
+            }
+            for (long key : old.bandKeys) {
+                Set<Long> bucket = buckets.get(key);
+                if (bucket != null) {
+                    bucket.remove(productId);
+                    if (bucket.isEmpty()) {
+                        buckets.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    private static class Doc {
+        private final int[] signature;
+        private final long[] bandKeys;
+        private final Long categoryId;
+        private Integer status;
+
+        private Doc(int[] signature, Long categoryId, Integer status) {
+            this.signature = signature;
+            this.bandKeys = MinHash.bandKeys(signature);
+            this.categoryId = categoryId;
+            this.status = status;
+        }
+    }
+
+    /**
+     * 启动时从数据库重建索引
+     * 新索引在锁外构建，完成后在写锁内整体换上；期间变更的商品换上后再按最新数据重放。
+     * 失败时相似商品暂时为空，由 retryRebuild 定时重试，不影响应用启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            Index fresh = new Index();
+            long afterId = 0L;
+            while (true) {
+                List<Product> batch = productMapper.listForSearchIndex(afterId, REBUILD_BATCH_SIZE);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (Product product : batch) {
+                    fresh.put(product.getId(), docOf(product));
+                }
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+
+            Set<Long> changed;
+            lock.writeLock().lock();
+            try {
+                index = fresh;
+                changed = changedDuringRebuild;
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            for (Long productId : changed) {
+                refresh(productId);
+            }
+            ready = true;
+            log.info("相似商品索引构建完成: {} 件商品, {} 个桶, 重放 {} 件变更商品, 耗时 {} ms",
+                    fresh.docs.size(), fresh.buckets.size(), changed.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("相似商品索引构建失败，稍后重试", e);
+        }
+    }
+
+    /**
+     * 首次构建失败时定时重试
+     */
+    @Scheduled(initialDelayString = "${startup-load.retry-interval-ms:30000}",
+            fixedDelayString = "${startup-load.retry-interval-ms:30000}")
+    public void retryRebuild() {
+        if (!ready) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 商品变更后增量维护索引（事务提交后执行）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.Type.DELETED) {
+            remove(event.getProductId());
+            return;
+        }
+        Product product = productMapper.findById(event.getProductId());
+        if (product == null) {
+            remove(event.getProductId());
+        } else if (event.getType() == ProductChangedEvent.Type.STATUS_CHANGED) {
+            updateStatus(product.getId(), product.getStatus());
+        } else {
+            index(product);
+        }
+    }
+
+    /**
+     * 按库中最新数据替换商品的索引（重放重建期间的变更）
+     */
+    private void refresh(Long productId) {
+        Product product = productMapper.findById(productId);
+        if (product == null) {
+            remove(productId);
+        } else {
+            index(product);
+        }
+    }
+
+    public void index(Product product) {
+        Doc doc = docOf(product);
+        lock.writeLock().lock();
+        try {
+            markChanged(product.getId());
+            index.put(product.getId(), doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            markChanged(productId);
+            index.remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateStatus(Long productId, Integer status) {
+        lock.writeLock().lock();
+        try {
+            markChanged(productId);
+            Doc doc = index.docs.get(productId);
+            if (doc != null) {
+                doc.status = status;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 重建期间记下变更的商品（持有写锁时调用）
+     */
+    private void markChanged(Long productId) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(productId);
+        }
+    }
+
+    /**
+     * 计算商品的签名，没有可用词组时返回 null（不进索引）
+     */
+    private Doc docOf(Product product) {
+        int[] signature = MinHash.signature(shingles(product));
+        return signature != null ? new Doc(signature, product.getCategoryId(), product.getStatus()) : null;
+    }
+
+    /**
+     * 查找相似的在售商品
+     * 只在同分类或相邻分类（父子、同一父分类下）中召回
+     *
+     * @param productId 商品ID
+     * @param limit     返回条数
+     * @return 相似商品ID，按相似度从高到低
+     */
+    public List<Long> findSimilar(Long productId, int limit) {
+        List<Long> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Doc target = index.docs.get(productId);
+            if (target == null) {
+                return result;
+            }
+
+            Set<Long> candidates = new LinkedHashSet<>();
+            collect:
+            for (long key : target.bandKeys) {
+                for (Long id : index.buckets.getOrDefault(key, Set.of())) {
+                    if (candidates.size() >= MAX_CANDIDATES) {
+                        break collect;
+                    }
+                    candidates.add(id);
+                }
+            }
+            candidates.remove(productId);
+
+            List<Map.Entry<Long, Double>> scored = new ArrayList<>();
+            for (Long id : candidates) {
+                Doc doc = index.docs.get(id);
+                if (doc == null || !Integer.valueOf(ON_SALE).equals(doc.status)
+                        || !isNearCategory(target.categoryId, doc.categoryId)) {
+                    continue;
+                }
+                double score = MinHash.similarity(target.signature, doc.signature);
+                if (score >= MIN_SIMILARITY) {
+                    scored.add(Map.entry(id, score));
+                }
+            }
+            scored.sort((a, b) -> {
+                int cmp = Double.compare(b.getValue(), a.getValue());
+                return cmp != 0 ? cmp : Long.compare(b.getKey(), a.getKey());
+            });
+            for (int i = 0; i < scored.size() && i < limit; i++) {
+                result.add(scored.get(i).getKey());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 同分类、父子分类或同一父分类下的兄弟分类视为相邻
+     */
+    private boolean isNearCategory(Long a, Long b) {
+        if (Objects.equals(a, b)) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        CategorySnapshot categories = categoryCache.get();
+        Long parentA = categories.parentId(a);
+        Long parentB = categories.parentId(b);
+        return a.equals(parentB) || b.equals(parentA)
+                || (parentA != null && parentA != 0 && parentA.equals(parentB));
+    }
+
+    private Set<String> shingles(Product product) {
+        Set<String> shingles = new HashSet<>(TextTokenizer.queryTokens(product.getTitle()));
+        String description = product.getDescription();
+        if (description != null && description.length() > MAX_DESCRIPTION_LENGTH) {
+            description = description.substring(0, MAX_DESCRIPTION_LENGTH);
+        }
+        shingles.addAll(TextTokenizer.queryTokens(description));
+        return shingles;
+    }
+}
@@ -0,0 +1,292 @@
+package com.modestcyber.service;
+
+import com.modestcyber.event.ProductChangedEvent;
+import com.modestcyber.mapper.ProductMapper;
+import com.modestcyber.pojo.Product;
+import com.modestcyber.util.PrefixTrie;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 搜索联想服务
+ * 在售商品标题与热门搜索词放在内存前缀树中，按浏览量、收藏量和搜索次数加权，输入过程中不访问数据库；
+ * 搜索次数定时减半并清理归零的词，旧的热词逐渐退出联想，跟踪的搜索词数量有上限
+ */
+@Slf4j
+@Service
+public class ProductSuggestService {
+
+    private static final int TOP_K = 10;
+    private static final int MAX_KEY_LENGTH = 40;
+    private static final int ON_SALE = 1;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final int FAVORITE_WEIGHT = 5;      // 一次收藏折合的浏览量
+    private static final int QUERY_WEIGHT = 20;        // 一次搜索折合的浏览量
+    private static final int MIN_QUERY_COUNT = 3;      // 搜索次数达到后才进入联想，过滤偶发的错别字
+    private static final int MAX_TRACKED_QUERIES = 10000;  // 满额时新词暂不计数，等下次衰减清理出空位
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    private Set<Long> changedDuringRebuild;  // 重建期间变更的商品，换上新树后重放；不在重建时为 null
+    private volatile boolean ready;
+    private final Map<String, AtomicLong> queryCounts = new ConcurrentHashMap<>();
+
+    /**
+     * 前缀树及已计入的在售商品：商品ID -> (词, 权重)
+     */
+    private static class Index {
+        private final PrefixTrie trie = new PrefixTrie(TOP_K);
+        private final Map<Long, Contribution> products = new HashMap<>();
+    }
+
+    private static class Contribution {
+        private final String key;
+        private final long weight;
+
+        private Contribution(String key, long weight) {
+            this.key = key;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * 联想补全
+     *
+     * @param prefix 用户已输入的前缀
+     * @param limit  返回条数，最多 10 条
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            return index.trie.suggest(key, Math.min(limit, TOP_K));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 启动时从数据库加载在售商品标题
+     * 新树在锁外构建，构建期间联想照常读旧树，完成后在写锁内整体换上；期间变更的商品换上后再按最新数据重放。
+     * 失败时联想只有热门搜索词和此后变更的商品，由 retryRebuild 定时重试，不影响应用启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            Index fresh = new Index();
+            long afterId = 0L;
+            while (true) {
+                List<Product> batch = productMapper.listForSuggest(afterId, ON_SALE, REBUILD_BATCH_SIZE);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (Product product : batch) {
+                    Contribution contribution = contributionOf(product);
+                    if (contribution != null) {
+                        fresh.trie.load(contribution.key, product.getTitle().trim(), contribution.weight);
+                        fresh.products.put(product.getId(), contribution);
+                    }
+                }
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+            queryCounts.forEach((query, count) -> {
+                long weight = queryWeight(count.get());
+                if (weight > 0) {
+                    fresh.trie.load(query, query, weight);
+                }
+            });
+            fresh.trie.rebuildTop();
+
+            Set<Long> changed;
+            int size;
+            lock.writeLock().lock();
+            try {
+                index = fresh;
+                size = fresh.trie.size();
+                changed = changedDuringRebuild;
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            for (Long productId : changed) {
+                refresh(productId, false);
+            }
+            ready = true;
+            log.info("搜索联想前缀树构建完成: {} 个词条, 重放 {} 件变更商品, 耗时 {} ms",
+                    size, changed.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("搜索联想前缀树构建失败，稍后重试", e);
+        }
+    }
+
+    /**
+     * 首次构建失败时定时重试
+     */
+    @Scheduled(initialDelayString = "${startup-load.retry-interval-ms:30000}",
+            fixedDelayString = "${startup-load.retry-interval-ms:30000}")
+    public void retryRebuild() {
+        if (!ready) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 定时衰减搜索次数：每个词的次数减半，前缀树中的权重同步扣减，次数归零的词不再跟踪；
+     * 与 rebuild 互斥，避免新树按衰减前的次数导入
+     */
+    @Scheduled(initialDelayString = "${suggest.query-decay-interval-ms:3600000}",
+            fixedDelayString = "${suggest.query-decay-interval-ms:3600000}")
+    public synchronized void decayQueries() {
+        int removed = 0;
+        for (Map.Entry<String, AtomicLong> entry : queryCounts.entrySet()) {
+            AtomicLong count = entry.getValue();
+            long before = count.getAndUpdate(n -> n / 2);
+            long after = before / 2;
+            long delta = queryWeight(after) - queryWeight(before);
+            if (delta != 0) {
+                lock.writeLock().lock();
+                try {
+                    index.trie.add(entry.getKey(), entry.getKey(), delta);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            if (after == 0 && queryCounts.remove(entry.getKey(), count)) {
+                removed++;
+            }
+        }
+        log.debug("搜索次数衰减完成: 清理 {} 个词, 剩余 {} 个", removed, queryCounts.size());
+    }
+
+    /**
+     * 商品变更后增量维护（事务提交后执行）：只有在售商品进入联想
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        refresh(event.getProductId(), event.getType() == ProductChangedEvent.Type.DELETED);
+    }
+
+    /**
+     * 记录一次有结果的搜索，达到次数阈值后作为热门搜索词进入联想
+     */
+    public void recordQuery(String keyword) {
+        String key = normalize(keyword);
+        if (key.isEmpty()) {
+            return;
+        }
+        AtomicLong count = queryCounts.get(key);
+        if (count == null) {
+            if (queryCounts.size() >= MAX_TRACKED_QUERIES) {
+                return;
+            }
+            count = queryCounts.computeIfAbsent(key, k -> new AtomicLong());
+        }
+        long n = count.incrementAndGet();
+        // 达到阈值时一次补齐之前的次数
+        long delta = queryWeight(n) - queryWeight(n - 1);
+        if (delta == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            index.trie.add(key, key, delta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按库中最新数据替换商品在当前树中的词条
+     */
+    private void refresh(Long productId, boolean deleted) {
+        Product product = deleted ? null : productMapper.findById(productId);
+        Contribution next = product != null && Integer.valueOf(ON_SALE).equals(product.getStatus())
+                ? contributionOf(product)
+                : null;
+
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(productId);
+            }
+            Contribution previous = index.products.remove(productId);
+            if (previous != null) {
+                index.trie.add(previous.key, previous.key, -previous.weight);
+            }
+            if (next != null) {
+                index.trie.add(next.key, product.getTitle().trim(), next.weight);
+                index.products.put(productId, next);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 搜索词在前缀树中的权重：未达到次数阈值时不进入联想
+     */
+    private long queryWeight(long count) {
+        return count >= MIN_QUERY_COUNT ? count * QUERY_WEIGHT : 0L;
+    }
+
+    private Contribution contributionOf(Product product) {
+        String key = normalize(product.getTitle());
+        if (key.isEmpty()) {
+            return null;
+        }
+        long weight = 1L + nullToZero(product.getViewCount()) + (long) FAVORITE_WEIGHT * nullToZero(product.getFavoriteCount());
+        return new Contribution(key, weight);
+    }
+
+    private long nullToZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    /**
+     * 小写、折叠空白，过长的标题只保留前缀部分
+     */
+    private String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String key = text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+}
@@ -0,0 +1,147 @@
+package com.modestcyber.service;
+
+import com.modestcyber.util.SqlFingerprint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * SQL 形状统计服务
+ * 按语句指纹累计执行次数和耗时，并保留一份最近的 SQL 与参数样本供 EXPLAIN 使用
+ */
+@Slf4j
+@Service
+public class QueryProfileService {
+
+    private static final int MAX_SHAPES = 1000;
+    private static final int SAMPLE_INTERVAL = 64;  // 每执行多少次刷新一次参数样本
+
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * 语句样本：SQL 与对应的参数值（IN 列表长度不同的语句指纹相同，两者必须成对保存）
+     */
+    public record Sample(String sql, List<Object> params) {
+    }
+
+    /**
+     * 单个 SQL 形状的统计
+     */
+    public static class ShapeStats {
+        private final String fingerprint;
+        private final String statementId;
+        private final boolean select;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0L);
+        private volatile Sample sample;
+
+        private ShapeStats(String fingerprint, String statementId, boolean select) {
+            this.fingerprint = fingerprint;
+            this.statementId = statementId;
+            this.select = select;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public String getStatementId() {
+            return statementId;
+        }
+
+        public boolean isSelect() {
+            return select;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public Sample getSample() {
+            return sample;
+        }
+
+        public Map<String, Object> toMap() {
+            long n = count.sum();
+            long total = totalNanos.sum();
+            Map<String, Object> map = new HashMap<>();
+            map.put("fingerprint", fingerprint);
+            map.put("statementId", statementId);
+            map.put("count", n);
+            map.put("totalMs", total / 1_000_000.0);
+            map.put("avgMs", n == 0 ? 0 : total / 1_000_000.0 / n);
+            map.put("maxMs", maxNanos.get() / 1_000_000.0);
+            return map;
+        }
+    }
+
+    /**
+     * 记录一次语句执行
+     *
+     * @param params 参数值，只在需要刷新样本时才会取值
+     */
+    public void record(String statementId, String sql, boolean select, long nanos, Supplier<List<Object>> params) {
+        String fingerprint = SqlFingerprint.of(sql);
+        ShapeStats stats = shapes.get(fingerprint);
+        if (stats == null) {
+            if (shapes.size() >= MAX_SHAPES) {
+                dropped.increment();
+                return;
+            }
+            stats = shapes.computeIfAbsent(fingerprint, k -> new ShapeStats(k, statementId, select));
+        }
+        stats.count.increment();
+        stats.totalNanos.add(nanos);
+        stats.maxNanos.accumulate(nanos);
+        if (select && (stats.sample == null || stats.count.sum() % SAMPLE_INTERVAL == 0)) {
+            stats.sample = new Sample(SqlFingerprint.compact(sql), params.get());
+        }
+    }
+
+    /**
+     * 按累计耗时从高到低取前 N 个形状
+     */
+    public List<ShapeStats> topShapes(int limit) {
+        return shapes.values().stream()
+                .sorted(Comparator.comparingLong(ShapeStats::getTotalNanos).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public List<Map<String, Object>> topShapeStats(int limit) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (ShapeStats stats : topShapes(limit)) {
+            result.add(stats.toMap());
+        }
+        return result;
+    }
+
+    /**
+     * 超出形状上限未被记录的执行次数
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public void reset() {
+        shapes.clear();
+        dropped.reset();
+        log.info("SQL 形状统计已重置");
+    }
+}
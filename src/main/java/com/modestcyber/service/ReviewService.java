@@ -2,17 +2,16 @@ package com.modestcyber.service;
 
 import com.modestcyber.common.PageResult;
 import com.modestcyber.context.UserContext;
+import com.modestcyber.converter.ReviewConverter;
 import com.modestcyber.dto.request.CreateReviewRequest;
 import com.modestcyber.dto.response.ReviewResponse;
 import com.modestcyber.exception.BusinessException;
 import com.modestcyber.mapper.OrderMapper;
 import com.modestcyber.mapper.ReviewMapper;
-import com.modestcyber.mapper.UserMapper;
 import com.modestcyber.pojo.Order;
 import com.modestcyber.pojo.Review;
 import com.modestcyber.pojo.User;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -35,7 +34,10 @@ public class ReviewService {
     private OrderMapper orderMapper;
 
     @Autowired
-    private UserMapper userMapper;
+    private DataLoader dataLoader;
+
+    @Autowired
+    private ReviewConverter reviewConverter;
 
     /**
      * 创建评价
@@ -89,10 +91,7 @@ public class ReviewService {
      * 查询订单评价
      */
     public List<ReviewResponse> getReviewsByOrderId(Long orderId) {
-        List<Review> reviews = reviewMapper.findByOrderId(orderId);
-        return reviews.stream()
-                .map(this::convertToReviewResponse)
-                .collect(Collectors.toList());
+        return toResponses(reviewMapper.findByOrderId(orderId));
     }
 
     /**
@@ -112,28 +111,36 @@ public class ReviewService {
         List<Review> reviews = reviewMapper.listReviewsByReviewedId(userId, offset, pageSize);
         Long total = reviewMapper.countReviewsByReviewedId(userId);
 
-        List<ReviewResponse> responseList = reviews.stream()
+        return new PageResult<>(toResponses(reviews), pageNum, pageSize, total);
+    }
+
+    /**
+     * 批量转换为响应DTO：先登记全部评价者与被评价者ID，只查一次用户表
+     */
+    private List<ReviewResponse> toResponses(List<Review> reviews) {
+        for (Review review : reviews) {
+            dataLoader.registerUser(review.getReviewerId());
+            dataLoader.registerUser(review.getReviewedId());
+        }
+        return reviews.stream()
                 .map(this::convertToReviewResponse)
                 .collect(Collectors.toList());
-
-        return new PageResult<>(responseList, pageNum, pageSize, total);
     }
 
     /**
      * 转换为响应DTO
      */
     private ReviewResponse convertToReviewResponse(Review review) {
-        ReviewResponse response = new ReviewResponse();
-        BeanUtils.copyProperties(review, response);
+        ReviewResponse response = reviewConverter.toResponse(review);
 
-        // 查询评价者信息
-        User reviewer = userMapper.findById(review.getReviewerId());
+        // 评价者信息
+        User reviewer = dataLoader.user(review.getReviewerId());
         if (reviewer != null) {
             response.setReviewerName(reviewer.getUsername());
         }
 
-        // 查询被评价者信息
-        User reviewed = userMapper.findById(review.getReviewedId());
+        // 被评价者信息
+        User reviewed = dataLoader.user(review.getReviewedId());
         if (reviewed != null) {
             response.setReviewedName(reviewed.getUsername());
         }
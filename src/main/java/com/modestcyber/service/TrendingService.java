@@ -0,0 +1,394 @@
+package com.modestcyber.service;
+
+import com.modestcyber.dto.query.ProductEventRow;
+import com.modestcyber.dto.response.HotSnapshot;
+import com.modestcyber.mapper.FavoriteMapper;
+import com.modestcyber.mapper.OrderMapper;
+import com.modestcyber.pojo.Product;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * 热度榜服务
+ * 浏览、收藏、下单按权重计入商品和分类的热度，热度按半衰期指数衰减。采用前向衰减：
+ * 事件发生在 t 时记 w*e^(λ(t-L))（L 为基准时刻），分数只增不减、可直接累加，比较时统一乘 e^(-λ(now-L))；
+ * 分数保存在 ConcurrentHashMap + DoubleAdder 中（均为分段结构，记录时无全局锁），
+ * 定时用小顶堆取 Top-K 生成快照。分数只在本实例内存中累计，快照不跨实例共享：多实例部署时各实例启动回放的收藏与下单一致，
+ * 之后只计入本实例处理的行为。另按天保留最近 30 天的原始次数，供按日期区间统计
+ */
+@Slf4j
+@Service
+public class TrendingService {
+
+    /**
+     * 行为类型及权重（以一次浏览为 1）
+     */
+    public enum Action {
+        VIEW(1), FAVORITE(5), ORDER(10);
+
+        private final int weight;
+
+        Action(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final int RETENTION_DAYS = 30;
+    private static final int REPLAY_BATCH_SIZE = 1000;
+    private static final double RESCALE_EXPONENT = 32;   // 指数超过后平移基准时刻，避免 double 溢出
+    private static final double MIN_SCORE = 0.01;        // 衰减到此以下的条目在生成快照时清理
+
+    @Autowired
+    private FavoriteMapper favoriteMapper;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Value("${trending.half-life-hours:24}")
+    private double halfLifeHours;
+
+    @Value("${trending.top-k:100}")
+    private int topK;
+
+    private double lambda;              // 每毫秒的衰减率
+    private volatile long landmark;     // 基准时刻（毫秒）
+    private long startedAt;             // 启动时刻，此后的行为已实时计入，回放时跳过
+    private volatile boolean replayed;
+
+    private final Map<Long, ProductScore> productScores = new ConcurrentHashMap<>();
+    private final Map<Long, DoubleAdder> categoryScores = new ConcurrentHashMap<>();
+    private final Map<LocalDate, Map<Long, DayCounts>> days = new ConcurrentHashMap<>();
+    // 记录事件持读锁，平移基准时刻与清理衰减条目持写锁
+    private final ReadWriteLock rescaleLock = new ReentrantReadWriteLock();
+    private final AtomicReference<HotSnapshot> latest = new AtomicReference<>(new HotSnapshot());
+
+    private static class ProductScore {
+        private volatile Long categoryId;
+        private final DoubleAdder score = new DoubleAdder();
+    }
+
+    private static class DayCounts {
+        private volatile Long categoryId;
+        private final LongAdder[] counts = {new LongAdder(), new LongAdder(), new LongAdder()};
+    }
+
+    @PostConstruct
+    public void init() {
+        lambda = Math.log(2) / (halfLifeHours * 3600_000L);
+        landmark = System.currentTimeMillis();
+        startedAt = landmark;
+    }
+
+    /**
+     * 启动时回放最近 30 天的收藏与下单（浏览量没有明细记录，从启动后开始累计），随后生成首个快照
+     * 两类明细都读完后才计入，读到一半失败时重试不会重复计数；失败时热度榜只有启动后的行为，由 retryReplay 定时重试
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void replay() {
+        long start = System.currentTimeMillis();
+        LocalDateTime since = LocalDate.now().minusDays(RETENTION_DAYS - 1).atStartOfDay();
+        try {
+            List<ProductEventRow> favorites = load(afterId -> favoriteMapper.listCreatedSince(afterId, since, REPLAY_BATCH_SIZE));
+            List<ProductEventRow> orders = load(afterId -> orderMapper.listCreatedSince(afterId, since, REPLAY_BATCH_SIZE));
+            replay(Action.FAVORITE, favorites);
+            replay(Action.ORDER, orders);
+            replayed = true;
+            log.info("热度榜回放完成: {} 条收藏, {} 条订单, 耗时 {} ms",
+                    favorites.size(), orders.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("热度榜回放失败，稍后重试", e);
+            return;
+        }
+        publish();
+    }
+
+    /**
+     * 首次回放失败时定时重试
+     */
+    @Scheduled(initialDelayString = "${startup-load.retry-interval-ms:30000}",
+            fixedDelayString = "${startup-load.retry-interval-ms:30000}")
+    public void retryReplay() {
+        if (!replayed) {
+            replay();
+        }
+    }
+
+    /**
+     * 按ID分批读取启动之前的明细
+     */
+    private List<ProductEventRow> load(Function<Long, List<ProductEventRow>> loader) {
+        List<ProductEventRow> rows = new ArrayList<>();
+        long afterId = 0L;
+        while (true) {
+            List<ProductEventRow> batch = loader.apply(afterId);
+            if (batch.isEmpty()) {
+                return rows;
+            }
+            for (ProductEventRow row : batch) {
+                if (toMillis(row.getCreateTime()) < startedAt) {
+                    rows.add(row);
+                }
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    private void replay(Action action, List<ProductEventRow> rows) {
+        for (ProductEventRow row : rows) {
+            record(row.getProductId(), row.getCategoryId(), action, toMillis(row.getCreateTime()));
+        }
+    }
+
+    private long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 记录一次商品行为
+     */
+    public void record(Product product, Action action) {
+        record(product.getId(), product.getCategoryId(), action);
+    }
+
+    /**
+     * 在当前事务提交后记录商品行为（无事务时立即记录），回滚的收藏、下单不计入热度
+     */
+    public void recordAfterCommit(Product product, Action action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(product, action);
+            return;
+        }
+        Long productId = product.getId();
+        Long categoryId = product.getCategoryId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(productId, categoryId, action);
+            }
+        });
+    }
+
+    public void record(Long productId, Long categoryId, Action action) {
+        record(productId, categoryId, action, System.currentTimeMillis());
+    }
+
+    private void record(Long productId, Long categoryId, Action action, long time) {
+        rescaleLock.readLock().lock();
+        try {
+            double weight = action.weight * Math.exp(lambda * (time - landmark));
+            ProductScore productScore = productScores.computeIfAbsent(productId, id -> new ProductScore());
+            productScore.categoryId = categoryId;
+            productScore.score.add(weight);
+            if (categoryId != null) {
+                categoryScores.computeIfAbsent(categoryId, id -> new DoubleAdder()).add(weight);
+            }
+        } finally {
+            rescaleLock.readLock().unlock();
+        }
+
+        LocalDate day = Instant.ofEpochMilli(time).atZone(ZoneId.systemDefault()).toLocalDate();
+        if (day.isBefore(LocalDate.now().minusDays(RETENTION_DAYS - 1))) {
+            return;
+        }
+        DayCounts dayCounts = days.computeIfAbsent(day, d -> new ConcurrentHashMap<>())
+                .computeIfAbsent(productId, id -> new DayCounts());
+        dayCounts.categoryId = categoryId;
+        dayCounts.counts[action.ordinal()].increment();
+    }
+
+    /**
+     * 定时生成快照：取商品与分类的 Top-K，清理衰减殆尽的条目与过期的按天计数
+     */
+    @Scheduled(initialDelayString = "${trending.snapshot-interval-ms:60000}",
+            fixedDelayString = "${trending.snapshot-interval-ms:60000}")
+    public void publish() {
+        long now = System.currentTimeMillis();
+        if (lambda * (now - landmark) > RESCALE_EXPONENT) {
+            rescale(now);
+        }
+        double norm = Math.exp(-lambda * (now - landmark));
+
+        PriorityQueue<HotSnapshot.Item> productHeap = new PriorityQueue<>(Comparator.comparingDouble(HotSnapshot.Item::getScore));
+        List<Long> staleProducts = new ArrayList<>();
+        productScores.forEach((id, productScore) -> {
+            double score = productScore.score.sum() * norm;
+            if (score < MIN_SCORE) {
+                staleProducts.add(id);
+                return;
+            }
+            offer(productHeap, item(id, productScore.categoryId, score));
+        });
+        PriorityQueue<HotSnapshot.Item> categoryHeap = new PriorityQueue<>(Comparator.comparingDouble(HotSnapshot.Item::getScore));
+        List<Long> staleCategories = new ArrayList<>();
+        categoryScores.forEach((id, adder) -> {
+            double score = adder.sum() * norm;
+            if (score < MIN_SCORE) {
+                staleCategories.add(id);
+                return;
+            }
+            offer(categoryHeap, item(id, id, score));
+        });
+        prune(staleProducts, staleCategories, now);
+
+        HotSnapshot snapshot = new HotSnapshot();
+        snapshot.setGeneratedAt(now);
+        snapshot.setProducts(drain(productHeap));
+        snapshot.setCategories(drain(categoryHeap));
+        latest.set(snapshot);
+
+        LocalDate oldest = LocalDate.now().minusDays(RETENTION_DAYS - 1);
+        days.keySet().removeIf(day -> day.isBefore(oldest));
+    }
+
+    /**
+     * 清理衰减殆尽的条目：持写锁，与 record() 的“取条目 + 累加”互斥，否则刚累加到即将被移除的条目上的行为会丢失；
+     * 锁内重新检查，扫描之后又有新行为的条目保留
+     */
+    private void prune(List<Long> staleProducts, List<Long> staleCategories, long now) {
+        if (staleProducts.isEmpty() && staleCategories.isEmpty()) {
+            return;
+        }
+        rescaleLock.writeLock().lock();
+        try {
+            double norm = Math.exp(-lambda * (now - landmark));
+            for (Long id : staleProducts) {
+                productScores.computeIfPresent(id, (k, productScore) ->
+                        productScore.score.sum() * norm < MIN_SCORE ? null : productScore);
+            }
+            for (Long id : staleCategories) {
+                categoryScores.computeIfPresent(id, (k, adder) -> adder.sum() * norm < MIN_SCORE ? null : adder);
+            }
+        } finally {
+            rescaleLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 平移基准时刻到 now：所有分数乘以 e^(-λ(now-L))
+     */
+    private void rescale(long now) {
+        rescaleLock.writeLock().lock();
+        try {
+            double factor = Math.exp(-lambda * (now - landmark));
+            for (ProductScore productScore : productScores.values()) {
+                double value = productScore.score.sumThenReset();
+                productScore.score.add(value * factor);
+            }
+            for (DoubleAdder adder : categoryScores.values()) {
+                double value = adder.sumThenReset();
+                adder.add(value * factor);
+            }
+            landmark = now;
+        } finally {
+            rescaleLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 本实例的最新快照
+     */
+    public HotSnapshot getSnapshot() {
+        return latest.get();
+    }
+
+    /**
+     * 日期区间内的热门商品：按区间内浏览、收藏、下单次数加权排序（不衰减），只保留最近 30 天的数据
+     *
+     * @param start 开始日期（含）
+     * @param end   结束日期（含）
+     * @param limit 返回条数
+     */
+    public List<HotSnapshot.Item> rangeTop(LocalDate start, LocalDate end, int limit) {
+        Map<Long, HotSnapshot.Item> totals = new HashMap<>();
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            Map<Long, DayCounts> day = days.get(date);
+            if (day == null) {
+                continue;
+            }
+            day.forEach((id, dayCounts) -> {
+                HotSnapshot.Item item = totals.computeIfAbsent(id, k -> {
+                    HotSnapshot.Item created = item(k, dayCounts.categoryId, 0.0);
+                    created.setViewCount(0L);
+                    created.setFavoriteCount(0L);
+                    created.setOrderCount(0L);
+                    return created;
+                });
+                item.setViewCount(item.getViewCount() + dayCounts.counts[Action.VIEW.ordinal()].sum());
+                item.setFavoriteCount(item.getFavoriteCount() + dayCounts.counts[Action.FAVORITE.ordinal()].sum());
+                item.setOrderCount(item.getOrderCount() + dayCounts.counts[Action.ORDER.ordinal()].sum());
+            });
+        }
+
+        PriorityQueue<HotSnapshot.Item> heap = new PriorityQueue<>(Comparator.comparingDouble(HotSnapshot.Item::getScore));
+        for (HotSnapshot.Item item : totals.values()) {
+            item.setScore((double) (item.getViewCount() * Action.VIEW.weight
+                    + item.getFavoriteCount() * Action.FAVORITE.weight
+                    + item.getOrderCount() * Action.ORDER.weight));
+            offer(heap, item, limit);
+        }
+        return drain(heap);
+    }
+
+    private void offer(PriorityQueue<HotSnapshot.Item> heap, HotSnapshot.Item item) {
+        offer(heap, item, topK);
+    }
+
+    /**
+     * 维护大小为 k 的小顶堆：堆满时只有比堆顶大的条目才替换堆顶
+     */
+    private void offer(PriorityQueue<HotSnapshot.Item> heap, HotSnapshot.Item item, int k) {
+        if (heap.size() < k) {
+            heap.offer(item);
+        } else if (k > 0 && heap.peek().getScore() < item.getScore()) {
+            heap.poll();
+            heap.offer(item);
+        }
+    }
+
+    /**
+     * 取出堆中条目，按分数从高到低
+     */
+    private List<HotSnapshot.Item> drain(PriorityQueue<HotSnapshot.Item> heap) {
+        List<HotSnapshot.Item> items = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            items.add(heap.poll());
+        }
+        Collections.reverse(items);
+        return items;
+    }
+
+    private HotSnapshot.Item item(Long id, Long categoryId, double score) {
+        HotSnapshot.Item item = new HotSnapshot.Item();
+        item.setId(id);
+        item.setCategoryId(categoryId);
+        item.setScore(score);
+        return item;
+    }
+}
@@ -1,6 +1,7 @@
 package com.modestcyber.service;
 
 import com.modestcyber.context.UserContext;
+import com.modestcyber.converter.UserConverter;
 import com.modestcyber.dto.request.LoginRequest;
 import com.modestcyber.dto.request.RegisterRequest;
 import com.modestcyber.dto.request.UpdatePasswordRequest;
@@ -13,7 +14,6 @@ import com.modestcyber.mapper.UserMapper;
 import com.modestcyber.pojo.User;
 import com.modestcyber.util.JwtUtil;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -31,6 +31,9 @@ public class UserService {
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private UserConverter userConverter;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -102,8 +105,7 @@ public class UserService {
         }
 
         // 创建用户
-        User user = new User();
-        BeanUtils.copyProperties(request, user);
+        User user = userConverter.fromRequest(request);
         user.setPassword(passwordEncoder.encode(request.getPassword()));
         user.setRole("user");  // 默认角色为普通用户
         user.setStatus(1);  // 默认启用
@@ -275,8 +277,6 @@ public class UserService {
      * 转换为用户信息响应DTO
      */
     private UserInfoResponse convertToUserInfoResponse(User user) {
-        UserInfoResponse response = new UserInfoResponse();
-        BeanUtils.copyProperties(user, response);
-        return response;
+        return userConverter.toInfoResponse(user);
     }
 }
@@ -0,0 +1,91 @@
+package com.modestcyber.service;
+
+import com.modestcyber.mapper.ProductMapper;
+import com.modestcyber.util.DeltaCounter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 商品浏览量计数服务
+ * 浏览只在内存中累加，定时合并成一条 UPDATE ... CASE 批量落库，详情页不再每次浏览都写一行；
+ * 展示的浏览量为库中的值加上尚未落库的增量
+ */
+@Slf4j
+@Service
+public class ViewCountService {
+
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ProductDetailCache productDetailCache;
+
+    private final DeltaCounter counter = new DeltaCounter();
+
+    /**
+     * 记录一次浏览
+     */
+    public void increment(Long productId) {
+        counter.increment(productId);
+    }
+
+    /**
+     * 尚未落库的浏览量
+     */
+    public long pending(Long productId) {
+        return counter.pending(productId);
+    }
+
+    /**
+     * 定时落库；每批最多 500 件商品一条语句，失败的批次放回下次重试
+     */
+    @Scheduled(fixedDelayString = "${view-counter.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        Map<Long, Long> drained = counter.drain();
+        if (drained.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> batch = new LinkedHashMap<>();
+        for (Map.Entry<Long, Long> entry : drained.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            if (batch.size() >= FLUSH_BATCH_SIZE) {
+                write(batch);
+                batch = new LinkedHashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(Map<Long, Long> batch) {
+        try {
+            productMapper.addViewCounts(batch);
+            // 与收藏量一致：落库后失效详情缓存（版本号加一）。若在缓存条目上原地累加，
+            // 落库后才回源的条目已含本批增量，会被再加一次
+            batch.keySet().forEach(productDetailCache::invalidate);
+        } catch (RuntimeException e) {
+            counter.restore(batch);
+            log.warn("浏览量落库失败，{} 件商品的增量留待下次重试: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 应用关闭前把剩余的增量落库
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (counter.size() > 0) {
+            log.info("浏览量计数器关闭，剩余 {} 件商品未落库", counter.size());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.modestcyber.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 按ID累计的增量计数器
+ * ID 按哈希分到若干段，每个ID一个 LongAdder：累加只持所在段的读锁，同一ID的并发累加也不会争用同一个变量；
+ * drain 逐段持写锁取出并移除累计值，不会与累加交错而丢失计数。由调用方定期 drain 批量落库，落库失败时 restore 放回
+ */
+public class DeltaCounter {
+
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private static class Stripe {
+        private final Map<Long, LongAdder> deltas = new ConcurrentHashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    }
+
+    public DeltaCounter() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public void add(Long id, long delta) {
+        Stripe stripe = stripeOf(id);
+        stripe.lock.readLock().lock();
+        try {
+            stripe.deltas.computeIfAbsent(id, k -> new LongAdder()).add(delta);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    public void increment(Long id) {
+        add(id, 1);
+    }
+
+    /**
+     * 尚未取出的增量
+     */
+    public long pending(Long id) {
+        LongAdder adder = stripeOf(id).deltas.get(id);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    /**
+     * 取出并清空所有增量（只返回非零项）
+     */
+    public Map<Long, Long> drain() {
+        Map<Long, Long> drained = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.writeLock().lock();
+            try {
+                stripe.deltas.forEach((id, adder) -> {
+                    long delta = adder.sum();
+                    if (delta != 0) {
+                        drained.put(id, delta);
+                    }
+                });
+                stripe.deltas.clear();
+            } finally {
+                stripe.lock.writeLock().unlock();
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * 放回取出后未能落库的增量
+     */
+    public void restore(Map<Long, Long> drained) {
+        drained.forEach(this::add);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.deltas.size();
+        }
+        return size;
+    }
+
+    private Stripe stripeOf(Long id) {
+        int h = id.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+}
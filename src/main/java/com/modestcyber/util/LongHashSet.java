@@ -0,0 +1,180 @@
+package com.modestcyber.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * long 原始类型哈希集合
+ * 开放寻址、线性探测，元素直接存在 long[] 中，没有装箱和节点对象，每个元素约 8~16 字节；
+ * 0 作为空槽标记，集合中的 0 单独记录。非线程安全，多线程共享时由调用方保证只读或整体替换
+ */
+public class LongHashSet {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] table;
+    private int size;
+    private boolean containsZero;
+
+    public LongHashSet() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    public LongHashSet(int expectedSize) {
+        table = new long[capacityFor(expectedSize)];
+    }
+
+    public static LongHashSet of(Collection<Long> values) {
+        LongHashSet set = new LongHashSet(values.size());
+        for (Long value : values) {
+            if (value != null) {
+                set.add(value);
+            }
+        }
+        return set;
+    }
+
+    public boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int mask = table.length - 1;
+        for (int i = slot(value, mask); ; i = (i + 1) & mask) {
+            long current = table[i];
+            if (current == value) {
+                return true;
+            }
+            if (current == 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return 集合原先不含该元素时返回 true
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            boolean added = !containsZero;
+            containsZero = true;
+            if (added) {
+                size++;
+            }
+            return added;
+        }
+        int mask = table.length - 1;
+        for (int i = slot(value, mask); ; i = (i + 1) & mask) {
+            long current = table[i];
+            if (current == value) {
+                return false;
+            }
+            if (current == 0) {
+                table[i] = value;
+                size++;
+                if (size * 2 > table.length) {  // 装载因子不超过 0.5，探测链保持很短
+                    resize(table.length * 2);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return 集合原先包含该元素时返回 true
+     */
+    public boolean remove(long value) {
+        if (value == 0) {
+            boolean removed = containsZero;
+            containsZero = false;
+            if (removed) {
+                size--;
+            }
+            return removed;
+        }
+        int mask = table.length - 1;
+        for (int i = slot(value, mask); ; i = (i + 1) & mask) {
+            long current = table[i];
+            if (current == 0) {
+                return false;
+            }
+            if (current == value) {
+                shiftBack(i, mask);
+                size--;
+                return true;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public LongHashSet copy() {
+        LongHashSet copy = new LongHashSet(0);
+        copy.table = Arrays.copyOf(table, table.length);
+        copy.size = size;
+        copy.containsZero = containsZero;
+        return copy;
+    }
+
+    public long[] toArray() {
+        long[] values = new long[size];
+        int n = 0;
+        if (containsZero) {
+            values[n++] = 0;
+        }
+        for (long value : table) {
+            if (value != 0) {
+                values[n++] = value;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 删除后把同一探测链上后面的元素前移，不留墓碑
+     */
+    private void shiftBack(int hole, int mask) {
+        for (int i = (hole + 1) & mask; table[i] != 0; i = (i + 1) & mask) {
+            int home = slot(table[i], mask);
+            // home 不在 (hole, i] 区间内时，该元素可以移到空洞处
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                table[hole] = table[i];
+                hole = i;
+            }
+        }
+        table[hole] = 0;
+    }
+
+    private void resize(int capacity) {
+        long[] old = table;
+        table = new long[capacity];
+        int mask = capacity - 1;
+        for (long value : old) {
+            if (value != 0) {
+                int i = slot(value, mask);
+                while (table[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = value;
+            }
+        }
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int slot(long value, int mask) {
+        long h = value * 0x9E3779B97F4A7C15L;  // 斐波那契散列，连续ID也能打散
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,95 @@
+package com.modestcyber.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+/**
+ * MinHash 签名工具类
+ * 用 NUM_HASHES 个 (a*x+b) mod p 哈希函数对词组集合取最小值，两个签名相同位置的比例即 Jaccard 相似度的估计；
+ * 签名按 BANDS 段、每段 ROWS 行切分做 LSH 分桶，相似度为 s 时至少一段完全相同的概率为 1-(1-s^ROWS)^BANDS；
+ * 商品标题较短，相似商品的 Jaccard 通常只有 0.3 左右，取 32x2 使该区间的召回率在 97% 以上
+ */
+public class MinHash {
+
+    public static final int BANDS = 32;
+    public static final int ROWS = 2;
+    public static final int NUM_HASHES = BANDS * ROWS;
+
+    private static final long PRIME = (1L << 31) - 1;
+    private static final long[] A = new long[NUM_HASHES];
+    private static final long[] B = new long[NUM_HASHES];
+
+    static {
+        // 固定种子，重启后签名保持一致
+        Random random = new Random(20240101L);
+        for (int i = 0; i < NUM_HASHES; i++) {
+            A[i] = 1 + random.nextInt((int) PRIME - 1);
+            B[i] = random.nextInt((int) PRIME);
+        }
+    }
+
+    private MinHash() {
+    }
+
+    /**
+     * 计算词组集合的签名，集合为空时返回 null
+     */
+    public static int[] signature(Collection<String> shingles) {
+        if (shingles.isEmpty()) {
+            return null;
+        }
+        int[] signature = new int[NUM_HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (String shingle : shingles) {
+            long x = mix(shingle.hashCode()) & PRIME;
+            for (int i = 0; i < NUM_HASHES; i++) {
+                int h = (int) ((A[i] * x + B[i]) % PRIME);
+                if (h < signature[i]) {
+                    signature[i] = h;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * 各段的桶键（段号参与哈希，不同段的相同取值不会落入同一个桶）
+     */
+    public static long[] bandKeys(int[] signature) {
+        long[] keys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long key = band + 1;
+            for (int row = 0; row < ROWS; row++) {
+                key = key * 0x9E3779B97F4A7C15L + signature[band * ROWS + row];
+            }
+            keys[band] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * 估计 Jaccard 相似度
+     */
+    public static double similarity(int[] a, int[] b) {
+        int same = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (a[i] == b[i]) {
+                same++;
+            }
+        }
+        return (double) same / NUM_HASHES;
+    }
+
+    /**
+     * murmur3 finalizer，打散 String.hashCode 的低位相关性
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
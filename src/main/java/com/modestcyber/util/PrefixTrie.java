@@ -0,0 +1,257 @@
+package com.modestcyber.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 带权前缀树
+ * 子节点用有序 char 数组 + 节点数组保存（二分查找），每个节点缓存子树中权重最高的 K 个词条，
+ * 查询只需沿前缀走到对应节点直接返回缓存结果；非线程安全，由调用方加锁
+ */
+public class PrefixTrie {
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private final int topK;
+    private final Node root = new Node();
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * 词条
+     */
+    private static class Entry {
+        private final String key;
+        private String display;
+        private long weight;
+
+        private Entry(String key, String display) {
+            this.key = key;
+            this.display = display;
+        }
+    }
+
+    private static class Node {
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private Entry terminal;
+        private Entry[] top = NO_ENTRIES;
+
+        private Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        private Node getOrCreateChild(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int pos = -i - 1;
+            Node node = new Node();
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, pos);
+            System.arraycopy(children, 0, newChildren, 0, pos);
+            newKeys[pos] = c;
+            newChildren[pos] = node;
+            System.arraycopy(keys, pos, newKeys, pos + 1, keys.length - pos);
+            System.arraycopy(children, pos, newChildren, pos + 1, children.length - pos);
+            keys = newKeys;
+            children = newChildren;
+            return node;
+        }
+
+        private void removeChild(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i < 0) {
+                return;
+            }
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(keys, i + 1, newKeys, i, keys.length - i - 1);
+            System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+    }
+
+    public PrefixTrie(int topK) {
+        this.topK = topK;
+    }
+
+    /**
+     * 词条数
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 调整词条权重，词条不存在时新建，权重降到 0 及以下时删除
+     *
+     * @param key     归一化后的词
+     * @param display 展示文本
+     * @param delta   权重增量
+     */
+    public void add(String key, String display, long delta) {
+        if (key.isEmpty() || delta == 0) {
+            return;
+        }
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (delta < 0) {
+                return;
+            }
+            entry = new Entry(key, display);
+            entries.put(key, entry);
+        }
+        entry.weight += delta;
+
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = delta > 0 ? path[i].getOrCreateChild(key.charAt(i)) : path[i].child(key.charAt(i));
+        }
+        Node last = path[key.length()];
+
+        if (delta > 0) {
+            last.terminal = entry;
+            for (Node node : path) {
+                offer(node, entry);
+            }
+            return;
+        }
+
+        if (entry.weight <= 0) {
+            entries.remove(key);
+            last.terminal = null;
+        }
+        // 权重下降：自底向上重算受影响节点的 top-K，并剪掉空分支
+        for (int i = key.length(); i >= 0; i--) {
+            Node node = path[i];
+            if (i > 0 && node.terminal == null && node.children.length == 0) {
+                path[i - 1].removeChild(key.charAt(i - 1));
+                continue;
+            }
+            if (contains(node.top, entry)) {
+                recompute(node);
+            }
+        }
+    }
+
+    /**
+     * 查询前缀下权重最高的若干展示文本
+     */
+    public List<String> suggest(String prefix, int limit) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        List<String> result = new ArrayList<>();
+        if (node == null) {
+            return result;
+        }
+        for (int i = 0; i < node.top.length && i < limit; i++) {
+            result.add(node.top[i].display);
+        }
+        return result;
+    }
+
+    /**
+     * 批量导入后一次性重建所有节点的 top-K（后序遍历）
+     */
+    public void rebuildTop() {
+        rebuildTop(root);
+    }
+
+    private void rebuildTop(Node node) {
+        for (Node child : node.children) {
+            rebuildTop(child);
+        }
+        recompute(node);
+    }
+
+    /**
+     * 不维护 top-K 的批量导入，导入完成后需调用 rebuildTop
+     */
+    public void load(String key, String display, long weight) {
+        if (key.isEmpty() || weight <= 0) {
+            return;
+        }
+        Entry entry = entries.computeIfAbsent(key, k -> new Entry(k, display));
+        entry.weight += weight;
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.getOrCreateChild(key.charAt(i));
+        }
+        node.terminal = entry;
+    }
+
+    public void clear() {
+        entries.clear();
+        root.keys = NO_KEYS;
+        root.children = NO_CHILDREN;
+        root.terminal = null;
+        root.top = NO_ENTRIES;
+    }
+
+    /**
+     * 词条权重上升：插入或上移到节点的 top-K 中
+     */
+    private void offer(Node node, Entry entry) {
+        Entry[] top = node.top;
+        int pos = indexOf(top, entry);
+        if (pos < 0) {
+            if (top.length >= topK && top[top.length - 1].weight >= entry.weight) {
+                return;
+            }
+            Entry[] grown = Arrays.copyOf(top, Math.min(top.length + 1, topK));
+            pos = grown.length - 1;
+            grown[pos] = entry;
+            top = grown;
+        }
+        // 向前冒泡到正确位置
+        while (pos > 0 && top[pos - 1].weight < entry.weight) {
+            top[pos] = top[pos - 1];
+            top[pos - 1] = entry;
+            pos--;
+        }
+        node.top = top;
+    }
+
+    /**
+     * 由自身词条与各子节点的 top-K 合并得到本节点的 top-K
+     */
+    private void recompute(Node node) {
+        List<Entry> candidates = new ArrayList<>();
+        if (node.terminal != null) {
+            candidates.add(node.terminal);
+        }
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        candidates.sort((a, b) -> Long.compare(b.weight, a.weight));
+        int n = Math.min(topK, candidates.size());
+        node.top = n == 0 ? NO_ENTRIES : candidates.subList(0, n).toArray(new Entry[0]);
+    }
+
+    private boolean contains(Entry[] top, Entry entry) {
+        return indexOf(top, entry) >= 0;
+    }
+
+    private int indexOf(Entry[] top, Entry entry) {
+        for (int i = 0; i < top.length; i++) {
+            if (top[i] == entry) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
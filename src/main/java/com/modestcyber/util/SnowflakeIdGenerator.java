@@ -0,0 +1,88 @@
+package com.modestcyber.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake 风格的ID生成器
+ * 64 位ID = 1 位符号(0) + 41 位毫秒时间戳(自 2024-01-01 起，约 69 年) + 10 位节点号 + 12 位毫秒内序号，
+ * 同一节点内单调递增、跨节点不重复。状态只有一个 AtomicLong（时间戳与序号打包），CAS 推进，无锁；
+ * 时钟回拨或单毫秒内序号用尽时沿用/借用上一个时间戳继续发号（逻辑时钟），不阻塞也不回退
+ */
+public class SnowflakeIdGenerator {
+
+    public static final long EPOCH = 1704067200000L;  // 2024-01-01T00:00:00Z
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private static final int ORDER_NO_DIGITS = 19;  // Long.MAX_VALUE 的位数，补零后按字典序即时间序
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    private final AtomicLong state;  // (时间戳 - EPOCH) << SEQUENCE_BITS | 序号
+
+    public SnowflakeIdGenerator(long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点号必须在 0-" + MAX_NODE_ID + " 之间: " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+        this.state = new AtomicLong(((clock.getAsLong() - EPOCH) << SEQUENCE_BITS) - 1);  // 上一毫秒的最后一个序号，首个ID序号从 0 开始
+    }
+
+    public long nextId() {
+        while (true) {
+            long now = clock.getAsLong() - EPOCH;
+            long prev = state.get();
+            long prevTimestamp = prev >>> SEQUENCE_BITS;
+            long next;
+            if (now > prevTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((prev & MAX_SEQUENCE) < MAX_SEQUENCE) {
+                next = prev + 1;  // 同一毫秒或时钟回拨：沿用上一个时间戳，序号加一
+            } else {
+                next = (prevTimestamp + 1) << SEQUENCE_BITS;  // 序号用尽：借用下一毫秒
+            }
+            if (state.compareAndSet(prev, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS))
+                        | (nodeId << SEQUENCE_BITS)
+                        | (next & MAX_SEQUENCE);
+            }
+        }
+    }
+
+    /**
+     * 带前缀的定长编号，如 ORD0001234567890123456（前缀 + 19 位补零ID）
+     */
+    public String nextNo(String prefix) {
+        String digits = Long.toString(nextId());
+        StringBuilder sb = new StringBuilder(prefix.length() + ORDER_NO_DIGITS).append(prefix);
+        for (int i = digits.length(); i < ORDER_NO_DIGITS; i++) {
+            sb.append('0');
+        }
+        return sb.append(digits).toString();
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * ID 中的生成时间（毫秒时间戳）
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    public static long nodeIdOf(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+}
@@ -0,0 +1,33 @@
+package com.modestcyber.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * SQL 指纹工具类
+ * 把字面量、IN 列表长度、分页数字归一化，同一"形状"的语句得到相同指纹
+ */
+public class SqlFingerprint {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w`.])-?\\d+(?:\\.\\d+)?(?![\\w`])");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+    /**
+     * 折叠空白
+     */
+    public static String compact(String sql) {
+        return WHITESPACE.matcher(sql).replaceAll(" ").trim();
+    }
+
+    /**
+     * 计算语句指纹
+     */
+    public static String of(String sql) {
+        String normalized = compact(sql);
+        normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = IN_LIST.matcher(normalized).replaceAll("IN (?+)");
+        return normalized;
+    }
+}
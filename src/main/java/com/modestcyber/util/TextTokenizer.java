@@ -0,0 +1,76 @@
+package com.modestcyber.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 文本分词工具类
+ * 中文按二元组（bigram）切分，英文和数字按单词切分并转小写，其余字符视为分隔符
+ */
+public class TextTokenizer {
+
+    private TextTokenizer() {
+    }
+
+    /**
+     * 建索引用：中文连续片段同时产出单字和二元组，保证单字查询也能命中
+     */
+    public static List<String> indexTokens(String text) {
+        return tokenize(text, true);
+    }
+
+    /**
+     * 查询用：中文连续片段只产出二元组（片段只有一个字时产出单字）
+     */
+    public static List<String> queryTokens(String text) {
+        return tokenize(text, false);
+    }
+
+    private static List<String> tokenize(String text, boolean withUnigrams) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String lower = text.toLowerCase();
+        int length = lower.length();
+        int i = 0;
+        while (i < length) {
+            char c = lower.charAt(i);
+            if (isCjk(c)) {
+                int start = i;
+                while (i < length && isCjk(lower.charAt(i))) {
+                    i++;
+                }
+                emitCjk(lower, start, i, withUnigrams, tokens);
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(lower.charAt(i)) && !isCjk(lower.charAt(i))) {
+                    i++;
+                }
+                tokens.add(lower.substring(start, i));
+            } else {
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static void emitCjk(String text, int start, int end, boolean withUnigrams, List<String> tokens) {
+        if (end - start == 1) {
+            tokens.add(text.substring(start, end));
+            return;
+        }
+        for (int j = start; j < end; j++) {
+            if (withUnigrams) {
+                tokens.add(text.substring(j, j + 1));
+            }
+            if (j + 1 < end) {
+                tokens.add(text.substring(j, j + 2));
+            }
+        }
+    }
+
+    public static boolean isCjk(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+}
@@ -0,0 +1,157 @@
+package com.modestcyber.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * 分层时间轮
+ * 以 tickMs 为刻度，每层 64 个槽，第 k 层一个槽跨 64^k 个刻度，11 层覆盖整个 long 范围。
+ * 定时项按“到期刻度与当前刻度最高的不同位组”放入对应层，当前刻度走到该槽时整体下放到更低的层（cascade），
+ * 最终在第 0 层到期。添加、取消都是 O(1)（槽内双向链表 + 按 key 索引），推进一个刻度只处理一个槽；
+ * 到期时间向上取整到刻度，不会提前触发。非线程安全，多线程使用时由调用方加锁
+ */
+public class TimingWheel<V> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = (Long.SIZE + SLOT_BITS - 1) / SLOT_BITS;
+
+    private final long tickMs;
+    private final Entry<V>[][] heads;
+    private final Map<Long, Entry<V>> entries = new HashMap<>();
+    private long currentTick;
+
+    private static final class Entry<V> {
+        private final long key;
+        private final long expireTick;
+        private final V value;
+        private Entry<V> prev;
+        private Entry<V> next;
+        private int level;
+        private int slot;
+
+        private Entry(long key, long expireTick, V value) {
+            this.key = key;
+            this.expireTick = expireTick;
+            this.value = value;
+        }
+    }
+
+    public TimingWheel(long tickMs, long startTimeMs) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("刻度必须大于 0: " + tickMs);
+        }
+        this.tickMs = tickMs;
+        this.heads = newSlots();
+        this.currentTick = startTimeMs / tickMs;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Entry<V>[][] newSlots() {
+        return (Entry<V>[][]) new Entry<?>[LEVELS][SLOTS];
+    }
+
+    /**
+     * 添加定时项，key 已存在时替换；deadline 已过的在下一个刻度到期
+     */
+    public void schedule(long key, long deadlineMs, V value) {
+        cancel(key);
+        long expireTick = Math.max(Math.ceilDiv(deadlineMs, tickMs), currentTick + 1);
+        Entry<V> entry = new Entry<>(key, expireTick, value);
+        entries.put(key, entry);
+        link(entry);
+    }
+
+    /**
+     * @return key 存在且尚未到期时返回 true
+     */
+    public boolean cancel(long key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        unlink(entry);
+        return true;
+    }
+
+    public boolean contains(long key) {
+        return entries.containsKey(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 推进到 nowMs，依次回调到期项（回调时已从时间轮移除，可在回调中重新 schedule）
+     *
+     * @return 到期数量
+     */
+    public int advance(long nowMs, ObjLongConsumer<V> expired) {
+        long targetTick = nowMs / tickMs;
+        int fired = 0;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // 低位组全为 0 的层走到了新槽：先下放高层，下放来的项可能继续落到更低层的当前槽
+            if ((currentTick & SLOT_MASK) == 0) {
+                int top = Math.min(LEVELS - 1, Long.numberOfTrailingZeros(currentTick) / SLOT_BITS);
+                for (int level = top; level > 0; level--) {
+                    cascade(level, (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK));
+                }
+            }
+            int slot = (int) (currentTick & SLOT_MASK);
+            Entry<V> entry = heads[0][slot];
+            heads[0][slot] = null;
+            while (entry != null) {
+                Entry<V> next = entry.next;
+                entry.prev = null;
+                entry.next = null;
+                entries.remove(entry.key);
+                expired.accept(entry.value, entry.key);
+                fired++;
+                entry = next;
+            }
+        }
+        return fired;
+    }
+
+    private void cascade(int level, int slot) {
+        Entry<V> entry = heads[level][slot];
+        heads[level][slot] = null;
+        while (entry != null) {
+            Entry<V> next = entry.next;
+            link(entry);
+            entry = next;
+        }
+    }
+
+    private void link(Entry<V> entry) {
+        long diff = entry.expireTick ^ currentTick;
+        int level = diff == 0 ? 0 : (Long.SIZE - 1 - Long.numberOfLeadingZeros(diff)) / SLOT_BITS;
+        int slot = (int) ((entry.expireTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        Entry<V> head = heads[level][slot];
+        entry.level = level;
+        entry.slot = slot;
+        entry.prev = null;
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+        heads[level][slot] = entry;
+    }
+
+    private void unlink(Entry<V> entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            heads[entry.level][entry.slot] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+    }
+}
@@ -0,0 +1,30 @@
+-- ============================================
+-- V2：列表查询联合索引
+-- 说明：按 SQL 形状统计与 EXPLAIN 结果，为列表查询的"等值条件 + 排序列"建立联合索引，
+--       使 WHERE status = ? [AND category_id = ?] ORDER BY create_time DESC 等查询走索引顺序读取、避免 filesort。
+--       被新索引前缀覆盖的单列索引一并删除（外键仍有可用索引）。
+-- 执行方式：mysql -u root -p campusswap < V2__composite_indexes.sql
+-- ============================================
+
+USE `campusswap`;
+
+-- 商品表：首页/分类页按时间、价格排序，我的商品按时间排序
+ALTER TABLE `product`
+  ADD INDEX `idx_status_create_time` (`status`, `create_time`),
+  ADD INDEX `idx_status_category_create_time` (`status`, `category_id`, `create_time`),
+  ADD INDEX `idx_status_price` (`status`, `price`),
+  ADD INDEX `idx_user_create_time` (`user_id`, `create_time`),
+  DROP INDEX `idx_status`,
+  DROP INDEX `idx_user_id`;
+
+-- 订单表：买家/卖家订单列表按时间排序
+ALTER TABLE `order`
+  ADD INDEX `idx_buyer_create_time` (`buyer_id`, `create_time`),
+  ADD INDEX `idx_seller_create_time` (`seller_id`, `create_time`),
+  DROP INDEX `idx_buyer_id`,
+  DROP INDEX `idx_seller_id`;
+
+-- 收藏表：收藏列表按收藏时间排序（user_id 前缀已由 uk_user_product 覆盖）
+ALTER TABLE `favorite`
+  ADD INDEX `idx_user_create_time` (`user_id`, `create_time`),
+  DROP INDEX `idx_user_id`;
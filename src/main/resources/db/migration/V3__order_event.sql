@@ -0,0 +1,26 @@
+-- ============================================
+-- V3：订单状态流水
+-- 说明：订单状态迁移改由状态机执行（WHERE status = 起始状态 的条件更新），每次迁移追加一条流水，可按状态机重放校验。
+--       只追加、不设外键，写入与订单状态变更在同一事务内批量提交。
+--       已有订单各补记一条 BASELINE 流水（当前状态），之后的迁移从它开始重放。
+-- 执行方式：mysql -u root -p campusswap < V3__order_event.sql
+-- ============================================
+
+USE `campusswap`;
+
+CREATE TABLE IF NOT EXISTS `order_event` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `order_id` BIGINT NOT NULL COMMENT '订单ID',
+  `action` VARCHAR(20) NOT NULL COMMENT '动作（CREATE-创建，DELIVER-发货，CONFIRM-确认收货，CANCEL-取消，BASELINE-迁移基线）',
+  `from_status` TINYINT DEFAULT NULL COMMENT '变更前状态（创建/基线为空）',
+  `to_status` TINYINT NOT NULL COMMENT '变更后状态',
+  `operator_id` BIGINT DEFAULT NULL COMMENT '操作人ID',
+  `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '发生时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_order_id` (`order_id`, `id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='订单状态流水表（只追加）';
+
+-- 已有订单的当前状态作为基线
+INSERT INTO `order_event` (`order_id`, `action`, `from_status`, `to_status`, `operator_id`, `create_time`)
+SELECT `id`, 'BASELINE', NULL, `status`, NULL, `update_time`
+FROM `order`;
@@ -73,9 +73,11 @@ CREATE TABLE `product` (
   `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`id`),
-  KEY `idx_user_id` (`user_id`),
+  KEY `idx_user_create_time` (`user_id`, `create_time`),
   KEY `idx_category_id` (`category_id`),
-  KEY `idx_status` (`status`),
+  KEY `idx_status_create_time` (`status`, `create_time`),
+  KEY `idx_status_category_create_time` (`status`, `category_id`, `create_time`),
+  KEY `idx_status_price` (`status`, `price`),
   KEY `idx_create_time` (`create_time`),
   KEY `idx_price` (`price`),
   CONSTRAINT `fk_product_user` FOREIGN KEY (`user_id`) REFERENCES `user` (`id`) ON DELETE CASCADE,
@@ -103,8 +105,8 @@ CREATE TABLE `order` (
   `complete_time` DATETIME DEFAULT NULL COMMENT '完成时间',
   PRIMARY KEY (`id`),
   UNIQUE KEY `uk_order_no` (`order_no`),
-  KEY `idx_buyer_id` (`buyer_id`),
-  KEY `idx_seller_id` (`seller_id`),
+  KEY `idx_buyer_create_time` (`buyer_id`, `create_time`),
+  KEY `idx_seller_create_time` (`seller_id`, `create_time`),
   KEY `idx_product_id` (`product_id`),
   KEY `idx_status` (`status`),
   KEY `idx_create_time` (`create_time`),
@@ -124,7 +126,7 @@ CREATE TABLE `favorite` (
   `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   PRIMARY KEY (`id`),
   UNIQUE KEY `uk_user_product` (`user_id`, `product_id`),
-  KEY `idx_user_id` (`user_id`),
+  KEY `idx_user_create_time` (`user_id`, `create_time`),
   KEY `idx_product_id` (`product_id`),
   CONSTRAINT `fk_favorite_user` FOREIGN KEY (`user_id`) REFERENCES `user` (`id`) ON DELETE CASCADE,
   CONSTRAINT `fk_favorite_product` FOREIGN KEY (`product_id`) REFERENCES `product` (`id`) ON DELETE CASCADE
@@ -151,3 +153,19 @@ CREATE TABLE `review` (
   CONSTRAINT `fk_review_reviewed` FOREIGN KEY (`reviewed_id`) REFERENCES `user` (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='评价表';
 
+-- ============================================
+-- 7. 订单状态流水表（order_event）
+-- ============================================
+DROP TABLE IF EXISTS `order_event`;
+CREATE TABLE `order_event` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `order_id` BIGINT NOT NULL COMMENT '订单ID',
+  `action` VARCHAR(20) NOT NULL COMMENT '动作（CREATE-创建，DELIVER-发货，CONFIRM-确认收货，CANCEL-取消，AUTO_CANCEL-超时自动取消，AUTO_CONFIRM-超时自动收货，BASELINE-迁移基线）',
+  `from_status` TINYINT DEFAULT NULL COMMENT '变更前状态（创建/基线为空）',
+  `to_status` TINYINT NOT NULL COMMENT '变更后状态',
+  `operator_id` BIGINT DEFAULT NULL COMMENT '操作人ID',
+  `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '发生时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_order_id` (`order_id`, `id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='订单状态流水表（只追加）';
+
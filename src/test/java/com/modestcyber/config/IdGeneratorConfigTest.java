@@ -0,0 +1,36 @@
+package com.modestcyber.config;
+
+import com.modestcyber.util.SnowflakeIdGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdGeneratorConfigTest {
+
+    @Test
+    void multipleInstancesWithoutNodeIdFailFast() {
+        IdGeneratorConfig config = config(-1, 3);
+        assertThrows(IllegalStateException.class, config::snowflakeIdGenerator);
+    }
+
+    @Test
+    void singleInstanceFallsBackToHostNodeId() {
+        SnowflakeIdGenerator generator = config(-1, 1).snowflakeIdGenerator();
+        assertNotNull(generator.nextNo("ORD"));
+    }
+
+    @Test
+    void explicitNodeIdAllowsMultipleInstances() {
+        SnowflakeIdGenerator generator = config(7, 3).snowflakeIdGenerator();
+        assertNotNull(generator.nextNo("ORD"));
+    }
+
+    private IdGeneratorConfig config(long nodeId, int instances) {
+        IdGeneratorConfig config = new IdGeneratorConfig();
+        ReflectionTestUtils.setField(config, "nodeId", nodeId);
+        ReflectionTestUtils.setField(config, "instances", instances);
+        return config;
+    }
+}
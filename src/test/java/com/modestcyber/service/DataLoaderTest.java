@@ -0,0 +1,174 @@
+package com.modestcyber.service;
+
+import com.modestcyber.converter.OrderConverterImpl;
+import com.modestcyber.dto.response.OrderResponse;
+import com.modestcyber.interceptor.JwtInterceptor;
+import com.modestcyber.mapper.ProductMapper;
+import com.modestcyber.mapper.UserMapper;
+import com.modestcyber.pojo.Order;
+import com.modestcyber.pojo.Product;
+import com.modestcyber.pojo.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 请求级批量加载：一页订单只发一条用户 IN 查询和一条商品 IN 查询，结果在请求内复用，请求结束时清理
+ */
+@ExtendWith(MockitoExtension.class)
+class DataLoaderTest {
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private ProductMapper productMapper;
+
+    @InjectMocks
+    private DataLoader dataLoader;
+
+    @AfterEach
+    void tearDown() {
+        DataLoader.clear();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pageOfOrdersCostsOneUserQueryAndOneProductQuery() {
+        when(userMapper.findByIds(anyCollection())).thenAnswer(invocation -> users(invocation.getArgument(0)));
+        when(productMapper.findCardsByIds(anyCollection())).thenAnswer(invocation -> products(invocation.getArgument(0)));
+        OrderService orderService = new OrderService();
+        ReflectionTestUtils.setField(orderService, "dataLoader", dataLoader);
+        ReflectionTestUtils.setField(orderService, "orderConverter", new OrderConverterImpl());
+
+        // 10 条订单：卖家有重复，买家都是同一人
+        List<Order> orders = new ArrayList<>();
+        for (long i = 1; i <= 10; i++) {
+            orders.add(order(i, 1L, 10 + i % 4, 100 + i));
+        }
+        List<OrderResponse> responses = orderService.toResponses(orders);
+
+        ArgumentCaptor<Collection<Long>> userIds = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<Collection<Long>> productIds = ArgumentCaptor.forClass(Collection.class);
+        verify(userMapper, times(1)).findByIds(userIds.capture());
+        verify(productMapper, times(1)).findCardsByIds(productIds.capture());
+        verifyNoMoreInteractions(userMapper, productMapper);
+        assertEquals(Set.of(1L, 10L, 11L, 12L, 13L), new HashSet<>(userIds.getValue()));
+        assertEquals(10, new HashSet<>(productIds.getValue()).size());
+
+        for (int i = 0; i < responses.size(); i++) {
+            Order order = orders.get(i);
+            assertEquals("user" + order.getBuyerId(), responses.get(i).getBuyerName());
+            assertEquals("user" + order.getSellerId(), responses.get(i).getSellerName());
+            assertEquals("product" + order.getProductId(), responses.get(i).getProductTitle());
+        }
+    }
+
+    @Test
+    void resultsAreMemoizedIncludingMissingIds() {
+        when(userMapper.findByIds(anyCollection())).thenAnswer(invocation -> users(invocation.getArgument(0)));
+        dataLoader.registerUser(1L);
+        dataLoader.registerUser(2L);
+
+        User first = dataLoader.user(1L);
+        assertSame(first, dataLoader.user(1L));
+        assertEquals("user2", dataLoader.user(2L).getUsername());
+        verify(userMapper, times(1)).findByIds(any());
+
+        // 不存在的ID只查一次
+        assertNull(dataLoader.user(404L));
+        assertNull(dataLoader.user(404L));
+        verify(userMapper, times(2)).findByIds(any());
+
+        // 已加载的ID再次登记不会进入下一批
+        dataLoader.registerUser(1L);
+        dataLoader.registerUser(3L);
+        dataLoader.user(3L);
+        verify(userMapper).findByIds(List.of(3L));
+    }
+
+    @Test
+    void jwtInterceptorClearsTheBatchAfterTheRequest() throws Exception {
+        when(userMapper.findByIds(anyCollection())).thenAnswer(invocation -> users(invocation.getArgument(0)));
+        dataLoader.user(1L);
+        dataLoader.user(1L);
+        verify(userMapper, times(1)).findByIds(any());
+
+        new JwtInterceptor().afterCompletion(null, null, null, null);
+
+        // 下一个请求复用同一线程时重新查询，不会读到上个请求的缓存
+        dataLoader.user(1L);
+        verify(userMapper, times(2)).findByIds(any());
+    }
+
+    @Test
+    void batchesAreIsolatedPerThread() throws Exception {
+        when(userMapper.findByIds(anyCollection())).thenAnswer(invocation -> users(invocation.getArgument(0)));
+        dataLoader.registerUser(1L);
+        dataLoader.registerUser(2L);
+
+        Thread other = new Thread(() -> dataLoader.user(3L));
+        other.start();
+        other.join();
+
+        dataLoader.user(1L);
+        verify(userMapper).findByIds(List.of(3L));
+        verify(userMapper).findByIds(List.of(1L, 2L));
+    }
+
+    private static List<User> users(Collection<Long> ids) {
+        List<User> users = new ArrayList<>();
+        for (Long id : ids) {
+            if (id < 400) {
+                User user = new User();
+                user.setId(id);
+                user.setUsername("user" + id);
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    private static List<Product> products(Collection<Long> ids) {
+        List<Product> products = new ArrayList<>();
+        for (Long id : ids) {
+            Product product = new Product();
+            product.setId(id);
+            product.setTitle("product" + id);
+            products.add(product);
+        }
+        return products;
+    }
+
+    private static Order order(long id, long buyerId, long sellerId, long productId) {
+        Order order = new Order();
+        order.setId(id);
+        order.setBuyerId(buyerId);
+        order.setSellerId(sellerId);
+        order.setProductId(productId);
+        order.setStatus(1);
+        order.setTransactionType(0);
+        return order;
+    }
+}
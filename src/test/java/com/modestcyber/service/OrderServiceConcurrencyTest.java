@@ -0,0 +1,185 @@
+package com.modestcyber.service;
+
+import com.modestcyber.context.UserContext;
+import com.modestcyber.dto.request.CreateOrderRequest;
+import com.modestcyber.exception.BusinessException;
+import com.modestcyber.mapper.OrderMapper;
+import com.modestcyber.mapper.ProductMapper;
+import com.modestcyber.util.SnowflakeIdGenerator;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 多个买家同时抢购同一件商品：在 H2 上执行真实的条件更新 UPDATE ... WHERE id = ? AND status = 1，
+ * 每件商品只允许一个买家成功、只生成一条订单，其余买家快速失败；同时统计下单吞吐
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderServiceConcurrencyTest {
+
+    private static final long SELLER_ID = 1L;
+    private static final int PRODUCTS = 20;
+    private static final int BUYERS_PER_PRODUCT = 100;
+    private static final int THREADS = 32;
+
+    @Mock
+    private TrendingService trendingService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private OrderStateMachine orderStateMachine;
+
+    private PooledDataSource dataSource;
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new PooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                "sa", "");
+        dataSource.setPoolMaximumActiveConnections(THREADS);
+        dataSource.setPoolMaximumIdleConnections(THREADS);
+        Configuration configuration = new Configuration(
+                new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.addMapper(ProductMapper.class);
+        configuration.addMapper(OrderMapper.class);
+        // 线程安全的 Mapper 代理：与没有外层事务时的 SqlSessionTemplate 一样，每条语句各自取连接并提交
+        SqlSessionManager sessions = SqlSessionManager.newInstance(new SqlSessionFactoryBuilder().build(configuration));
+        createTables();
+
+        orderService = new OrderService();
+        ReflectionTestUtils.setField(orderService, "productMapper", sessions.getMapper(ProductMapper.class));
+        ReflectionTestUtils.setField(orderService, "orderMapper", sessions.getMapper(OrderMapper.class));
+        ReflectionTestUtils.setField(orderService, "idGenerator", new SnowflakeIdGenerator(1));
+        ReflectionTestUtils.setField(orderService, "orderStateMachine", orderStateMachine);
+        ReflectionTestUtils.setField(orderService, "trendingService", trendingService);
+        ReflectionTestUtils.setField(orderService, "eventPublisher", eventPublisher);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+        dataSource.forceCloseAll();
+    }
+
+    @Test
+    void onlyOneConcurrentBuyerClaimsEachProduct() throws Exception {
+        int attempts = PRODUCTS * BUYERS_PER_PRODUCT;
+        AtomicInteger winners = new AtomicInteger();
+        Map<Long, Long> winnerOf = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(attempts);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long elapsed;
+        try {
+            // 各商品的买家交错提交，同一时刻多件商品都有人在抢
+            for (int i = 0; i < attempts; i++) {
+                long productId = 100L + i % PRODUCTS;
+                long buyerId = 1000L + i;
+                pool.execute(() -> {
+                    UserContext.setUserId(buyerId);
+                    try {
+                        start.await();
+                        orderService.createOrder(request(productId));
+                        winners.incrementAndGet();
+                        winnerOf.put(productId, buyerId);
+                    } catch (BusinessException e) {
+                        failures.computeIfAbsent(e.getMessage(), k -> new AtomicInteger()).incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        UserContext.clear();
+                        done.countDown();
+                    }
+                });
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            assertTrue(done.await(60, TimeUnit.SECONDS));
+            elapsed = System.nanoTime() - begin;
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(PRODUCTS, winners.get());
+        int failed = failures.values().stream().mapToInt(AtomicInteger::get).sum();
+        assertEquals(attempts - PRODUCTS, failed);
+        assertTrue(failures.keySet().stream().allMatch(m -> m.equals("商品已被他人购买") || m.equals("商品不在销售中")),
+                "失败原因: " + failures.keySet());
+
+        // 库中每件商品都已售出，且恰好一条订单、买家是成功的那一个
+        Map<Long, Long> buyerOf = new HashMap<>();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("SELECT product_id, buyer_id FROM `order`")) {
+                while (rs.next()) {
+                    assertEquals(null, buyerOf.put(rs.getLong(1), rs.getLong(2)), "重复订单: " + rs.getLong(1));
+                }
+            }
+            try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM product WHERE status = 3")) {
+                rs.next();
+                assertEquals(PRODUCTS, rs.getInt(1));
+            }
+        }
+        assertEquals(winnerOf, buyerOf);
+
+        System.out.printf("抢购 %d 件商品、%d 次下单、%d 线程: 耗时 %.1f ms, 吞吐 %.0f 次/秒%n",
+                PRODUCTS, attempts, THREADS, elapsed / 1e6, attempts / (elapsed / 1e9));
+    }
+
+    private void createTables() throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE product (id BIGINT PRIMARY KEY, user_id BIGINT, category_id BIGINT, "
+                    + "title VARCHAR(200), description TEXT, price DECIMAL(10,2), original_price DECIMAL(10,2), "
+                    + "images VARCHAR(1000), status TINYINT, `condition` VARCHAR(20), transaction_type TINYINT, "
+                    + "view_count INT, favorite_count INT, create_time DATETIME, update_time DATETIME)");
+            statement.execute("CREATE TABLE `order` (id BIGINT AUTO_INCREMENT PRIMARY KEY, order_no VARCHAR(32), "
+                    + "buyer_id BIGINT, seller_id BIGINT, product_id BIGINT, quantity INT, total_price DECIMAL(10,2), "
+                    + "transaction_type TINYINT, status TINYINT, remark VARCHAR(500), address VARCHAR(500), "
+                    + "create_time DATETIME, update_time DATETIME, complete_time DATETIME)");
+            for (int i = 0; i < PRODUCTS; i++) {
+                statement.execute("INSERT INTO product (id, user_id, title, price, status, view_count, favorite_count) "
+                        + "VALUES (" + (100 + i) + ", " + SELLER_ID + ", '商品" + i + "', 9.90, 1, 0, 0)");
+            }
+        }
+    }
+
+    private static CreateOrderRequest request(long productId) {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setProductId(productId);
+        request.setTransactionType(0);
+        return request;
+    }
+}
@@ -0,0 +1,248 @@
+package com.modestcyber.service;
+
+import com.modestcyber.event.OrderTransitionEvent;
+import com.modestcyber.exception.BusinessException;
+import com.modestcyber.mapper.OrderEventMapper;
+import com.modestcyber.mapper.OrderMapper;
+import com.modestcyber.pojo.Order;
+import com.modestcyber.pojo.OrderEvent;
+import com.modestcyber.service.OrderStateMachine.Action;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.modestcyber.service.OrderStateMachine.CANCELLED;
+import static com.modestcyber.service.OrderStateMachine.COMPLETED;
+import static com.modestcyber.service.OrderStateMachine.PENDING_DELIVERY;
+import static com.modestcyber.service.OrderStateMachine.PENDING_RECEIPT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 订单状态机：非法迁移被拒绝、条件更新落败时不留流水、事务内流水在提交前批量写入、并发迁移只有一个成功
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderStateMachineTest {
+
+    private static final long ORDER_ID = 10L;
+    private static final long BUYER_ID = 1L;
+    private static final long SELLER_ID = 2L;
+    private static final int RACE_ROUNDS = 1000;
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    @Mock
+    private OrderEventMapper orderEventMapper;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private OrderStateMachine stateMachine;
+
+    @Test
+    void rejectsIllegalTransitionsWithoutTouchingTheDatabase() {
+        assertRejected(order(PENDING_DELIVERY), Action.CONFIRM, BUYER_ID, "订单状态不正确");
+        assertRejected(order(PENDING_RECEIPT), Action.DELIVER, SELLER_ID, "订单状态不正确");
+        assertRejected(order(COMPLETED), Action.CANCEL, BUYER_ID, "当前状态不允许取消订单");
+        assertRejected(order(CANCELLED), Action.CANCEL, SELLER_ID, "当前状态不允许取消订单");
+        // 操作方不符
+        assertRejected(order(PENDING_DELIVERY), Action.DELIVER, BUYER_ID, "无权操作该订单");
+        assertRejected(order(PENDING_RECEIPT), Action.CONFIRM, SELLER_ID, "无权操作该订单");
+        assertRejected(order(PENDING_DELIVERY), Action.CANCEL, 99L, "无权操作该订单");
+        assertRejected(order(PENDING_DELIVERY), Action.AUTO_CANCEL, BUYER_ID, "无权操作该订单");
+        assertRejected(order(PENDING_DELIVERY), Action.DELIVER, null, "无权操作该订单");
+        // 创建、基线不是迁移
+        assertThrows(IllegalArgumentException.class,
+                () -> stateMachine.transition(order(PENDING_DELIVERY), Action.CREATE, BUYER_ID));
+        assertThrows(IllegalArgumentException.class,
+                () -> stateMachine.transition(order(PENDING_DELIVERY), Action.BASELINE, null));
+
+        verifyNoInteractions(orderMapper, orderEventMapper, eventPublisher);
+    }
+
+    @Test
+    void lostCompareAndSetLeavesNoTrace() {
+        Order order = order(PENDING_DELIVERY);
+        when(orderMapper.compareAndSetStatus(eq(ORDER_ID), eq(PENDING_DELIVERY), eq(PENDING_RECEIPT), any(), isNull()))
+                .thenReturn(0);
+
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> stateMachine.transition(order, Action.DELIVER, SELLER_ID));
+        assertEquals("订单状态不正确", e.getMessage());
+        assertEquals(PENDING_DELIVERY, order.getStatus());
+        verifyNoInteractions(orderEventMapper, eventPublisher);
+    }
+
+    @Test
+    void completionSetsCompleteTime() {
+        Order order = order(PENDING_RECEIPT);
+        when(orderMapper.compareAndSetStatus(eq(ORDER_ID), eq(PENDING_RECEIPT), eq(COMPLETED), any(), notNull()))
+                .thenReturn(1);
+
+        stateMachine.transition(order, Action.CONFIRM, BUYER_ID);
+
+        assertEquals(COMPLETED, order.getStatus());
+        verify(orderEventMapper).insertBatch(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void eventsInTransactionAreWrittenOnceBeforeCommit() {
+        when(orderMapper.compareAndSetStatus(eq(ORDER_ID), anyInt(), anyInt(), any(), any())).thenReturn(1);
+        Order order = order(PENDING_DELIVERY);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            stateMachine.created(order, BUYER_ID);
+            stateMachine.transition(order, Action.DELIVER, SELLER_ID);
+            stateMachine.transition(order, Action.CONFIRM, BUYER_ID);
+            verify(orderEventMapper, never()).insertBatch(any());
+            verify(eventPublisher, times(3)).publishEvent(any(OrderTransitionEvent.class));
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            assertEquals(1, synchronizations.size());
+            synchronizations.forEach(s -> s.beforeCommit(false));
+
+            ArgumentCaptor<List<OrderEvent>> batch = ArgumentCaptor.forClass(List.class);
+            verify(orderEventMapper, times(1)).insertBatch(batch.capture());
+            List<OrderEvent> events = batch.getValue();
+            assertEquals(List.of("CREATE", "DELIVER", "CONFIRM"), events.stream().map(OrderEvent::getAction).toList());
+            assertEquals(List.of(BUYER_ID, SELLER_ID, BUYER_ID), events.stream().map(OrderEvent::getOperatorId).toList());
+            assertEquals(COMPLETED, stateMachine.replay(events));
+
+            synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            assertNull(TransactionSynchronizationManager.getResource(stateMachine));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void concurrentDeliverAndCancelHaveExactlyOneWinner() throws Exception {
+        // 数据库中的订单状态，条件更新按 WHERE status = expected 的语义用 CAS 模拟
+        AtomicInteger status = new AtomicInteger();
+        List<OrderEvent> log = Collections.synchronizedList(new ArrayList<>());
+        when(orderMapper.compareAndSetStatus(eq(ORDER_ID), anyInt(), anyInt(), any(), any()))
+                .thenAnswer(invocation -> status.compareAndSet(invocation.getArgument(1), invocation.getArgument(2)) ? 1 : 0);
+        when(orderEventMapper.insertBatch(any())).thenAnswer(invocation -> {
+            List<OrderEvent> events = invocation.getArgument(0);
+            log.addAll(events);
+            return events.size();
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < RACE_ROUNDS; round++) {
+                status.set(PENDING_DELIVERY);
+                log.clear();
+                Order created = order(PENDING_DELIVERY);
+                stateMachine.created(created, BUYER_ID);
+
+                // 两个请求各自读到待发货的订单
+                Order sellerView = order(PENDING_DELIVERY);
+                Order buyerView = order(PENDING_DELIVERY);
+                CountDownLatch go = new CountDownLatch(1);
+                Future<Boolean> deliver = pool.submit(() -> attempt(go, sellerView, Action.DELIVER, SELLER_ID));
+                Future<Boolean> cancel = pool.submit(() -> attempt(go, buyerView, Action.CANCEL, BUYER_ID));
+                go.countDown();
+
+                boolean delivered = deliver.get();
+                boolean cancelled = cancel.get();
+                assertEquals(1, (delivered ? 1 : 0) + (cancelled ? 1 : 0), "第 " + round + " 轮");
+                assertEquals(delivered ? PENDING_RECEIPT : CANCELLED, status.get());
+                assertEquals(2, log.size());
+                assertEquals(delivered ? "DELIVER" : "CANCEL", log.get(1).getAction());
+                // 流水重放得到的状态与库中一致
+                assertEquals(status.get(), stateMachine.replay(new ArrayList<>(log)));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void replayValidatesHistory() {
+        assertEquals(COMPLETED, stateMachine.replay(List.of(
+                event("CREATE", null, PENDING_DELIVERY),
+                event("DELIVER", PENDING_DELIVERY, PENDING_RECEIPT),
+                event("AUTO_CONFIRM", PENDING_RECEIPT, COMPLETED))));
+        assertEquals(CANCELLED, stateMachine.replay(List.of(
+                event("BASELINE", null, PENDING_DELIVERY),
+                event("AUTO_CANCEL", PENDING_DELIVERY, CANCELLED))));
+        assertNull(stateMachine.replay(List.of()));
+
+        // 跳过发货直接确认
+        assertThrows(IllegalStateException.class, () -> stateMachine.replay(List.of(
+                event("CREATE", null, PENDING_DELIVERY),
+                event("CONFIRM", PENDING_RECEIPT, COMPLETED))));
+        // 取消后又发货
+        assertThrows(IllegalStateException.class, () -> stateMachine.replay(List.of(
+                event("CREATE", null, PENDING_DELIVERY),
+                event("CANCEL", PENDING_DELIVERY, CANCELLED),
+                event("DELIVER", PENDING_DELIVERY, PENDING_RECEIPT))));
+        // 基线只能在开头
+        assertThrows(IllegalStateException.class, () -> stateMachine.replay(List.of(
+                event("CREATE", null, PENDING_DELIVERY),
+                event("BASELINE", null, PENDING_RECEIPT))));
+    }
+
+    private boolean attempt(CountDownLatch go, Order order, Action action, Long operatorId) throws InterruptedException {
+        go.await();
+        try {
+            stateMachine.transition(order, action, operatorId);
+            return true;
+        } catch (BusinessException e) {
+            return false;
+        }
+    }
+
+    private void assertRejected(Order order, Action action, Long operatorId, String message) {
+        Integer before = order.getStatus();
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> stateMachine.transition(order, action, operatorId));
+        assertEquals(message, e.getMessage(), action + " @ " + before);
+        assertEquals(before, order.getStatus());
+    }
+
+    private static Order order(int status) {
+        Order order = new Order();
+        order.setId(ORDER_ID);
+        order.setBuyerId(BUYER_ID);
+        order.setSellerId(SELLER_ID);
+        order.setProductId(100L);
+        order.setStatus(status);
+        return order;
+    }
+
+    private static OrderEvent event(String action, Integer from, Integer to) {
+        return new OrderEvent(null, ORDER_ID, action, from, to, null, null);
+    }
+}
@@ -0,0 +1,191 @@
+package com.modestcyber.service;
+
+import com.modestcyber.common.PageResult;
+import com.modestcyber.context.UserContext;
+import com.modestcyber.converter.OrderConverter;
+import com.modestcyber.converter.OrderConverterImpl;
+import com.modestcyber.dto.response.OrderResponse;
+import com.modestcyber.mapper.OrderMapper;
+import com.modestcyber.pojo.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 买卖双方订单合并时间线：两路按 (create_time, id) 降序归并，游标在两路上续读，不丢不重
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderTimelineTest {
+
+    private static final long USER_ID = 1L;
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final Comparator<Order> NEWEST_FIRST = Comparator.comparing(Order::getCreateTime)
+            .thenComparing(Order::getId)
+            .reversed();
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    @Mock
+    private DataLoader dataLoader;
+
+    @Spy
+    private OrderConverter orderConverter = new OrderConverterImpl();
+
+    @InjectMocks
+    private OrderService orderService;
+
+    // 模拟 order 表
+    private final List<Order> table = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        UserContext.setUserId(USER_ID);
+        when(orderMapper.listBuyerOrders(eq(USER_ID), any(), any(), any(), any(), anyInt(), anyBoolean()))
+                .thenAnswer(select(Order::getBuyerId));
+        when(orderMapper.listSellerOrders(eq(USER_ID), any(), any(), any(), any(), anyInt(), anyBoolean()))
+                .thenAnswer(select(Order::getSellerId));
+    }
+
+    @AfterEach
+    void tearDown() {
+        UserContext.clear();
+    }
+
+    @Test
+    void tiesOnCreateTimeAreBrokenByIdAcrossBothSides() {
+        // 同一时刻的订单交替出现在买入、卖出两路
+        for (long id = 1; id <= 12; id++) {
+            table.add(id % 2 == 0 ? order(id, USER_ID, 9L, 0) : order(id, 8L, USER_ID, 0));
+        }
+        table.add(order(13L, USER_ID, 9L, -1));
+        table.add(order(14L, 8L, USER_ID, 1));
+
+        assertEquals(List.of(14L, 12L, 11L, 10L, 9L, 8L, 7L, 6L, 5L, 4L, 3L, 2L, 1L, 13L), readAll(4));
+    }
+
+    @Test
+    void oneEmptySideYieldsTheOtherSide() {
+        for (long id = 1; id <= 5; id++) {
+            table.add(order(id, USER_ID, 9L, (int) id));
+        }
+        assertEquals(List.of(5L, 4L, 3L, 2L, 1L), readAll(2));
+
+        table.clear();
+        for (long id = 1; id <= 5; id++) {
+            table.add(order(id, 8L, USER_ID, (int) id));
+        }
+        assertEquals(List.of(5L, 4L, 3L, 2L, 1L), readAll(5));
+
+        table.clear();
+        PageResult<OrderResponse> empty = orderService.listOrders("all", null, 1, 10, null, null);
+        assertEquals(0, empty.getList().size());
+        assertNull(empty.getNextCursor());
+    }
+
+    @Test
+    void cursorContinuesAcrossPages() {
+        Random random = new Random(7);
+        for (long id = 1; id <= 500; id++) {
+            boolean bought = random.nextBoolean();
+            long otherSeller = random.nextBoolean() ? USER_ID : 4L;
+            table.add(bought
+                    ? order(id, USER_ID, 3L, random.nextInt(200))
+                    : order(id, 2L, otherSeller, random.nextInt(200)));
+        }
+        List<Long> expected = table.stream()
+                .filter(o -> o.getBuyerId() == USER_ID || o.getSellerId() == USER_ID)
+                .sorted(NEWEST_FIRST)
+                .map(Order::getId)
+                .toList();
+
+        for (int pageSize : new int[]{1, 7, 50, 1000}) {
+            assertEquals(expected, readAll(pageSize), "pageSize " + pageSize);
+        }
+    }
+
+    @Test
+    void eachSideIsAskedForOnePageFromTheSameCursor() {
+        for (long id = 1; id <= 6; id++) {
+            table.add(id <= 3 ? order(id, USER_ID, 9L, (int) id) : order(id, 8L, USER_ID, (int) id));
+        }
+        PageResult<OrderResponse> first = orderService.listOrders("all", null, 1, 2, "", null);
+        assertEquals(List.of(6L, 5L), ids(first));
+        assertNotNull(first.getNextCursor());
+
+        orderService.listOrders("all", null, 1, 2, first.getNextCursor(), null);
+        LocalDateTime cursorTime = BASE.plusSeconds(5);
+        verify(orderMapper).listBuyerOrders(USER_ID, null, cursorTime, 5L, null, 3, false);
+        verify(orderMapper).listSellerOrders(USER_ID, null, cursorTime, 5L, null, 3, false);
+    }
+
+    private List<Long> readAll(int pageSize) {
+        List<Long> ids = new ArrayList<>();
+        String after = null;
+        do {
+            PageResult<OrderResponse> page = orderService.listOrders("all", null, 1, pageSize, after, null);
+            ids.addAll(ids(page));
+            after = page.getNextCursor();
+        } while (after != null);
+        return ids;
+    }
+
+    private List<Long> ids(PageResult<OrderResponse> page) {
+        return page.getList().stream().map(OrderResponse::getId).toList();
+    }
+
+    /**
+     * 按 (create_time, id) 降序从游标之后取 limit 条，与 OrderSqlProvider 的游标条件一致
+     */
+    private Answer<List<Order>> select(Function<Order, Long> side) {
+        return invocation -> {
+            Long userId = invocation.getArgument(0);
+            LocalDateTime cursorTime = invocation.getArgument(2);
+            Long cursorId = invocation.getArgument(3);
+            int limit = invocation.getArgument(5);
+            return table.stream()
+                    .filter(o -> side.apply(o).equals(userId))
+                    .filter(o -> cursorTime == null || o.getCreateTime().isBefore(cursorTime)
+                            || (o.getCreateTime().equals(cursorTime) && o.getId() < cursorId))
+                    .sorted(NEWEST_FIRST)
+                    .limit(limit)
+                    .toList();
+        };
+    }
+
+    private static Order order(long id, long buyerId, long sellerId, int second) {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderNo("ORD" + id);
+        order.setBuyerId(buyerId);
+        order.setSellerId(sellerId);
+        order.setProductId(100 + id);
+        order.setStatus(1);
+        order.setTransactionType(0);
+        order.setCreateTime(BASE.plusSeconds(second));
+        return order;
+    }
+}
@@ -0,0 +1,120 @@
+package com.modestcyber.service;
+
+import com.modestcyber.event.OrderTransitionEvent;
+import com.modestcyber.mapper.OrderMapper;
+import com.modestcyber.pojo.Order;
+import com.modestcyber.util.TimingWheel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.modestcyber.service.OrderStateMachine.PENDING_DELIVERY;
+import static com.modestcyber.service.OrderStateMachine.PENDING_RECEIPT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 订单超时时间轮的启动加载：加载期间由状态事件登记的截止时间不会被旧批次覆盖；加载失败不抛出，定时重试
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderTimeoutServiceTest {
+
+    private static final long DAY_MS = 86_400_000L;
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    @Mock
+    private OrderService orderService;
+
+    @InjectMocks
+    private OrderTimeoutService orderTimeoutService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(orderTimeoutService, "enabled", true);
+        ReflectionTestUtils.setField(orderTimeoutService, "autoCancelDays", 7L);
+        ReflectionTestUtils.setField(orderTimeoutService, "autoConfirmDays", 14L);
+        ReflectionTestUtils.setField(orderTimeoutService, "tickMs", 60_000L);
+        ReflectionTestUtils.setField(orderTimeoutService, "loadBatchSize", 100);
+        orderTimeoutService.init();
+    }
+
+    @Test
+    void eventsDuringLoadWinOverStaleBatches() {
+        LocalDateTime created = LocalDateTime.now().minusDays(1);
+        when(orderMapper.listPendingDeadlines(anyLong(), anyInt())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            if (afterId > 0) {
+                return List.of();
+            }
+            // 批次读出时两单都待发货，返回前订单 1 已发货、订单 2 已取消
+            List<Order> batch = List.of(order(1L, PENDING_DELIVERY, created), order(2L, PENDING_DELIVERY, created),
+                    order(3L, PENDING_DELIVERY, created));
+            orderTimeoutService.onOrderTransition(transition(1L, PENDING_DELIVERY, PENDING_RECEIPT));
+            orderTimeoutService.onOrderTransition(transition(2L, PENDING_DELIVERY, OrderStateMachine.CANCELLED));
+            return batch;
+        });
+
+        orderTimeoutService.load();
+
+        Map<Long, Integer> fired = advance(System.currentTimeMillis() + 30 * DAY_MS);
+        // 订单 1 按发货时刻起算自动确认，而不是按旧状态自动取消
+        assertEquals(PENDING_RECEIPT, fired.get(1L));
+        assertEquals(PENDING_DELIVERY, fired.get(3L));
+    }
+
+    @Test
+    void failedLoadIsRetriedWithoutFailingStartup() {
+        LocalDateTime created = LocalDateTime.now().minusDays(1);
+        when(orderMapper.listPendingDeadlines(anyLong(), anyInt()))
+                .thenReturn(List.of(order(1L, PENDING_DELIVERY, created)))
+                .thenThrow(new CannotGetJdbcConnectionException("Failed to obtain JDBC Connection"))
+                .thenReturn(List.of(order(1L, PENDING_DELIVERY, created), order(2L, PENDING_RECEIPT, created)))
+                .thenReturn(List.of());
+
+        orderTimeoutService.load();
+        assertEquals(1, orderTimeoutService.stats().get("pending"));
+
+        orderTimeoutService.retryLoad();
+        assertEquals(2, orderTimeoutService.stats().get("pending"));
+
+        // 加载完成后不再重试
+        orderTimeoutService.retryLoad();
+        verify(orderMapper, times(4)).listPendingDeadlines(anyLong(), anyInt());
+    }
+
+    private Map<Long, Integer> advance(long to) {
+        @SuppressWarnings("unchecked")
+        TimingWheel<Integer> wheel = (TimingWheel<Integer>) ReflectionTestUtils.getField(orderTimeoutService, "wheel");
+        Map<Long, Integer> fired = new HashMap<>();
+        wheel.advance(to, (status, orderId) -> fired.put(orderId, status));
+        return fired;
+    }
+
+    private static Order order(long id, int status, LocalDateTime updateTime) {
+        Order order = new Order();
+        order.setId(id);
+        order.setStatus(status);
+        order.setUpdateTime(updateTime);
+        return order;
+    }
+
+    private static OrderTransitionEvent transition(long orderId, int from, int to) {
+        return new OrderTransitionEvent(orderId, 1L, 2L, 100L, "TEST", from, to);
+    }
+}
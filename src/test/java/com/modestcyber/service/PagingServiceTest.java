@@ -0,0 +1,76 @@
+package com.modestcyber.service;
+
+import com.modestcyber.common.CountMode;
+import com.modestcyber.common.PageResult;
+import com.modestcyber.common.WindowCounted;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分页总数：窗口计数缺失时退回单独统计；CACHED 模式的总数按键缓存，可按前缀清除
+ */
+class PagingServiceTest {
+
+    private record Row(Long id, Long totalCount) implements WindowCounted {
+        @Override
+        public Long getTotalCount() {
+            return totalCount;
+        }
+    }
+
+    private static final Function<List<Row>, List<Long>> IDS = rows -> rows.stream().map(Row::id).collect(Collectors.toList());
+
+    private final PagingService pagingService = new PagingService();
+    private final AtomicInteger counts = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(pagingService, "countCacheSeconds", 60L);
+        ReflectionTestUtils.setField(pagingService, "countCacheMaximumSize", 100L);
+        pagingService.init();
+    }
+
+    @Test
+    void missingWindowTotalFallsBackToCounter() {
+        PageResult<Long> page = pagingService.page(CountMode.EXACT, "k", 1, 2,
+                (offset, limit, withTotal) -> List.of(new Row(1L, null), new Row(2L, null)), this::count, IDS);
+        assertEquals(42L, page.getTotal());
+        assertEquals(1, counts.get());
+
+        page = pagingService.page(CountMode.EXACT, "k", 1, 2,
+                (offset, limit, withTotal) -> List.of(new Row(1L, 7L)), this::count, IDS);
+        assertEquals(7L, page.getTotal());
+        assertEquals(1, counts.get());
+    }
+
+    @Test
+    void cachedCountsAreReusedAndEvictedByPrefix() {
+        PageResult<Long> first = pagingService.page(CountMode.CACHED, "product|a", 1, 10,
+                (offset, limit, withTotal) -> List.of(), this::count, IDS);
+        PageResult<Long> second = pagingService.page(CountMode.CACHED, "product|a", 2, 10,
+                (offset, limit, withTotal) -> List.of(), this::count, IDS);
+        assertTrue(first.getTotalExact());
+        assertFalse(second.getTotalExact());
+        assertEquals(1, counts.get());
+
+        pagingService.evictCounts("product|");
+        pagingService.page(CountMode.CACHED, "product|a", 1, 10,
+                (offset, limit, withTotal) -> List.of(), this::count, IDS);
+        assertEquals(2, counts.get());
+    }
+
+    private Long count() {
+        counts.incrementAndGet();
+        return 42L;
+    }
+}
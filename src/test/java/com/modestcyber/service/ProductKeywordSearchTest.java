@@ -0,0 +1,236 @@
+package com.modestcyber.service;
+
+import com.modestcyber.common.FacetedPageResult;
+import com.modestcyber.common.PageResult;
+import com.modestcyber.dto.response.ProductCardResponse;
+import com.modestcyber.dto.response.ProductFacetsResponse;
+import com.modestcyber.mapper.ProductMapper;
+import com.modestcyber.pojo.Category;
+import com.modestcyber.pojo.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 关键词检索：命中集合与其余筛选条件在内存中求交、排序、分面，数据库只按ID取最终一页，
+ * 命中数再多也不会把整个命中集合拼进 IN 列表
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductKeywordSearchTest {
+
+    private static final int PRODUCTS = 5000;
+    private static final List<String> CONDITIONS = List.of("全新", "九成新", "八成新");
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    @Mock
+    private ProductMapper productMapper;
+
+    @Mock
+    private ProductResponseAssembler productResponseAssembler;
+
+    @Mock
+    private CategoryCache categoryCache;
+
+    @Mock
+    private ProductSuggestService productSuggestService;
+
+    @Mock
+    private ProductListCache productListCache;
+
+    @InjectMocks
+    private ProductService productService;
+
+    private final ProductSearchIndex productSearchIndex = new ProductSearchIndex();
+    private final ProductFacetService productFacetService = new ProductFacetService();
+    private final Map<Long, Product> table = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(11);
+        for (long id = 1; id <= PRODUCTS; id++) {
+            Product product = new Product();
+            product.setId(id);
+            product.setTitle(id % 10 == 0 ? "二手自行车" : "iphone 手机 " + id);
+            product.setStatus(id % 7 == 0 ? 2 : 1);
+            product.setCategoryId(1L + random.nextInt(4));
+            product.setCondition(CONDITIONS.get(random.nextInt(CONDITIONS.size())));
+            product.setPrice(BigDecimal.valueOf(random.nextInt(150_000), 2));
+            product.setTransactionType(random.nextInt(3));
+            product.setCreateTime(BASE.plusMinutes(random.nextInt(2000)));
+            product.setViewCount(random.nextInt(50));
+            product.setFavoriteCount(random.nextInt(10));
+            table.put(id, product);
+            productSearchIndex.index(product);
+        }
+        ReflectionTestUtils.setField(productSearchIndex, "ready", true);
+        ReflectionTestUtils.setField(productFacetService, "productMapper", productMapper);
+        ReflectionTestUtils.setField(productFacetService, "categoryCache", categoryCache);
+        ReflectionTestUtils.setField(productService, "productSearchIndex", productSearchIndex);
+        ReflectionTestUtils.setField(productService, "productFacetService", productFacetService);
+
+        lenient().when(productMapper.findCardsByIds(anyCollection())).thenAnswer(invocation -> rows(invocation.getArgument(0)));
+        lenient().when(productMapper.findCountsByIds(anyCollection())).thenAnswer(invocation -> rows(invocation.getArgument(0)));
+        lenient().when(productResponseAssembler.toCards(any())).thenAnswer(invocation -> {
+            List<Product> products = invocation.getArgument(0);
+            return products.stream().map(product -> {
+                ProductCardResponse card = new ProductCardResponse();
+                card.setId(product.getId());
+                return card;
+            }).collect(Collectors.toList());
+        });
+        lenient().when(categoryCache.get()).thenReturn(CategorySnapshot.of(categories()));
+    }
+
+    @Test
+    void relevancePageIsIntersectedInMemoryAndFetchedById() {
+        List<Long> ranked = productSearchIndex.search("iphone", 1).stream()
+                .filter(hit -> hit.transactionType() != 2 && hit.price().compareTo(BigDecimal.valueOf(100)) >= 0)
+                .map(ProductSearchIndex.Hit::id)
+                .collect(Collectors.toList());
+        assertTrue(ranked.size() > 1000, "命中数应超过旧的截断上限");
+
+        PageResult<ProductCardResponse> page = productService.listProducts(null, null, null,
+                BigDecimal.valueOf(100), null, List.of(0, 1), 1, "iphone", null, null, 3, 20, null, null, false);
+
+        assertEquals(ranked.subList(40, 60), ids(page));
+        assertEquals(ranked.size(), page.getTotal());
+        assertOnlyFinalPageFetched(20);
+    }
+
+    @Test
+    void sortedPagesMatchFilteredCatalogue() {
+        Predicate<Product> filter = product -> product.getStatus() == 1 && product.getTitle().contains("iphone")
+                && List.of(2L, 3L).contains(product.getCategoryId()) && !"八成新".equals(product.getCondition());
+        for (String column : List.of("create_time", "price", "view_count", "favorite_count")) {
+            for (String direction : List.of("asc", "desc")) {
+                List<Long> expected = expected(filter, column, direction);
+                PageResult<ProductCardResponse> page = productService.listProducts(null, List.of(2L, 3L),
+                        List.of("全新", "九成新"), null, null, null, 1, "iphone", column, direction, 2, 25, null, null, false);
+                assertEquals(expected.subList(25, 50), ids(page), column + " " + direction);
+                assertEquals(expected.size(), page.getTotal());
+            }
+        }
+        assertOnlyFinalPageFetched(25);
+        // 计数列分批回表，每批不超过 1000 个ID
+        verify(productMapper, atLeastOnce()).findCountsByIds(
+                argThat(ids -> ids.size() <= 1000));
+    }
+
+    @Test
+    void cursorWalksTheSameOrderWithoutGapsOrDuplicates() {
+        Predicate<Product> filter = product -> product.getStatus() == 1 && product.getTitle().contains("iphone")
+                && product.getTransactionType() == 1;
+        for (String column : List.of("create_time", "price", "view_count")) {
+            List<Long> expected = expected(filter, column, "desc");
+            List<Long> walked = new ArrayList<>();
+            String after = "";
+            do {
+                PageResult<ProductCardResponse> page = productService.listProducts(null, null, null, null, null,
+                        List.of(1), 1, "iphone", column, "desc", 1, 97, after, null, false);
+                walked.addAll(ids(page));
+                after = page.getNextCursor();
+            } while (after != null);
+            assertEquals(expected, walked, column);
+        }
+        assertOnlyFinalPageFetched(97);
+    }
+
+    @Test
+    void facetsAreCountedFromHitsExcludingTheirOwnFilter() {
+        PageResult<ProductCardResponse> page = productService.listProducts(null, null, List.of("全新"),
+                null, BigDecimal.valueOf(500), null, 1, "iphone", null, null, 1, 10, null, null, true);
+        ProductFacetsResponse facets = ((FacetedPageResult<ProductCardResponse, ProductFacetsResponse>) page).getFacets();
+
+        Predicate<Product> keyword = product -> product.getStatus() == 1 && product.getTitle().contains("iphone");
+        Predicate<Product> price = product -> product.getPrice().compareTo(BigDecimal.valueOf(500)) <= 0;
+        Predicate<Product> condition = product -> "全新".equals(product.getCondition());
+
+        Map<Object, Long> conditions = count(keyword.and(price), Product::getCondition);
+        facets.getConditions().forEach(facet -> assertEquals(conditions.get(facet.getValue()), facet.getCount()));
+        assertEquals(conditions.size(), facets.getConditions().size());
+
+        Map<Object, Long> categories = count(keyword.and(price).and(condition), Product::getCategoryId);
+        facets.getCategories().forEach(facet -> assertEquals(categories.get(facet.getValue()), facet.getCount()));
+        assertEquals(categories.size(), facets.getCategories().size());
+
+        long cheap = table.values().stream().filter(keyword.and(condition))
+                .filter(product -> product.getPrice().compareTo(BigDecimal.valueOf(50)) < 0).count();
+        assertEquals(cheap, facets.getPriceBuckets().get(0).getCount());
+        verify(productMapper, never()).countFacets(any());
+    }
+
+    private void assertOnlyFinalPageFetched(int pageSize) {
+        verify(productMapper, never()).listProducts(any());
+        verify(productMapper, never()).countProducts(any());
+        verify(productMapper, atLeastOnce()).findCardsByIds(
+                argThat(ids -> ids.size() <= pageSize));
+        verify(productMapper, never()).findCardsByIds(
+                argThat(ids -> ids.size() > pageSize));
+    }
+
+    private List<Long> expected(Predicate<Product> filter, String column, String direction) {
+        Comparator<Product> order = switch (column) {
+            case "price" -> Comparator.comparing(Product::getPrice);
+            case "view_count" -> Comparator.comparing(Product::getViewCount);
+            case "favorite_count" -> Comparator.comparing(Product::getFavoriteCount);
+            default -> Comparator.comparing(Product::getCreateTime);
+        };
+        order = order.thenComparing(Product::getId);
+        if ("desc".equals(direction)) {
+            order = order.reversed();
+        }
+        return table.values().stream().filter(filter).sorted(order).map(Product::getId).collect(Collectors.toList());
+    }
+
+    private Map<Object, Long> count(Predicate<Product> filter, Function<Product, Object> key) {
+        return table.values().stream().filter(filter).collect(Collectors.groupingBy(key, Collectors.counting()));
+    }
+
+    private List<Product> rows(Collection<Long> ids) {
+        return ids.stream().map(table::get).collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(PageResult<ProductCardResponse> page) {
+        return page.getList().stream().map(ProductCardResponse::getId).collect(Collectors.toList());
+    }
+
+    private static List<Category> categories() {
+        List<Category> categories = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) {
+            Category category = new Category();
+            category.setId(id);
+            category.setName("分类" + id);
+            category.setParentId(0L);
+            categories.add(category);
+        }
+        return categories;
+    }
+}
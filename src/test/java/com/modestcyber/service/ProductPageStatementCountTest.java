@@ -0,0 +1,156 @@
+package com.modestcyber.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.modestcyber.common.PageResult;
+import com.modestcyber.converter.ProductConverterImpl;
+import com.modestcyber.dto.response.ProductResponse;
+import com.modestcyber.mapper.ProductMapper;
+import com.modestcyber.mapper.UserMapper;
+import com.modestcyber.util.LongHashSet;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.LocalCacheScope;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * 商品分页的语句数：在 H2 上执行真实的 Mapper SQL，由 MyBatis 插件统计每次请求发出的语句，
+ * 一页固定为 列表 + 总数 + 卖家批量查询 三条，与页大小无关（不是 1 + N）
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductPageStatementCountTest {
+
+    private static final int SELLERS = 25;
+    private static final int PRODUCTS = 60;
+
+    @Mock
+    private CategoryCache categoryCache;
+
+    @Mock
+    private FavoriteSetCache favoriteSetCache;
+
+    @Mock
+    private ViewCountService viewCountService;
+
+    @Mock
+    private FavoriteCountService favoriteCountService;
+
+    private final StatementCounter counter = new StatementCounter();
+    private SqlSession session;
+    private AdminService adminService;
+
+    /**
+     * 统计发往数据库的语句（每条语句 prepare 一次）
+     */
+    @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+    static class StatementCounter implements Interceptor {
+        private final List<String> statements = new ArrayList<>();
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            statements.add(((StatementHandler) invocation.getTarget()).getBoundSql().getSql());
+            return invocation.proceed();
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UnpooledDataSource dataSource = new UnpooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER",
+                "sa", "");
+        Configuration configuration = new Configuration(
+                new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        // 与 Spring 管理的 SqlSession 一致：每条语句独立，不靠一级缓存掩盖重复查询
+        configuration.setLocalCacheScope(LocalCacheScope.STATEMENT);
+        configuration.addMapper(ProductMapper.class);
+        configuration.addMapper(UserMapper.class);
+        configuration.addInterceptor(counter);
+        session = new SqlSessionFactoryBuilder().build(configuration).openSession(true);
+        createTables(session.getConnection());
+
+        ProductResponseAssembler assembler = new ProductResponseAssembler();
+        ReflectionTestUtils.setField(assembler, "userMapper", session.getMapper(UserMapper.class));
+        ReflectionTestUtils.setField(assembler, "categoryCache", categoryCache);
+        ReflectionTestUtils.setField(assembler, "favoriteSetCache", favoriteSetCache);
+        ReflectionTestUtils.setField(assembler, "viewCountService", viewCountService);
+        ReflectionTestUtils.setField(assembler, "favoriteCountService", favoriteCountService);
+        ReflectionTestUtils.setField(assembler, "productConverter", new ProductConverterImpl());
+        ReflectionTestUtils.setField(assembler, "objectMapper", new ObjectMapper());
+
+        adminService = new AdminService();
+        ReflectionTestUtils.setField(adminService, "productMapper", session.getMapper(ProductMapper.class));
+        ReflectionTestUtils.setField(adminService, "productResponseAssembler", assembler);
+
+        when(categoryCache.get()).thenReturn(CategorySnapshot.of(new ArrayList<>()));
+        when(favoriteSetCache.get(any())).thenReturn(new LongHashSet());
+    }
+
+    @AfterEach
+    void tearDown() {
+        session.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void pageCostsFixedNumberOfStatements(int pageSize) {
+        counter.statements.clear();
+
+        PageResult<ProductResponse> page = adminService.getProductList(null, null, null, 1, pageSize);
+
+        assertEquals(pageSize, page.getList().size());
+        assertEquals(PRODUCTS, page.getTotal());
+        page.getList().forEach(product -> assertNotNull(product.getUsername()));
+        assertEquals(3, counter.statements.size(), () -> String.join("\n", counter.statements));
+    }
+
+    private void createTables(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE `user` (id BIGINT PRIMARY KEY, username VARCHAR(50), password VARCHAR(255), "
+                    + "real_name VARCHAR(50), student_id VARCHAR(20), phone VARCHAR(20), email VARCHAR(100), "
+                    + "department VARCHAR(100), avatar VARCHAR(255), role VARCHAR(20), status TINYINT, "
+                    + "create_time DATETIME, update_time DATETIME)");
+            statement.execute("CREATE TABLE product (id BIGINT PRIMARY KEY, user_id BIGINT, category_id BIGINT, "
+                    + "title VARCHAR(200), description TEXT, price DECIMAL(10,2), original_price DECIMAL(10,2), "
+                    + "images VARCHAR(1000), status TINYINT, `condition` VARCHAR(20), transaction_type TINYINT, "
+                    + "view_count INT, favorite_count INT, create_time DATETIME, update_time DATETIME)");
+            for (int i = 1; i <= SELLERS; i++) {
+                statement.execute("INSERT INTO `user` (id, username, department, role, status) "
+                        + "VALUES (" + i + ", 'seller" + i + "', '计算机学院', 'user', 1)");
+            }
+            for (int i = 1; i <= PRODUCTS; i++) {
+                statement.execute("INSERT INTO product (id, user_id, category_id, title, price, images, status, "
+                        + "`condition`, transaction_type, view_count, favorite_count, create_time, update_time) "
+                        + "VALUES (" + i + ", " + (i % SELLERS + 1) + ", 1, '商品" + i + "', 10.00, '[\"a.jpg\"]', 1, "
+                        + "'九成新', 0, 0, 0, DATEADD('MINUTE', " + i + ", TIMESTAMP '2026-01-01 00:00:00'), "
+                        + "CURRENT_TIMESTAMP)");
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.modestcyber.service;
+
+import com.modestcyber.event.ProductChangedEvent;
+import com.modestcyber.mapper.ProductMapper;
+import com.modestcyber.pojo.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 检索索引重建：重建期间的商品变更在换上新索引后按库中最新数据重放；启动加载失败不抛出，保持未就绪并可重试
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    @Mock
+    private ProductMapper productMapper;
+
+    @InjectMocks
+    private ProductSearchIndex productSearchIndex;
+
+    // 模拟 product 表
+    private final Map<Long, Product> table = new HashMap<>();
+
+    @Test
+    void changesDuringRebuildAreNotOverwrittenByStaleBatches() {
+        for (long id = 1; id <= 3; id++) {
+            table.put(id, product(id, "旧标题 台灯"));
+        }
+        when(productMapper.findById(anyLong())).thenAnswer(invocation -> table.get(invocation.<Long>getArgument(0)));
+        when(productMapper.listForSearchIndex(anyLong(), anyInt())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            if (afterId > 0) {
+                return List.of();
+            }
+            // 批次已读出，随后商品 1 改标题、商品 2 被删除并各自提交
+            List<Product> batch = new ArrayList<>();
+            table.values().forEach(p -> batch.add(product(p.getId(), p.getTitle())));
+            table.put(1L, product(1L, "新标题 书架"));
+            productSearchIndex.onProductChanged(new ProductChangedEvent(1L, ProductChangedEvent.Type.UPDATED));
+            table.remove(2L);
+            productSearchIndex.onProductChanged(new ProductChangedEvent(2L, ProductChangedEvent.Type.DELETED));
+            return batch;
+        });
+
+        productSearchIndex.rebuild();
+
+        assertTrue(productSearchIndex.isReady());
+        assertEquals(List.of(3L), ids(productSearchIndex.search("台灯", null)));
+        assertEquals(List.of(1L), ids(productSearchIndex.search("书架", null)));
+    }
+
+    @Test
+    void failedStartupLoadKeepsIndexNotReadyUntilRetrySucceeds() {
+        when(productMapper.listForSearchIndex(anyLong(), anyInt()))
+                .thenThrow(new CannotGetJdbcConnectionException("Failed to obtain JDBC Connection"))
+                .thenAnswer(invocation -> invocation.<Long>getArgument(0) > 0 ? List.of() : List.of(product(1L, "台灯")));
+
+        productSearchIndex.rebuild();
+        assertFalse(productSearchIndex.isReady());
+
+        productSearchIndex.retryRebuild();
+        assertTrue(productSearchIndex.isReady());
+        assertEquals(List.of(1L), ids(productSearchIndex.search("台灯", null)));
+
+        // 就绪后不再重建
+        productSearchIndex.retryRebuild();
+        verify(productMapper, times(3)).listForSearchIndex(anyLong(), anyInt());
+    }
+
+    private static List<Long> ids(List<ProductSearchIndex.Hit> hits) {
+        return hits.stream().map(ProductSearchIndex.Hit::id).toList();
+    }
+
+    private static Product product(long id, String title) {
+        Product product = new Product();
+        product.setId(id);
+        product.setTitle(title);
+        product.setStatus(1);
+        return product;
+    }
+}
@@ -0,0 +1,53 @@
+package com.modestcyber.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 热门搜索词：次数达到阈值后进入联想，定时减半后低于阈值的词退出联想，归零的词不再跟踪，腾出名额给新词
+ */
+class ProductSuggestServiceTest {
+
+    private final ProductSuggestService productSuggestService = new ProductSuggestService();
+
+    @Test
+    void decayDropsStaleQueriesAndFreesSlots() {
+        search("机械键盘", 8);
+        search("显示器", 3);
+        assertEquals(List.of("机械键盘"), productSuggestService.suggest("机", 10));
+        assertEquals(List.of("显示器"), productSuggestService.suggest("显", 10));
+
+        // 8 -> 4 仍在联想中，3 -> 1 低于阈值退出
+        productSuggestService.decayQueries();
+        assertEquals(List.of("机械键盘"), productSuggestService.suggest("机", 10));
+        assertTrue(productSuggestService.suggest("显", 10).isEmpty());
+
+        // 4 -> 2 -> 1 -> 0：退出联想并不再跟踪
+        productSuggestService.decayQueries();
+        productSuggestService.decayQueries();
+        productSuggestService.decayQueries();
+        assertTrue(productSuggestService.suggest("机", 10).isEmpty());
+        assertTrue(queryCounts().isEmpty());
+
+        // 衰减后的权重与重新计数一致：再搜 3 次重新进入联想
+        search("显示器", 3);
+        assertEquals(List.of("显示器"), productSuggestService.suggest("显", 10));
+    }
+
+    private void search(String keyword, int times) {
+        for (int i = 0; i < times; i++) {
+            productSuggestService.recordQuery(keyword);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> queryCounts() {
+        return (Map<String, ?>) ReflectionTestUtils.getField(productSuggestService, "queryCounts");
+    }
+}
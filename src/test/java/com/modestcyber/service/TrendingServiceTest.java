@@ -0,0 +1,83 @@
+package com.modestcyber.service;
+
+import com.modestcyber.dto.response.HotSnapshot;
+import com.modestcyber.pojo.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 热度榜：事务内的收藏、下单提交后才计入，回滚的不计入
+ */
+class TrendingServiceTest {
+
+    private final TrendingService trendingService = new TrendingService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(trendingService, "halfLifeHours", 24.0);
+        ReflectionTestUtils.setField(trendingService, "topK", 10);
+        trendingService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void actionsInsideTransactionCountOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        trendingService.recordAfterCommit(product(1L), TrendingService.Action.ORDER);
+        trendingService.publish();
+        assertTrue(productIds().isEmpty());
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        trendingService.publish();
+        assertEquals(List.of(1L), productIds());
+    }
+
+    @Test
+    void rolledBackActionsAreNotCounted() {
+        TransactionSynchronizationManager.initSynchronization();
+        trendingService.recordAfterCommit(product(2L), TrendingService.Action.FAVORITE);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // 无事务时立即计入
+        trendingService.recordAfterCommit(product(3L), TrendingService.Action.FAVORITE);
+        trendingService.publish();
+        assertEquals(List.of(3L), productIds());
+    }
+
+    private void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    private List<Long> productIds() {
+        return trendingService.getSnapshot().getProducts().stream().map(HotSnapshot.Item::getId).toList();
+    }
+
+    private static Product product(long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCategoryId(1L);
+        return product;
+    }
+}
@@ -0,0 +1,112 @@
+package com.modestcyber.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 50_000;
+
+    @Test
+    void idsAreUniqueAcrossThreadsAndNodes() throws Exception {
+        SnowflakeIdGenerator node1 = new SnowflakeIdGenerator(1);
+        SnowflakeIdGenerator node2 = new SnowflakeIdGenerator(2);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                SnowflakeIdGenerator generator = t % 2 == 0 ? node1 : node2;
+                Callable<long[]> task = () -> {
+                    start.await();
+                    long[] ids = new long[IDS_PER_THREAD];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                };
+                futures.add(pool.submit(task));
+            }
+            start.countDown();
+
+            Set<Long> seen = new HashSet<>(THREADS * IDS_PER_THREAD * 2);
+            for (int t = 0; t < THREADS; t++) {
+                long[] ids = futures.get(t).get();
+                long expectedNode = t % 2 == 0 ? 1 : 2;
+                for (int i = 0; i < ids.length; i++) {
+                    assertTrue(seen.add(ids[i]), "重复ID: " + ids[i]);
+                    assertEquals(expectedNode, SnowflakeIdGenerator.nodeIdOf(ids[i]));
+                    if (i > 0) {
+                        assertTrue(ids[i] > ids[i - 1], "同一线程内ID应递增");
+                    }
+                }
+            }
+            assertEquals(THREADS * IDS_PER_THREAD, seen.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void clockRollbackKeepsIdsIncreasing() {
+        AtomicLong clock = new AtomicLong(1_800_000_000_000L);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, clock::get);
+        long before = generator.nextId();
+        clock.addAndGet(-5_000);  // 时钟回拨 5 秒
+        long during = generator.nextId();
+        clock.addAndGet(10_000);
+        long after = generator.nextId();
+
+        assertTrue(during > before);
+        assertTrue(after > during);
+        assertEquals(1_800_000_000_000L, SnowflakeIdGenerator.timestampOf(during));
+        assertEquals(1_800_000_005_000L, SnowflakeIdGenerator.timestampOf(after));
+    }
+
+    @Test
+    void exhaustedSequenceBorrowsNextMillisecond() {
+        long now = 1_800_000_000_000L;
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, () -> now);
+        long last = 0;
+        for (int i = 0; i < 4096 * 3; i++) {
+            long id = generator.nextId();
+            assertTrue(id > last);
+            last = id;
+        }
+        assertEquals(now + 2, SnowflakeIdGenerator.timestampOf(last));
+    }
+
+    @Test
+    void orderNumbersAreFixedLengthAndSortable() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID);
+        String previous = "";
+        for (int i = 0; i < 10_000; i++) {
+            String no = generator.nextNo("ORD");
+            assertEquals(22, no.length());
+            assertTrue(no.startsWith("ORD"));
+            assertTrue(no.compareTo(previous) > 0, "订单号应按字典序递增");
+            previous = no;
+        }
+    }
+
+    @Test
+    void rejectsNodeIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+    }
+}
@@ -0,0 +1,148 @@
+package com.modestcyber.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private static final long SLOTS = 64;
+
+    @Test
+    void firesAtDeadlineAcrossLevelBoundaries() {
+        long start = 37;  // 不对齐槽边界，推进过程中会经过各层的下放
+        TimingWheel<Long> wheel = new TimingWheel<>(1, start);
+        long[] offsets = {1, 2, SLOTS - 1, SLOTS, SLOTS + 1, SLOTS * SLOTS - 1, SLOTS * SLOTS, SLOTS * SLOTS + 1,
+                SLOTS * SLOTS * SLOTS - 1, SLOTS * SLOTS * SLOTS, SLOTS * SLOTS * SLOTS + 1};
+        for (long offset : offsets) {
+            wheel.schedule(offset, start + offset, start + offset);
+        }
+
+        Map<Long, Long> firedAt = new HashMap<>();
+        long last = start + SLOTS * SLOTS * SLOTS + 1;
+        for (long now = start + 1; now <= last; now++) {
+            long current = now;
+            wheel.advance(now, (deadline, key) -> firedAt.put(key, current));
+        }
+
+        assertEquals(offsets.length, firedAt.size());
+        for (long offset : offsets) {
+            assertEquals(start + offset, firedAt.get(offset), "offset " + offset);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void deadlineRoundsUpToTickAndNeverFiresEarly() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 0);
+        wheel.schedule(1L, 1500, "a");
+        List<String> fired = new ArrayList<>();
+
+        assertEquals(0, wheel.advance(1999, (value, key) -> fired.add(value)));
+        assertEquals(1, wheel.advance(2000, (value, key) -> fired.add(value)));
+        assertEquals(List.of("a"), fired);
+    }
+
+    @Test
+    void cancelledEntriesDoNotFire() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 0);
+        wheel.schedule(1L, 10, "near");
+        wheel.schedule(2L, SLOTS * SLOTS + 5, "far");
+        wheel.schedule(3L, SLOTS * SLOTS + 5, "kept");
+
+        assertTrue(wheel.cancel(1L));
+        assertFalse(wheel.cancel(1L));
+        // 推进到 far 已从高层下放之后再取消
+        wheel.advance(SLOTS * SLOTS, (value, key) -> { });
+        assertTrue(wheel.contains(2L));
+        assertTrue(wheel.cancel(2L));
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(SLOTS * SLOTS * 2, (value, key) -> fired.add(value));
+        assertEquals(List.of("kept"), fired);
+        assertFalse(wheel.cancel(3L));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rescheduleReplacesPreviousDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 0);
+        wheel.schedule(1L, 100, "old");
+        wheel.schedule(1L, 200, "new");
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(199, (value, key) -> fired.add(value));
+        assertTrue(fired.isEmpty());
+        wheel.advance(200, (value, key) -> fired.add(value));
+        assertEquals(List.of("new"), fired);
+    }
+
+    @Test
+    void pastDeadlinesFireOnNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 10_000);
+        wheel.advance(20_500, (value, key) -> { });
+        wheel.schedule(1L, 5_000, "long ago");
+        wheel.schedule(2L, 20_000, "current tick");
+        wheel.schedule(3L, 20_500, "now");
+        List<String> fired = new ArrayList<>();
+
+        assertEquals(0, wheel.advance(20_999, (value, key) -> fired.add(value)));
+        assertEquals(3, wheel.advance(21_000, (value, key) -> fired.add(value)));
+        assertEquals(3, fired.size());
+    }
+
+    @Test
+    void callbackMayRescheduleItself() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 0);
+        wheel.schedule(1L, 10, 0);
+        List<Integer> fired = new ArrayList<>();
+
+        wheel.advance(100, (attempt, key) -> {
+            fired.add(attempt);
+            if (attempt < 2) {
+                wheel.schedule(key, 10L * (attempt + 2), attempt + 1);
+            }
+        });
+        assertEquals(List.of(0, 1, 2), fired);
+    }
+
+    @Test
+    void matchesModelUnderRandomOperations() {
+        Random random = new Random(42);
+        long tick = 1000;
+        long now = 1_760_000_000_123L;
+        TimingWheel<Long> wheel = new TimingWheel<>(tick, now);
+        Map<Long, Long> model = new HashMap<>();  // key -> 应到期的最早时刻
+
+        for (int step = 0; step < 50_000; step++) {
+            int op = random.nextInt(10);
+            long key = random.nextInt(5_000);
+            if (op < 5) {
+                long deadline = now + (long) (Math.pow(random.nextDouble(), 4) * 30L * 86_400_000L) - 5_000;
+                wheel.schedule(key, deadline, deadline);
+                model.put(key, Math.max(deadline, (now / tick + 1) * tick));
+            } else if (op < 7) {
+                assertEquals(model.remove(key) != null, wheel.cancel(key));
+            } else {
+                now += random.nextInt(3) == 0 ? random.nextInt(86_400_000) : random.nextInt(5_000);
+                long current = now;
+                wheel.advance(now, (deadline, fired) -> {
+                    Long due = model.remove(fired);
+                    assertTrue(due != null && due <= current, "提前或重复到期: " + fired);
+                });
+                for (Map.Entry<Long, Long> entry : model.entrySet()) {
+                    assertTrue(entry.getValue() > current - tick, "已到期未触发: " + entry.getKey());
+                }
+            }
+            assertEquals(model.size(), wheel.size());
+        }
+    }
+}